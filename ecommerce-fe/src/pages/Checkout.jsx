@@ -4,7 +4,6 @@ import { useAuthStore } from '../store/useAuthStore'
 import cartService from '../services/cart'
 import orderService from '../services/order'
 import { userAddressService } from '../services/userAddressService'
-import { shippingService } from '../services/shippingService'
 import { useThemeStore } from '../store/useThemeStore'
 import { cn } from '../lib/cn'
 import { HiOutlineLocationMarker, HiArrowLeft, HiOutlineShoppingBag, HiPlus } from 'react-icons/hi'
@@ -23,6 +22,7 @@ export default function Checkout() {
     const [shopName, setShopName] = useState('')
     const [totalPrice, setTotalPrice] = useState(0)
     const [shippingFee, setShippingFee] = useState(0)
+    const [quoteId, setQuoteId] = useState(null)
     const [isCalculatingFee, setIsCalculatingFee] = useState(false)
 
     const [addresses, setAddresses] = useState([])
@@ -110,25 +110,13 @@ export default function Checkout() {
 
         try {
             setIsCalculatingFee(true)
+            setQuoteId(null)
 
-            // Mock Shop Address (Quan 1, HCM) - Todo: Fetch from API
-            const FROM_DISTRICT_ID = 1442;
-            const FROM_WARD_CODE = "20101";
+            // Server báo phí theo địa chỉ shop và khối lượng thật, đơn tạo bằng quoteId dùng đúng phí này
+            const quote = await orderService.quote(shopId, selectedAddr.id)
 
-            // Calculate weight (Mock: 500g per item * quantity)
-            const totalWeight = cartItems.reduce((sum, item) => sum + (item.quantity * 500), 0)
-
-            const feeData = await shippingService.calculateFee({
-                from_district_id: FROM_DISTRICT_ID,
-                from_ward_code: FROM_WARD_CODE,
-                to_district_id: selectedAddr.districtId,
-                to_ward_code: selectedAddr.wardCode,
-                weight: totalWeight,
-                service_type_id: 2, // Standard
-                insurance_value: totalPrice > 5000000 ? 5000000 : totalPrice // Max 5M insurance for demo
-            })
-
-            setShippingFee(feeData.total || 0)
+            setShippingFee(Number(quote.shippingFee) || 0)
+            setQuoteId(quote.quoteId)
         } catch (error) {
             console.error("Failed to calculate shipping fee", error)
             // toast.error("Không thể tính phí vận chuyển")
@@ -149,10 +137,15 @@ export default function Checkout() {
             return
         }
 
+        if (!quoteId) {
+            toast.error("Chưa tính được phí vận chuyển cho địa chỉ này")
+            return
+        }
+
         try {
             setProcessing(true)
             // 1. Create Order
-            const order = await orderService.createOrder(shopId, selectedAddressId, notes)
+            const order = await orderService.createOrder(shopId, selectedAddressId, notes, quoteId)
             toast.success("Đặt hàng thành công!")
 
             // 2. Create Payment URL
@@ -169,6 +162,9 @@ export default function Checkout() {
             // If order was created but payment failed, navigate to order detail
             if (error?.orderId) {
                 navigate('/orders')
+            } else {
+                // Quote hết hạn hoặc giỏ đã đổi: báo phí lại để người mua xem phí mới
+                calculateShippingFee()
             }
         } finally {
             setProcessing(false)
@@ -75,14 +75,15 @@ export default function Kyc() {
 
     try {
       const autoTitle = docFile?.name || `kyc-doc-${Date.now()}`
-      const res = await kycService.fullFlowUpload({
+      const accepted = await kycService.fullFlowUpload({
         sessionId,
         file: docFile,
         title: autoTitle,
         description: 'Up ảnh',
       })
+      const job = await kycService.waitForUploadJob(sessionId, accepted?.jobId)
 
-      const hash = res?.fileHash || res?.file_hash || ''
+      const hash = job?.result?.fileHash || ''
       setUploads((prev) => [
         {
           fileName: docFile?.name,
@@ -114,14 +115,15 @@ export default function Kyc() {
 
     try {
       const autoTitle = faceFile?.name || `kyc-face-${Date.now()}`
-      const res = await kycService.fullFlowUpload({
+      const accepted = await kycService.fullFlowUpload({
         sessionId,
         file: faceFile,
         title: autoTitle,
         description: 'Up ảnh',
       })
+      const job = await kycService.waitForUploadJob(sessionId, accepted?.jobId)
 
-      const hash = res?.fileHash || res?.file_hash || ''
+      const hash = job?.result?.fileHash || ''
       setUploads((prev) => [
         {
           fileName: faceFile?.name,
@@ -19,6 +19,8 @@ import categoryService from '../../services/category'
 import SellerProductCard from './components/SellerProductCard'
 import ImageUpload from './components/ImageUpload'
 
+const PAGE_SIZE = 20
+
 export default function BusinessDashboard() {
   const isDark = useThemeStore((s) => s.theme) === 'dark'
   const { user } = useAuthStore()
@@ -32,15 +34,18 @@ export default function BusinessDashboard() {
   const [loading, setLoading] = useState(true)
   const [products, setProducts] = useState([])
   const [statusFilter, setStatusFilter] = useState('')
+  const [page, setPage] = useState(0)
+  const [totalPages, setTotalPages] = useState(0)
   const [showProductForm, setShowProductForm] = useState(false)
   const [editingProduct, setEditingProduct] = useState(null)
   const [error, setError] = useState(null)
 
-  const fetchProducts = async (status = null) => {
+  const fetchProducts = async (status = null, pageToLoad = page) => {
     try {
       setLoading(true)
       setError(null)
-      const productsData = await sellerService.getProductsByShop(status)
+      const res = await sellerService.getProductsByShop(status, { page: pageToLoad, size: PAGE_SIZE })
+      const productsData = Array.isArray(res?.content) ? res.content : []
       
       // Transform API response to match UI format
       const transformedProducts = productsData.map((product) => {
@@ -62,9 +67,10 @@ export default function BusinessDashboard() {
       })
       
       setProducts(transformedProducts)
+      setTotalPages(typeof res?.totalPages === 'number' ? res.totalPages : 0)
       setStats((prev) => ({
         ...prev,
-        totalProducts: productsData.length,
+        totalProducts: typeof res?.totalElements === 'number' ? res.totalElements : productsData.length,
       }))
     } catch (err) {
       console.error('Error fetching products:', err)
@@ -76,8 +82,8 @@ export default function BusinessDashboard() {
   }
 
   useEffect(() => {
-    fetchProducts(statusFilter || null)
-  }, [statusFilter])
+    fetchProducts(statusFilter || null, page)
+  }, [statusFilter, page])
 
   const handleDeleteProduct = async (productId) => {
     if (!window.confirm('Bạn có chắc chắn muốn xóa sản phẩm này?')) {
@@ -246,7 +252,10 @@ export default function BusinessDashboard() {
               {/* Status Filter */}
               <select
                 value={statusFilter}
-                onChange={(e) => setStatusFilter(e.target.value)}
+                onChange={(e) => {
+                  setStatusFilter(e.target.value)
+                  setPage(0)
+                }}
                 className={cn(
                   'rounded-lg border px-3 py-2 text-sm',
                   isDark
@@ -346,6 +355,42 @@ export default function BusinessDashboard() {
                   </p>
                 </div>
               )}
+
+              {totalPages > 1 && (
+                <div className="mt-6 flex items-center justify-between text-sm">
+                  <button
+                    disabled={page <= 0}
+                    onClick={() => setPage((p) => Math.max(0, p - 1))}
+                    className={cn(
+                      'rounded-lg px-4 py-2 font-semibold transition',
+                      page <= 0
+                        ? 'cursor-not-allowed opacity-50'
+                        : isDark
+                          ? 'bg-slate-800 text-slate-100 hover:bg-slate-700'
+                          : 'bg-white text-stone-700 hover:bg-stone-100',
+                    )}
+                  >
+                    Trước
+                  </button>
+                  <span className={cn(isDark ? 'text-slate-400' : 'text-stone-500')}>
+                    Trang {page + 1} / {totalPages}
+                  </span>
+                  <button
+                    disabled={page + 1 >= totalPages}
+                    onClick={() => setPage((p) => p + 1)}
+                    className={cn(
+                      'rounded-lg px-4 py-2 font-semibold transition',
+                      page + 1 >= totalPages
+                        ? 'cursor-not-allowed opacity-50'
+                        : isDark
+                          ? 'bg-slate-800 text-slate-100 hover:bg-slate-700'
+                          : 'bg-white text-stone-700 hover:bg-stone-100',
+                    )}
+                  >
+                    Sau
+                  </button>
+                </div>
+              )}
             </div>
           )}
         </div>
@@ -2,6 +2,11 @@ import api from '../lib/axios';
 
 const KYC_BASE = '/api/v1/kyc';
 
+const JOB_POLL_INTERVAL_MS = 1000;
+const JOB_POLL_TIMEOUT_MS = 3 * 60 * 1000;
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
 const toFormData = (fields) => {
   const form = new FormData();
   Object.entries(fields).forEach(([key, value]) => {
@@ -34,6 +39,33 @@ const kycService = {
     }
   },
 
+  getUploadJob: async (sessionId, jobId) => {
+    try {
+      const response = await api.get(`${KYC_BASE}/sessions/${sessionId}/jobs/${jobId}`);
+      return response.data;
+    } catch (error) {
+      throw error.response ? error.response.data : error;
+    }
+  },
+
+  // fullFlow-upload chỉ nhận job (202); chờ job xử lý xong rồi mới dùng được fileHash/compare
+  waitForUploadJob: async (sessionId, jobId) => {
+    const deadline = Date.now() + JOB_POLL_TIMEOUT_MS;
+    for (;;) {
+      const job = await kycService.getUploadJob(sessionId, jobId);
+      if (job?.done) {
+        if (job.result?.ok) return job;
+        const reason =
+          job.result?.livenessMsg || job.result?.reason || job.lastError || job.result?.step;
+        throw new Error(reason ? `Xử lý ảnh thất bại: ${reason}` : 'Xử lý ảnh thất bại.');
+      }
+      if (Date.now() >= deadline) {
+        throw new Error('Xử lý ảnh quá lâu, vui lòng thử lại sau.');
+      }
+      await sleep(JOB_POLL_INTERVAL_MS);
+    }
+  },
+
   uploadWithType: async ({ sessionId, type, file, title, description }) => {
     try {
       const form = toFormData({ file, title, description, type });
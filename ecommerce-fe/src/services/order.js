@@ -1,16 +1,31 @@
 import axiosClient from '../api/axiosClient';
 
 const ORDER_BASE = '/api/v1/order';
+const CHECKOUT_BASE = '/api/v1/checkout';
 const PAYMENT_BASE = '/api/v1/payment';
 
 const orderService = {
+  // Quote shipping fee for checkout; the returned quoteId must be sent with createOrder
+  quote: async (shopId, addressId) => {
+    try {
+      const response = await axiosClient.post(`${CHECKOUT_BASE}/quote`, {
+        shopId,
+        addressId
+      });
+      return response.data;
+    } catch (error) {
+      throw error.response ? error.response.data : error;
+    }
+  },
+
   // Create Order
-  createOrder: async (shopId, addressId, notes) => {
+  createOrder: async (shopId, addressId, notes, quoteId) => {
     try {
       const response = await axiosClient.post(ORDER_BASE, {
         shopId,
         addressId,
-        notes
+        notes,
+        quoteId
       });
       return response.data;
     } catch (error) {
@@ -23,10 +23,10 @@ const sellerService = {
     }
   },
 
-  // Get products by shop with optional status filter
-  getProductsByShop: async (status = null) => {
+  // Get a page of products by shop with optional status filter (Spring Page: content, totalElements, totalPages)
+  getProductsByShop: async (status = null, { page = 0, size = 20 } = {}) => {
     try {
-      const params = status ? { status } : {};
+      const params = status ? { status, page, size } : { page, size };
       const response = await axiosClient.get(`${SELLER_BASE}/by-shop`, { params });
       return response.data;
     } catch (error) {
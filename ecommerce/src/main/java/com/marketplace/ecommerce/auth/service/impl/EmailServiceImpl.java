@@ -35,7 +35,7 @@ public class EmailServiceImpl implements EmailService {
     public final Map<String, String> storageMap = new ConcurrentHashMap<>();
 
     @Override
-    @Async
+    @Async("mailExecutor")
     public void sendOtpForVerifyAccount(MailBody mailBody, String otp) {
         try {
             storageOtp(mailBody, otp);
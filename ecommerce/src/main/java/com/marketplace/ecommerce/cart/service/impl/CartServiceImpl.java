@@ -132,6 +132,7 @@ public class CartServiceImpl implements CartService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // Giá và tồn kho đọc thẳng từ DB, cache sản phẩm chỉ dùng cho hiển thị
     private Product getPublishedProduct(UUID productId) {
         return productRepository.findPublishedByIdWithDetails(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
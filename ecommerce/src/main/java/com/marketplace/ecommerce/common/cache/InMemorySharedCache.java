@@ -0,0 +1,62 @@
+package com.marketplace.ecommerce.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SharedCache chạy trong cùng JVM, dùng cho local/test (cache.shared.type=memory).
+ * Giá trị được lưu dưới dạng JSON giống một store thật để bắt sớm lỗi serialize.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cache.shared.type", havingValue = "memory")
+public class InMemorySharedCache implements SharedCache {
+    private final ObjectMapper om;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> Optional<T> get(String key, Class<T> type) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(om.readValue(entry.json(), type));
+        } catch (JsonProcessingException e) {
+            log.warn("Không đọc được shared cache key {}: {}", key, e.getMessage());
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, Object value, Duration ttl) {
+        try {
+            entries.put(key, new Entry(om.writeValueAsString(value), System.currentTimeMillis() + ttl.toMillis()));
+        } catch (JsonProcessingException e) {
+            log.warn("Không ghi được shared cache key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        entries.remove(key);
+    }
+
+    private record Entry(String json, long expiresAt) {
+    }
+}
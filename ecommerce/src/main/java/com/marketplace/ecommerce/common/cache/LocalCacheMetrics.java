@@ -0,0 +1,55 @@
+package com.marketplace.ecommerce.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Đăng ký LocalCache vào Micrometer theo chuẩn cache.gets/cache.puts/cache.evictions/cache.size,
+ * xem qua /actuator/metrics/cache.gets?tag=cache:product-detail.
+ */
+public class LocalCacheMetrics extends CacheMeterBinder<LocalCache<?, ?>> {
+
+    public LocalCacheMetrics(LocalCache<?, ?> cache) {
+        super(cache, cache.getName(), Tags.empty());
+    }
+
+    public static <C extends LocalCache<?, ?>> C monitor(MeterRegistry registry, C cache) {
+        new LocalCacheMetrics(cache).bindTo(registry);
+        return cache;
+    }
+
+    @Override
+    protected Long size() {
+        LocalCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        LocalCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        LocalCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        LocalCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        LocalCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.marketplace.ecommerce.common.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Tầng cache dùng chung giữa các node (Redis, Memcached...). Không bắt buộc: khi không có bean nào
+ * thì các service chỉ dùng LocalCache. Giá trị phải serialize được sang JSON.
+ */
+public interface SharedCache {
+
+    <T> Optional<T> get(String key, Class<T> type);
+
+    void put(String key, Object value, Duration ttl);
+
+    void evict(String key);
+}
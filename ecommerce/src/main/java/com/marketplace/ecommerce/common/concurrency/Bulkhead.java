@@ -0,0 +1,108 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Giới hạn số lời gọi đồng thời tới một downstream. Dùng Semaphore (không synchronized) nên chạy được
+ * trên virtual thread mà không pin carrier thread.
+ */
+public class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int maxConcurrent) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Chờ tối đa {@code maxWait} để lấy slot rồi chạy {@code action}.
+     *
+     * @throws RejectedExecutionException nếu hết thời gian chờ
+     */
+    public <T> T call(Supplier<T> action, Duration maxWait) {
+        acquire(maxWait);
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Như {@link #call(Supplier, Duration)} nhưng cho action ném checked exception (MinIO client).
+     */
+    public <T> T callChecked(Callable<T> action, Duration maxWait) throws Exception {
+        acquire(maxWait);
+        try {
+            return action.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Lấy slot rồi để caller tự nhả bằng {@link Permit#close()}, cho tài nguyên sống lâu hơn lời gọi
+     * (stream đọc từ downstream).
+     *
+     * @throws RejectedExecutionException nếu hết thời gian chờ
+     */
+    public Permit acquirePermit(Duration maxWait) {
+        acquire(maxWait);
+        return new Permit();
+    }
+
+    /**
+     * Slot đã lấy; close() nhiều lần chỉ nhả một lần.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void acquire(Duration maxWait) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(Math.max(0, maxWait.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for " + name, e);
+        }
+        if (!acquired) {
+            throw new RejectedExecutionException(name + " is busy, no slot available within " + maxWait);
+        }
+    }
+}
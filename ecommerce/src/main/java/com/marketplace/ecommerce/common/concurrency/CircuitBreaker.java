@@ -0,0 +1,182 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker đếm theo cửa sổ N lời gọi gần nhất. Tỉ lệ lỗi vượt ngưỡng thì OPEN và từ chối ngay
+ * trong {@code openDuration}; hết thời gian thì HALF_OPEN cho vài lời gọi thử, thành công hết mới CLOSED.
+ * Chỉ lỗi thoả {@code recordFailure} mới được tính (lỗi nghiệp vụ của downstream không làm mở mạch).
+ * Lời gọi bị từ chối bên trong (bulkhead hết slot) chưa tới downstream nên không được tính là thành công hay lỗi.
+ */
+public class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> recordFailure;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int index;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls, Predicate<Throwable> recordFailure) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, recordFailure,
+                System::nanoTime);
+    }
+
+    /**
+     * Như constructor trên nhưng với đồng hồ (nano) tuỳ chọn, để test chuyển OPEN → HALF_OPEN không cần sleep.
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls, Predicate<Throwable> recordFailure,
+                          LongSupplier nanoClock) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.recordFailure = recordFailure;
+        this.nanoClock = nanoClock;
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return currentState();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException nếu mạch đang mở
+     */
+    public <T> T call(Supplier<T> action) {
+        acquirePermission();
+        boolean failed = false;
+        boolean rejected = false;
+        try {
+            return action.get();
+        } catch (RejectedExecutionException e) {
+            rejected = true;
+            throw e;
+        } catch (RuntimeException e) {
+            failed = recordFailure.test(e);
+            throw e;
+        } finally {
+            if (rejected) {
+                releasePermission();
+            } else {
+                onComplete(failed);
+            }
+        }
+    }
+
+    private void acquirePermission() {
+        lock.lock();
+        try {
+            State current = currentState();
+            if (current == State.OPEN
+                    || (current == State.HALF_OPEN && halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls)) {
+                throw new RejectedExecutionException(name + " circuit is open");
+            }
+            if (current == State.HALF_OPEN) {
+                halfOpenInFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Trả lại lượt thử HALF_OPEN mà không ghi kết quả
+    private void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onComplete(boolean failed) {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (failed) {
+                    open();
+                } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                    close();
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+
+            if (recorded == windowSize && outcomes[index]) {
+                failures--;
+            }
+            outcomes[index] = failed;
+            if (failed) {
+                failures++;
+            }
+            index = (index + 1) % windowSize;
+            recorded = Math.min(recorded + 1, windowSize);
+
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ lock
+    private State currentState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSucceeded = 0;
+        }
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
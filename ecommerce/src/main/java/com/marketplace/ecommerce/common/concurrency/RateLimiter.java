@@ -0,0 +1,33 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giãn đều các lời gọi để không vượt {@code permitsPerSecond}. Mỗi caller được cấp một mốc thời gian
+ * riêng rồi tự ngủ tới mốc đó (ngoài lock), nên chạy tốt với nhiều virtual thread.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextFreeNanos = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = (long) (1_000_000_000L / Math.max(0.001, permitsPerSecond));
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeNanos);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+}
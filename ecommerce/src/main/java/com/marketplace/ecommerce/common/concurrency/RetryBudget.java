@@ -0,0 +1,54 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giới hạn tổng số retry theo tỉ lệ với số request thật (token bucket): mỗi request nạp {@code ratio} token,
+ * mỗi retry tiêu 1 token, thêm {@code minPerSecond} token/giây để lúc ít traffic vẫn retry được.
+ * Khi downstream lỗi hàng loạt, retry không thể nhân lưu lượng lên quá (1 + ratio) lần.
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxTokens;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public void recordRequest() {
+        lock.lock();
+        try {
+            refill();
+            tokens = Math.min(maxTokens, tokens + ratio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryAcquireRetry() {
+        lock.lock();
+        try {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefill) / 1_000_000_000.0 * minPerSecond);
+        lastRefill = now;
+    }
+}
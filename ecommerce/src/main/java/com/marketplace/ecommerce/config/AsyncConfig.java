@@ -0,0 +1,29 @@
+package com.marketplace.ecommerce.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * {@code @Async} mặc định chạy trên applicationTaskExecutor của Spring Boot, executor này dùng virtual thread
+ * khi bật {@code spring.threads.virtual.enabled}.
+ * Riêng SMTP: Jakarta Mail dùng synchronized ở nhiều chỗ, chạy trên virtual thread sẽ pin carrier thread
+ * trong suốt lúc chờ mạng, nên gửi mail luôn chạy trên pool platform thread nhỏ này.
+ * Có thể kiểm tra pinning bằng JVM option {@code -Djdk.tracePinnedThreads=short}.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mail-");
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(500);
+        executor.setVirtualThreads(false);
+        return executor;
+    }
+}
@@ -0,0 +1,46 @@
+package com.marketplace.ecommerce.config;
+
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Mỗi downstream blocking có một bulkhead riêng. Khi bật virtual thread, số request đồng thời gần như
+ * không giới hạn, nên giới hạn phải nằm ở từng downstream thay vì ở thread pool của Tomcat.
+ * Postgres đã được giới hạn bởi pool Hikari (spring.datasource.hikari.maximum-pool-size).
+ */
+@Configuration
+public class DownstreamBulkheadConfig {
+
+    @Bean
+    public Bulkhead vnptBulkhead(@Value("${kyc.vnpt.max-concurrency:8}") int maxConcurrent) {
+        return new Bulkhead("vnpt", maxConcurrent);
+    }
+
+    @Bean
+    public Bulkhead ghnBulkhead(@Value("${ghn.max-concurrency:16}") int maxConcurrent) {
+        return new Bulkhead("ghn", maxConcurrent);
+    }
+
+    @Bean
+    public Bulkhead minioBulkhead(@Value("${minio.max-concurrency:32}") int maxConcurrent) {
+        return new Bulkhead("minio", maxConcurrent);
+    }
+
+    @Bean
+    public MeterBinder bulkheadMetrics(List<Bulkhead> bulkheads) {
+        return registry -> bulkheads.forEach(bulkhead -> {
+            Gauge.builder("downstream.bulkhead.in_use", bulkhead, Bulkhead::getInUse)
+                    .tag("name", bulkhead.getName())
+                    .register(registry);
+            Gauge.builder("downstream.bulkhead.max", bulkhead, Bulkhead::getMaxConcurrent)
+                    .tag("name", bulkhead.getName())
+                    .register(registry);
+        });
+    }
+}
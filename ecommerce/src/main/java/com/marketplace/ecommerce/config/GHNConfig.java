@@ -3,10 +3,24 @@ package com.marketplace.ecommerce.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @Data
 @ConfigurationProperties(prefix = "ghn")
 public class GHNConfig {
     private String url;
     private String token;
     private String shopId;
+    private Timeouts timeouts = new Timeouts();
+
+    @Data
+    public static class Timeouts {
+        private Duration connect = Duration.ofSeconds(2);
+        // Mặc định cho create/cancel/detail
+        private Duration read = Duration.ofSeconds(10);
+        // Báo phí nằm trên đường checkout nên cắt sớm
+        private Duration fee = Duration.ofSeconds(3);
+        // Master data chạy nền, trả về danh sách lớn
+        private Duration masterData = Duration.ofSeconds(20);
+    }
 }
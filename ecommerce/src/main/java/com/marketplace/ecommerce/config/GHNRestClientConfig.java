@@ -5,18 +5,53 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Các RestClient GHN dùng chung một HttpClient (chung pool kết nối keep-alive), chỉ khác read timeout
+ * theo từng nhóm thao tác.
+ */
 @Configuration
 @EnableConfigurationProperties(GHNConfig.class)
 public class GHNRestClientConfig {
+
+    @Bean
+    public HttpClient ghnHttpClient(GHNConfig cfg) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(cfg.getTimeouts().getConnect())
+                .build();
+    }
+
     @Bean
-    RestClient ghnRestClient(GHNConfig cfg) {
+    public RestClient ghnRestClient(GHNConfig cfg, HttpClient ghnHttpClient) {
+        return build(cfg, ghnHttpClient, cfg.getTimeouts().getRead());
+    }
+
+    @Bean
+    public RestClient ghnFeeRestClient(GHNConfig cfg, HttpClient ghnHttpClient) {
+        return build(cfg, ghnHttpClient, cfg.getTimeouts().getFee());
+    }
+
+    @Bean
+    public RestClient ghnMasterDataRestClient(GHNConfig cfg, HttpClient ghnHttpClient) {
+        return build(cfg, ghnHttpClient, cfg.getTimeouts().getMasterData());
+    }
+
+    private static RestClient build(GHNConfig cfg, HttpClient httpClient, Duration readTimeout) {
+        JdkClientHttpRequestFactory rf = new JdkClientHttpRequestFactory(httpClient);
+        rf.setReadTimeout(readTimeout);
+
         return RestClient.builder()
                 .baseUrl(cfg.getUrl())
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader("Token", cfg.getToken())
                 .defaultHeader("ShopId", String.valueOf(cfg.getShopId()))
+                .requestFactory(rf)
                 .build();
     }
 }
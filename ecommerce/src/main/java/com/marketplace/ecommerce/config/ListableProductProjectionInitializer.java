@@ -0,0 +1,192 @@
+package com.marketplace.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Giữ bảng listable_products đồng bộ với products/product_images/shops/accounts/product_categories
+ * bằng trigger, nên mọi đường ghi (JPA, bulk update JPQL, SQL tay) đều được phản ánh ngay.
+ * Bảng do Hibernate tạo từ entity ListableProduct; ở đây chỉ thêm search_vector, function và trigger.
+ */
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class ListableProductProjectionInitializer implements CommandLineRunner {
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("alter table listable_products add column if not exists search_vector tsvector");
+        jdbcTemplate.execute("""
+                create index if not exists idx_listable_products_search_vector
+                on listable_products using gin (search_vector)
+                """);
+
+        // Upsert thay cho delete + insert: hai refresh đồng thời cùng product (vd. update product và insert
+        // product_image) không còn đụng unique product_id rồi rollback write của user
+        jdbcTemplate.execute("""
+                create or replace function refresh_listable_products(ids uuid[]) returns void
+                language sql as
+                $$
+                delete from listable_products l
+                where l.product_id = any(ids)
+                  and not exists (
+                      select 1
+                      from products p
+                      join shops s on s.id = p.shop_id
+                      join users u on u.id = s.user_id
+                      join accounts a on a.id = u.account_id
+                      where p.id = l.product_id
+                        and p.status = 'PUBLISHED'
+                        and p.deleted = false
+                        and s.status = 'ACTIVE'
+                        and a.is_active = true
+                  );
+                insert into listable_products (product_id, shop_id, shop_name, category_id, category_name,
+                                               name, description, sku, status, base_price, quantity,
+                                               thumbnail_image_id, thumbnail_url, thumbnail_renditions_ready, search_vector,
+                                               created_at, updated_at)
+                select p.id, s.id, s.name, c.id, c.name,
+                       p.name, p.description, p.sku, p.status, p.base_price, p.quantity,
+                       t.id, t.image_url, t.renditions_ready, p.search_vector,
+                       p.created_at, p.updated_at
+                from products p
+                join shops s on s.id = p.shop_id
+                join users u on u.id = s.user_id
+                join accounts a on a.id = u.account_id
+                join product_categories c on c.id = p.category_id
+                left join lateral (
+                    select i.id, i.image_url, i.renditions_ready
+                    from product_images i
+                    where i.product_id = p.id
+                    order by i.is_thumbnail desc, i.display_order nulls last, i.created_at nulls last
+                    limit 1
+                ) t on true
+                where p.id = any(ids)
+                  and p.status = 'PUBLISHED'
+                  and p.deleted = false
+                  and s.status = 'ACTIVE'
+                  and a.is_active = true
+                on conflict (product_id) do update set
+                    shop_id = excluded.shop_id,
+                    shop_name = excluded.shop_name,
+                    category_id = excluded.category_id,
+                    category_name = excluded.category_name,
+                    name = excluded.name,
+                    description = excluded.description,
+                    sku = excluded.sku,
+                    status = excluded.status,
+                    base_price = excluded.base_price,
+                    quantity = excluded.quantity,
+                    thumbnail_image_id = excluded.thumbnail_image_id,
+                    thumbnail_url = excluded.thumbnail_url,
+                    thumbnail_renditions_ready = excluded.thumbnail_renditions_ready,
+                    search_vector = excluded.search_vector,
+                    created_at = excluded.created_at,
+                    updated_at = excluded.updated_at;
+                $$
+                """);
+
+        createTrigger("products", "after insert or update or delete", """
+                if tg_op = 'DELETE' then
+                    perform refresh_listable_products(array[old.id]);
+                else
+                    perform refresh_listable_products(array[new.id]);
+                end if;
+                """);
+
+        createTrigger("product_images", "after insert or update or delete", """
+                if tg_op in ('UPDATE', 'DELETE') then
+                    perform refresh_listable_products(array[old.product_id]);
+                end if;
+                if tg_op in ('INSERT', 'UPDATE') then
+                    perform refresh_listable_products(array[new.product_id]);
+                end if;
+                """);
+
+        // Hibernate ghi lại mọi cột khi save, nên "update of" luôn khớp: chỉ refresh khi giá trị thật sự đổi
+        createTrigger("shops", "after update of status, name, user_id",
+                "old.status is distinct from new.status or old.name is distinct from new.name"
+                        + " or old.user_id is distinct from new.user_id", """
+                perform refresh_listable_products(array(select p.id from products p where p.shop_id = new.id));
+                """);
+
+        createTrigger("accounts", "after update of is_active",
+                "old.is_active is distinct from new.is_active", """
+                perform refresh_listable_products(array(
+                    select p.id
+                    from products p
+                    join shops s on s.id = p.shop_id
+                    join users u on u.id = s.user_id
+                    where u.account_id = new.id
+                ));
+                """);
+
+        createTrigger("product_categories", "after update of name",
+                "old.name is distinct from new.name", """
+                update listable_products set category_name = new.name where category_id = new.id;
+                """);
+
+        rebuildIfEmpty();
+    }
+
+    private void createTrigger(String table, String timing, String body) {
+        createTrigger(table, timing, null, body);
+    }
+
+    private void createTrigger(String table, String timing, String when, String body) {
+        String function = "listable_products_on_" + table;
+        jdbcTemplate.execute("create or replace function " + function + "() returns trigger language plpgsql as $$\n"
+                + "begin\n" + body + "return null;\nend\n$$");
+        jdbcTemplate.execute("drop trigger if exists trg_" + function + " on " + table);
+        jdbcTemplate.execute("create trigger trg_" + function + " " + timing + " on " + table
+                + " for each row" + (when != null ? " when (" + when + ")" : "")
+                + " execute function " + function + "()");
+    }
+
+    private void rebuildIfEmpty() {
+        Boolean empty = jdbcTemplate.queryForObject(
+                "select not exists (select 1 from listable_products)", Boolean.class);
+        if (!Boolean.TRUE.equals(empty)) {
+            return;
+        }
+
+        int total = 0;
+        UUID lastId = null;
+        while (true) {
+            List<UUID> ids = (lastId == null)
+                    ? jdbcTemplate.queryForList(
+                            "select id from products order by id limit ?", UUID.class, REBUILD_BATCH_SIZE)
+                    : jdbcTemplate.queryForList(
+                            "select id from products where id > ? order by id limit ?", UUID.class, lastId, REBUILD_BATCH_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try (PreparedStatement ps = con.prepareStatement("select refresh_listable_products(?)")) {
+                    ps.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+                    ps.execute();
+                }
+                return null;
+            });
+            total += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        if (total > 0) {
+            log.info("Rebuilt listable_products from {} products", total);
+        }
+    }
+}
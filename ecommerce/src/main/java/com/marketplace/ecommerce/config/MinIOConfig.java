@@ -22,6 +22,35 @@ public class MinIOConfig {
     @Value("${minio.bucket-name}")
     private String bucketName;
 
+    /**
+     * Public URL dạng {@code http://minio-url/bucket-name/object-name}.
+     */
+    public String publicUrl(String objectName) {
+        return bucketUrl() + "/" + objectName;
+    }
+
+    /**
+     * URL của bucket, đích của form upload theo presigned POST policy.
+     */
+    public String bucketUrl() {
+        String baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        return baseUrl + "/" + bucketName;
+    }
+
+    /**
+     * Ngược lại với {@link #publicUrl}: object name nếu URL trỏ vào bucket của hệ thống, ngược lại {@code null}.
+     */
+    public String objectKeyOf(String publicUrl) {
+        if (publicUrl == null) {
+            return null;
+        }
+        String prefix = publicUrl("");
+        if (!publicUrl.startsWith(prefix) || publicUrl.length() == prefix.length()) {
+            return null;
+        }
+        return publicUrl.substring(prefix.length());
+    }
+
     @Bean
     public MinioClient minioClient() {
         return MinioClient.builder()
@@ -0,0 +1,83 @@
+package com.marketplace.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tạo cột {@code search_vector} cho bảng products và trigger giữ cho nó đồng bộ với name/sku/description;
+ * cột này là nguồn cho {@code listable_products.search_vector} (GIN index nằm ở bảng projection). Hibernate (ddl-auto=update) không quản lý các object này nên
+ * toàn bộ DDL ở đây đều idempotent và chạy mỗi lần khởi động.
+ */
+@Slf4j
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class ProductSearchIndexInitializer implements CommandLineRunner {
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("create extension if not exists unaccent");
+
+        // unaccent() chỉ là STABLE, bọc lại thành IMMUTABLE để dùng được trong index
+        jdbcTemplate.execute("""
+                create or replace function product_search_fold(text) returns text
+                language sql immutable parallel safe as
+                $$ select lower(translate(public.unaccent('public.unaccent', coalesce($1, '')), 'đĐ', 'dd')) $$
+                """);
+
+        jdbcTemplate.execute("alter table products add column if not exists search_vector tsvector");
+
+        jdbcTemplate.execute("""
+                create or replace function products_search_vector_refresh() returns trigger
+                language plpgsql as
+                $$
+                begin
+                    new.search_vector :=
+                            setweight(to_tsvector('simple', product_search_fold(new.name)), 'A') ||
+                            setweight(to_tsvector('simple', product_search_fold(new.sku)), 'A') ||
+                            setweight(to_tsvector('simple', product_search_fold(new.description)), 'C');
+                    return new;
+                end
+                $$
+                """);
+
+        jdbcTemplate.execute("drop trigger if exists trg_products_search_vector on products");
+        jdbcTemplate.execute("""
+                create trigger trg_products_search_vector
+                before insert or update of name, sku, description on products
+                for each row execute function products_search_vector_refresh()
+                """);
+
+        // Listing/search đọc từ listable_products nên products chỉ giữ search_vector làm nguồn cho projection;
+        // GIN index và các index keyset cũ trên products chỉ còn làm chậm write
+        jdbcTemplate.execute("drop index if exists idx_products_search_vector");
+        jdbcTemplate.execute("drop index if exists idx_products_created_at_id");
+        jdbcTemplate.execute("drop index if exists idx_products_base_price_id");
+        jdbcTemplate.execute("drop index if exists idx_products_name_id");
+
+        backfill();
+    }
+
+    private void backfill() {
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update("""
+                    update products set name = name
+                    where id in (select id from products where search_vector is null limit ?)
+                    """, BACKFILL_BATCH_SIZE);
+            total += updated;
+        } while (updated == BACKFILL_BATCH_SIZE);
+
+        if (total > 0) {
+            log.info("Backfilled search_vector for {} products", total);
+        }
+    }
+}
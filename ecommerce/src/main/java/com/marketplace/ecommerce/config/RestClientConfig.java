@@ -1,5 +1,6 @@
 package com.marketplace.ecommerce.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
@@ -11,14 +12,17 @@ import java.time.Duration;
 @Configuration
 public class RestClientConfig {
     @Bean
-    public RestClient vnptRestClient(EKycConfig cfg, EKycHelper helper) {
+    public RestClient vnptRestClient(EKycConfig cfg,
+                                     EKycHelper helper,
+                                     @Value("${vnpt.ekyc.connect-timeout:10s}") Duration connectTimeout,
+                                     @Value("${vnpt.ekyc.read-timeout:30s}") Duration readTimeout) {
 
         HttpClient httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
+                .connectTimeout(connectTimeout)
                 .build();
 
         JdkClientHttpRequestFactory rf = new JdkClientHttpRequestFactory(httpClient);
-        rf.setReadTimeout(Duration.ofSeconds(30));
+        rf.setReadTimeout(readTimeout);
 
         return RestClient.builder()
                 .baseUrl(cfg.getBaseUrl())
@@ -4,54 +4,93 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 
+/**
+ * Lưu file KYC theo SHA-256 của nội dung: ghi ra file tạm qua DigestOutputStream (một lượt đọc),
+ * rồi rename atomic về {@code ab/cd/<hash>.ext} để một thư mục không phải chứa hàng triệu file.
+ */
 @Component
 public class SimpleLocalFileStore {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     private final Path baseDir;
+    private final Path tempDir;
 
     public SimpleLocalFileStore(@Value("${kyc.upload.dir:uploads/kyc}") String dir) {
         this.baseDir = Paths.get(dir);
+        // Cùng filesystem với thư mục đích nên ATOMIC_MOVE luôn dùng được
+        this.tempDir = baseDir.resolve(".tmp");
     }
 
     public String saveAndGetSha256(MultipartFile file) {
+        String name = save(file).getFileName().toString();
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    /**
+     * Lưu file và trả về đường dẫn đích {@code ab/cd/<hash>.ext}.
+     */
+    public Path save(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("file is empty");
+        }
+
+        Path temp = null;
         try {
-            if (file == null || file.isEmpty()) {
-                throw new IllegalArgumentException("file is empty");
-            }
-            Files.createDirectories(baseDir);
+            Files.createDirectories(tempDir);
+            temp = Files.createTempFile(tempDir, "upload-", ".part");
 
-            // Compute SHA-256
             MessageDigest md = MessageDigest.getInstance("SHA-256");
-            try (InputStream in = file.getInputStream()) {
-                byte[] buf = new byte[8192];
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), md)) {
+                byte[] buf = new byte[COPY_BUFFER_SIZE];
                 int n;
-                while ((n = in.read(buf)) > 0) {
-                    md.update(buf, 0, n);
+                while ((n = in.read(buf)) != -1) {
+                    out.write(buf, 0, n);
                 }
             }
-            String hash = toHex(md.digest());
-
-            // Save file to disk (name by hash)
-            String ext = safeExt(file.getOriginalFilename());
-            Path target = baseDir.resolve(hash + ext);
-            Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexFormat.of().formatHex(md.digest());
 
-            return hash;
+            Path target = resolve(hash, safeExt(file.getOriginalFilename()));
+            if (Files.exists(target)) {
+                // Cùng nội dung đã có sẵn
+                return target;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Request khác vừa ghi cùng hash
+            }
+            return target;
         } catch (Exception e) {
             throw new RuntimeException("Cannot store KYC file: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(temp);
         }
     }
 
-    private static String toHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) sb.append(String.format("%02x", b));
-        return sb.toString();
+    public Path resolve(String hash, String ext) {
+        return baseDir.resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(hash + ext);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // chỉ là file tạm, bỏ qua
+        }
     }
 
     private static String safeExt(String name) {
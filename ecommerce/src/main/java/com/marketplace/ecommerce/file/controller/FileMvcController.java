@@ -2,21 +2,31 @@ package com.marketplace.ecommerce.file.controller;
 
 import com.marketplace.ecommerce.file.response.FileUploadResponse;
 import com.marketplace.ecommerce.file.service.FileService;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
 @Controller
 @RequestMapping("/files")
 @RequiredArgsConstructor
 public class FileMvcController {
 
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+    // Tên object là UUID nên nội dung không đổi, vẫn revalidate được bằng ETag
+    private static final Duration CACHE_MAX_AGE = Duration.ofDays(7);
+
     private final FileService fileService;
 
     @PostMapping("/upload")
@@ -61,33 +71,181 @@ public class FileMvcController {
         }
     }
 
-    @GetMapping("/view/{fileName}")
-    public ResponseEntity<InputStream> viewFile(@PathVariable String fileName) {
+    @GetMapping("/view/{*fileName}")
+    public ResponseEntity<StreamingResponseBody> viewFile(@PathVariable String fileName,
+                                                          @RequestHeader HttpHeaders requestHeaders) {
+        return serve(stripLeadingSlash(fileName), requestHeaders, false);
+    }
+
+    @GetMapping("/download/{*fileName}")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable String fileName,
+                                                              @RequestHeader HttpHeaders requestHeaders) {
+        return serve(stripLeadingSlash(fileName), requestHeaders, true);
+    }
+
+    private ResponseEntity<StreamingResponseBody> serve(String fileName, HttpHeaders requestHeaders, boolean attachment) {
+        FileMetadata metadata = fileService.statFile(fileName).orElse(null);
+        if (metadata == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.maxAge(CACHE_MAX_AGE).cachePublic());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = quoteEtag(metadata.etag());
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (metadata.lastModified() != null) {
+            headers.setLastModified(metadata.lastModified());
+        }
+
+        if (isNotModified(requestHeaders, etag, metadata.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(resolveContentType(metadata));
+        if (attachment) {
+            headers.setContentDisposition(ContentDisposition.attachment()
+                    .filename(fileName.substring(fileName.lastIndexOf('/') + 1), StandardCharsets.UTF_8)
+                    .build());
+        }
+
+        long size = metadata.size();
+        HttpRange range = resolveRange(requestHeaders, etag, metadata.lastModified());
+        if (range == null) {
+            headers.setContentLength(size);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(out -> copy(fileService.downloadFile(fileName), out));
+        }
+
+        long start;
+        long end;
         try {
-            InputStream inputStream = fileService.downloadFile(fileName);
-            if (inputStream != null) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(inputStream);
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            start = -1;
+            end = -1;
+        }
+        if (size == 0 || start < 0 || start > end) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        headers.setContentLength(length);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(out -> copy(fileService.downloadFile(fileName, offset, length), out));
+    }
+
+    /**
+     * If-None-Match ưu tiên hơn If-Modified-Since (RFC 9110 13.2.2).
+     */
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            if (etag == null) {
+                return false;
             }
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            return ifNoneMatch.stream().anyMatch(tag -> "*".equals(tag) || weakMatch(tag, etag));
         }
+        long ifModifiedSince = readDate(requestHeaders, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified != null
+                && lastModified.getEpochSecond() <= ifModifiedSince / 1000;
     }
 
-    @GetMapping("/download/{fileName}")
-    public ResponseEntity<InputStream> downloadFile(@PathVariable String fileName) {
+    /**
+     * Chỉ hỗ trợ một range; nhiều range hoặc If-Range không khớp (kể cả validator weak) thì trả nguyên file (200).
+     */
+    private HttpRange resolveRange(HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRangeMatches(ifRange.trim(), requestHeaders, etag, lastModified)) {
+            return null;
+        }
+
         try {
-            InputStream inputStream = fileService.downloadFile(fileName);
-            if (inputStream != null) {
-                return ResponseEntity.ok()
-                        .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                        .body(inputStream);
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Đóng stream MinIO cả khi client ngắt kết nối giữa chừng (write ném IOException)
+    private static void copy(InputStream source, OutputStream out) throws IOException {
+        try (InputStream in = source) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
             }
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            out.flush();
+        }
+    }
+
+    private static MediaType resolveContentType(FileMetadata metadata) {
+        if (metadata.contentType() != null && !metadata.contentType().isBlank()
+                && !MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(metadata.contentType())) {
+            try {
+                return MediaType.parseMediaType(metadata.contentType());
+            } catch (InvalidMediaTypeException ignored) {
+                // rơi xuống đoán theo đuôi file
+            }
+        }
+        return MediaTypeFactory.getMediaType(metadata.fileName()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private static long readDate(HttpHeaders headers, String name) {
+        try {
+            return headers.getFirstDate(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * If-Range chỉ dùng so sánh strong (RFC 9110 13.1.5): ETag weak ở bất kỳ phía nào không bao giờ khớp,
+     * ngày phải trùng đúng Last-Modified và Last-Modified phải cũ hơn thời điểm trả lời ít nhất 1 giây.
+     */
+    private static boolean ifRangeMatches(String ifRange, HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return etag != null && !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        long date = readDate(requestHeaders, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified != null
+                && lastModified.getEpochSecond() == date / 1000
+                && lastModified.plusSeconds(1).isBefore(Instant.now());
+    }
+
+    private static boolean weakMatch(String tag, String etag) {
+        return stripWeak(tag).equals(stripWeak(etag));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String quoteEtag(String etag) {
+        if (etag == null || etag.isBlank()) {
+            return null;
         }
+        return etag.startsWith("\"") || etag.startsWith("W/") ? etag : "\"" + etag + "\"";
+    }
+
+    private static String stripLeadingSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
     }
 }
@@ -0,0 +1,36 @@
+package com.marketplace.ecommerce.file.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Object lưu theo nội dung (SHA-256). Nhiều ảnh product/review trùng nội dung dùng chung một object;
+ * refCount là số row product/review đang trỏ tới, về 0 thì sweeper xoá object sau một khoảng grace.
+ */
+@Entity
+@Table(name = "file_blobs", indexes = {
+        @Index(name = "idx_file_blobs_object_key", columnList = "object_key", unique = true),
+        @Index(name = "idx_file_blobs_ref_count_updated", columnList = "ref_count, updated_at")
+})
+@Getter
+@NoArgsConstructor
+public class FileBlob extends BaseEntity {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "object_key", nullable = false, length = 255)
+    private String objectKey;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+}
@@ -0,0 +1,61 @@
+package com.marketplace.ecommerce.file.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import com.marketplace.ecommerce.file.valueObjects.PendingUploadStatus;
+import com.marketplace.ecommerce.file.valueObjects.UploadPurpose;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Object key staging đã cấp presigned URL cho client. Khi confirm, object được copy sang {@code finalKey}
+ * do server chọn và chỉ key đó được gắn vào product/review; bản ghi PENDING quá hạn sẽ bị dọn cùng object
+ * trên MinIO.
+ */
+@Entity
+@Table(name = "pending_uploads", indexes = {
+        @Index(name = "idx_pending_uploads_status_expires", columnList = "status, expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingUpload extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "account_id", columnDefinition = "uuid", nullable = false)
+    private UUID accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "purpose", nullable = false, length = 50)
+    private UploadPurpose purpose;
+
+    @Column(name = "object_key", nullable = false, unique = true, length = 255)
+    private String objectKey;
+
+    @Column(name = "final_key", unique = true, length = 255)
+    private String finalKey;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "max_size", nullable = false)
+    private Long maxSize;
+
+    @Column(name = "size")
+    private Long size;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private PendingUploadStatus status;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,63 @@
+package com.marketplace.ecommerce.file.repository;
+
+import com.marketplace.ecommerce.file.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    @Modifying
+    @Query(value = """
+            insert into file_blobs (hash, object_key, size, content_type, ref_count, created_at, updated_at)
+            values (:hash, :objectKey, :size, :contentType, 0, now(), now())
+            on conflict (hash) do update
+            set updated_at = now()
+            """, nativeQuery = true)
+    int register(@Param("hash") String hash,
+                 @Param("objectKey") String objectKey,
+                 @Param("size") long size,
+                 @Param("contentType") String contentType);
+
+    @Query("select b.objectKey from FileBlob b where b.hash = :hash")
+    Optional<String> findObjectKeyByHash(@Param("hash") String hash);
+
+    @Modifying
+    @Query(value = """
+            update file_blobs
+            set ref_count = ref_count + 1, updated_at = now()
+            where object_key = :objectKey
+            """, nativeQuery = true)
+    int acquire(@Param("objectKey") String objectKey);
+
+    // FOR SHARE xung đột với FOR UPDATE SKIP LOCKED của sweeper: blob đã khoá không bị dọn tới hết transaction
+    @Query(value = """
+            select object_key from file_blobs
+            where object_key in (:objectKeys)
+            for share
+            """, nativeQuery = true)
+    List<String> lockExisting(@Param("objectKeys") Collection<String> objectKeys);
+
+    @Modifying
+    @Query(value = """
+            update file_blobs
+            set ref_count = greatest(ref_count - 1, 0), updated_at = now()
+            where object_key = :objectKey
+            """, nativeQuery = true)
+    int release(@Param("objectKey") String objectKey);
+
+    @Query(value = """
+            select * from file_blobs
+            where ref_count = 0 and updated_at < :before
+            order by updated_at
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<FileBlob> lockUnreferenced(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -0,0 +1,25 @@
+package com.marketplace.ecommerce.file.repository;
+
+import com.marketplace.ecommerce.file.entity.PendingUpload;
+import com.marketplace.ecommerce.file.valueObjects.PendingUploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PendingUploadRepository extends JpaRepository<PendingUpload, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from PendingUpload u where u.id = :id and u.accountId = :accountId")
+    Optional<PendingUpload> findForUpdate(@Param("id") UUID id, @Param("accountId") UUID accountId);
+
+    boolean existsByAccountIdAndFinalKeyAndStatus(UUID accountId, String finalKey, PendingUploadStatus status);
+
+    List<PendingUpload> findTop500ByStatusAndExpiresAtBeforeOrderByExpiresAt(PendingUploadStatus status, Instant before);
+}
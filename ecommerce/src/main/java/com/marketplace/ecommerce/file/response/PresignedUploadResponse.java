@@ -0,0 +1,25 @@
+package com.marketplace.ecommerce.file.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponse {
+    private UUID uploadId;
+    private String objectKey;
+    private String uploadUrl;
+    private String method;
+    // Các field của form multipart gửi kèm file (policy, chữ ký, key, Content-Type)
+    private Map<String, String> fields;
+    private Long maxSize;
+    private Instant expiresAt;
+}
@@ -0,0 +1,42 @@
+package com.marketplace.ecommerce.file.service;
+
+import com.marketplace.ecommerce.file.valueObjects.StoredBlob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Tham chiếu của blob được đếm theo từng row product/review đang trỏ tới URL, không theo lượt upload.
+ * Blob vừa upload mà không được gắn vào row nào sẽ bị sweeper dọn sau grace period.
+ */
+public interface BlobStore {
+
+    /**
+     * Lưu file theo SHA-256 của nội dung (băm trong cùng lượt stream lên MinIO). Chưa giữ tham chiếu nào.
+     */
+    StoredBlob store(MultipartFile file);
+
+    /**
+     * Giữ một tham chiếu cho row vừa gắn URL; phải gọi trong transaction gắn row để rollback trả luôn tham chiếu.
+     * Trả về {@code false} nếu URL không thuộc blob store (ảnh ngoài hoặc object cũ theo UUID).
+     */
+    boolean acquire(String url);
+
+    /**
+     * Trả về các URL thuộc blob store mà blob đã bị sweeper dọn, để caller loại riêng từng row thay vì để
+     * {@link #acquire} ném lỗi giữa batch. Blob còn tồn tại bị khoá tới hết transaction nên acquire sau đó không hết hạn.
+     */
+    Set<String> lockOrFindExpired(Collection<String> urls);
+
+    /**
+     * Trả tham chiếu của row bị gỡ khỏi URL, trong transaction gỡ row.
+     * Trả về {@code false} nếu URL không thuộc blob store.
+     */
+    boolean release(String url);
+
+    /**
+     * URL có trỏ vào một blob của blob store không.
+     */
+    boolean contains(String url);
+}
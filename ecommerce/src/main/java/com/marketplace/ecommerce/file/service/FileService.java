@@ -1,8 +1,10 @@
 package com.marketplace.ecommerce.file.service;
 
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.util.Optional;
 
 public interface FileService {
     
@@ -11,6 +13,10 @@ public interface FileService {
     String uploadFile(MultipartFile file);
     
     InputStream downloadFile(String fileName);
+
+    InputStream downloadFile(String fileName, long offset, long length);
+
+    Optional<FileMetadata> statFile(String fileName);
     
     void deleteFile(String fileName);
     
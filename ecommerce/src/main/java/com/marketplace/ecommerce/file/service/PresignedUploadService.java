@@ -0,0 +1,24 @@
+package com.marketplace.ecommerce.file.service;
+
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
+import com.marketplace.ecommerce.file.valueObjects.UploadPurpose;
+
+import java.util.UUID;
+
+public interface PresignedUploadService {
+
+    PresignedUploadResponse issue(UUID accountId, UploadPurpose purpose, PresignedUploadRequest request);
+
+    /**
+     * Kiểm tra object client đã upload lên (statObject) và đánh dấu đã dùng. Object sai kích thước
+     * hoặc content type bị xoá luôn.
+     */
+    FileMetadata confirm(UUID accountId, UUID uploadId, UploadPurpose purpose);
+
+    /**
+     * Object key cuối cùng có phải do chính account này upload và confirm không.
+     */
+    boolean isConfirmedBy(UUID accountId, String objectKey);
+}
@@ -0,0 +1,270 @@
+package com.marketplace.ecommerce.file.service.impl;
+
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
+import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.config.MinIOConfig;
+import com.marketplace.ecommerce.file.entity.FileBlob;
+import com.marketplace.ecommerce.file.repository.FileBlobRepository;
+import com.marketplace.ecommerce.file.service.BlobStore;
+import com.marketplace.ecommerce.file.service.FileService;
+import com.marketplace.ecommerce.file.valueObjects.BlobDeletedEvent;
+import com.marketplace.ecommerce.file.valueObjects.StoredBlob;
+import io.minio.*;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Blob store theo nội dung trên MinIO. File được stream lên một key tạm và băm SHA-256 trong cùng lượt
+ * đọc; sau đó MinIO tự copy sang {@code blobs/ab/cd/<hash>.ext} nếu nội dung chưa tồn tại, nên request
+ * không phải đọc lại file lần hai.
+ */
+@Slf4j
+@Service
+public class BlobStoreImpl implements BlobStore {
+    private static final String BLOB_PREFIX = "blobs/";
+    private static final String TEMP_PREFIX = BLOB_PREFIX + "tmp/";
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final Duration MINIO_MAX_WAIT = Duration.ofSeconds(5);
+
+    private final MinioClient minioClient;
+    private final MinIOConfig minIOConfig;
+    private final FileService fileService;
+    private final FileBlobRepository fileBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Bulkhead minioBulkhead;
+    private final Duration gracePeriod;
+
+    public BlobStoreImpl(MinioClient minioClient,
+                         MinIOConfig minIOConfig,
+                         FileService fileService,
+                         FileBlobRepository fileBlobRepository,
+                         TransactionTemplate transactionTemplate,
+                         ApplicationEventPublisher eventPublisher,
+                         Bulkhead minioBulkhead,
+                         @Value("${file.blob.sweep.grace-period:1h}") Duration gracePeriod) {
+        this.minioClient = minioClient;
+        this.minIOConfig = minIOConfig;
+        this.fileService = fileService;
+        this.fileBlobRepository = fileBlobRepository;
+        // Row blob phải commit độc lập với transaction của caller: nếu review/product rollback thì object đã copy
+        // vẫn còn row (ref_count 0) để sweeper dọn
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.minioBulkhead = minioBulkhead;
+        this.gracePeriod = gracePeriod;
+    }
+
+    @Override
+    public StoredBlob store(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new CustomException("File is empty");
+        }
+
+        String tempKey = TEMP_PREFIX + UUID.randomUUID();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                minioBulkhead.callChecked(() -> minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(minIOConfig.getBucketName())
+                        .object(tempKey)
+                        .stream(in, file.getSize(), -1)
+                        .contentType(file.getContentType())
+                        .build()), MINIO_MAX_WAIT);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String candidateKey = BLOB_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/"
+                    + hash + extension(file.getOriginalFilename());
+
+            // Giữ row lock của upsert trong lúc copy để sweeper (skip locked) không xoá object giữa chừng;
+            // updated_at mới cho client một grace period để gắn URL vào product/review
+            return transactionTemplate.execute(status -> {
+                fileBlobRepository.register(hash, candidateKey, file.getSize(), file.getContentType());
+                String objectKey = fileBlobRepository.findObjectKeyByHash(hash).orElse(candidateKey);
+
+                boolean exists = fileService.fileExists(objectKey);
+                if (!exists) {
+                    copyObject(tempKey, objectKey);
+                }
+                return new StoredBlob(hash, objectKey, file.getSize(), file.getContentType(), exists);
+            });
+        } catch (CustomException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error storing blob: {}", e.getMessage());
+            throw new CustomException("Failed to store file: " + e.getMessage());
+        } finally {
+            removeQuietly(tempKey);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean acquire(String url) {
+        String objectKey = blobKeyOf(url);
+        if (objectKey == null) {
+            return false;
+        }
+        // Row blob đã bị sweeper xoá (upload quá grace period mà chưa gắn): không để URL trỏ vào object đã mất
+        if (fileBlobRepository.acquire(objectKey) == 0) {
+            throw new CustomException("Uploaded image has expired, please upload it again");
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<String> lockOrFindExpired(Collection<String> urls) {
+        Map<String, String> keys = new HashMap<>();
+        for (String url : urls) {
+            String objectKey = blobKeyOf(url);
+            if (objectKey != null) {
+                keys.put(objectKey, url);
+            }
+        }
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        fileBlobRepository.lockExisting(keys.keySet()).forEach(keys::remove);
+        return new HashSet<>(keys.values());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(String url) {
+        String objectKey = blobKeyOf(url);
+        return objectKey != null && fileBlobRepository.release(objectKey) > 0;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return blobKeyOf(url) != null;
+    }
+
+    private String blobKeyOf(String url) {
+        String objectKey = minIOConfig.objectKeyOf(url);
+        if (objectKey == null || !objectKey.startsWith(BLOB_PREFIX) || objectKey.startsWith(TEMP_PREFIX)) {
+            return null;
+        }
+        return objectKey;
+    }
+
+    @Scheduled(fixedDelayString = "${file.blob.sweep.interval:PT15M}")
+    public void sweepUnreferencedBlobs() {
+        Instant threshold = Instant.now().minus(gracePeriod);
+
+        int total = 0;
+        List<String> deleted;
+        do {
+            // Xoá object trong transaction đang giữ lock, rồi mới xoá row
+            deleted = transactionTemplate.execute(status -> {
+                List<FileBlob> blobs = fileBlobRepository.lockUnreferenced(threshold, SWEEP_BATCH_SIZE);
+                List<FileBlob> removed = new ArrayList<>(blobs.size());
+                for (FileBlob blob : blobs) {
+                    try {
+                        fileService.deleteFile(blob.getObjectKey());
+                        removed.add(blob);
+                    } catch (Exception e) {
+                        log.warn("Failed to delete blob {}: {}", blob.getObjectKey(), e.getMessage());
+                    }
+                }
+                fileBlobRepository.deleteAllInBatch(removed);
+                return removed.stream().map(FileBlob::getObjectKey).toList();
+            });
+            deleted.forEach(key -> eventPublisher.publishEvent(new BlobDeletedEvent(key)));
+            total += deleted.size();
+        } while (deleted.size() == SWEEP_BATCH_SIZE);
+
+        total += sweepStaleTempObjects(threshold);
+        if (total > 0) {
+            log.info("Swept {} unreferenced blobs", total);
+        }
+    }
+
+    // Object tạm còn sót lại khi app chết giữa lúc upload
+    private int sweepStaleTempObjects(Instant threshold) {
+        int removed = 0;
+        try {
+            Iterable<Result<Item>> items = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .prefix(TEMP_PREFIX)
+                    .recursive(true)
+                    .build());
+            for (Result<Item> result : items) {
+                Item item = result.get();
+                if (item.lastModified() != null && item.lastModified().toInstant().isBefore(threshold)) {
+                    removeQuietly(item.objectName());
+                    removed++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep temporary blobs: {}", e.getMessage());
+        }
+        return removed;
+    }
+
+    private void copyObject(String sourceKey, String targetKey) {
+        try {
+            minioBulkhead.callChecked(() -> minioClient.copyObject(CopyObjectArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .object(targetKey)
+                    .source(CopySource.builder()
+                            .bucket(minIOConfig.getBucketName())
+                            .object(sourceKey)
+                            .build())
+                    .build()), MINIO_MAX_WAIT);
+        } catch (Exception e) {
+            throw new CustomException("Failed to store file: " + e.getMessage());
+        }
+    }
+
+    private void removeQuietly(String objectKey) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .object(objectKey)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Failed to remove object {}: {}", objectKey, e.getMessage());
+        }
+    }
+
+    private static String extension(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int idx = filename.lastIndexOf('.');
+        if (idx < 0) {
+            return "";
+        }
+        String ext = filename.substring(idx).toLowerCase(Locale.ROOT);
+        return ext.matches("\\.[a-z0-9]{1,5}") ? ext : "";
+    }
+}
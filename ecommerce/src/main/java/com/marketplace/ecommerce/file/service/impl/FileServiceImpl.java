@@ -1,23 +1,33 @@
 package com.marketplace.ecommerce.file.service.impl;
 
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
 import com.marketplace.ecommerce.config.MinIOConfig;
 import com.marketplace.ecommerce.file.service.FileService;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileServiceImpl implements FileService {
+    private static final Duration MINIO_MAX_WAIT = Duration.ofSeconds(5);
 
     private final MinioClient minioClient;
     private final MinIOConfig minIOConfig;
+    private final Bulkhead minioBulkhead;
 
     @Override
     public String uploadFile(MultipartFile file, String folder) {
@@ -36,14 +46,14 @@ public class FileServiceImpl implements FileService {
             String fileName = folder + "/" + UUID.randomUUID() + extension;
 
             // Upload to MinIO
-            minioClient.putObject(
+            minio(() -> minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(minIOConfig.getBucketName())
                             .object(fileName)
                             .stream(file.getInputStream(), file.getSize(), -1)
                             .contentType(file.getContentType())
                             .build()
-            );
+            ));
 
             log.info("File uploaded successfully: {}", fileName);
             return fileName;
@@ -61,12 +71,12 @@ public class FileServiceImpl implements FileService {
     @Override
     public InputStream downloadFile(String fileName) {
         try {
-            return minioClient.getObject(
+            return minioStream(() -> minioClient.getObject(
                     GetObjectArgs.builder()
                             .bucket(minIOConfig.getBucketName())
                             .object(fileName)
                             .build()
-            );
+            ));
         } catch (Exception e) {
             log.error("Error downloading file: {}", e.getMessage());
             throw new RuntimeException("Failed to download file: " + e.getMessage(), e);
@@ -74,14 +84,62 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    public void deleteFile(String fileName) {
+    public InputStream downloadFile(String fileName, long offset, long length) {
+        try {
+            return minioStream(() -> minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(minIOConfig.getBucketName())
+                            .object(fileName)
+                            .offset(offset)
+                            .length(length)
+                            .build()
+            ));
+        } catch (Exception e) {
+            log.error("Error downloading file range: {}", e.getMessage());
+            throw new RuntimeException("Failed to download file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<FileMetadata> statFile(String fileName) {
         try {
-            minioClient.removeObject(
-                    RemoveObjectArgs.builder()
+            StatObjectResponse stat = minio(() -> minioClient.statObject(
+                    StatObjectArgs.builder()
                             .bucket(minIOConfig.getBucketName())
                             .object(fileName)
                             .build()
-            );
+            ));
+            return Optional.of(new FileMetadata(
+                    fileName,
+                    stat.size(),
+                    stat.contentType(),
+                    stat.etag(),
+                    stat.lastModified() == null ? null : stat.lastModified().toInstant()
+            ));
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code()) || "NoSuchObject".equals(e.errorResponse().code())) {
+                return Optional.empty();
+            }
+            log.error("Error reading file metadata: {}", e.getMessage());
+            throw new RuntimeException("Failed to read file metadata: " + e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("Error reading file metadata: {}", e.getMessage());
+            throw new RuntimeException("Failed to read file metadata: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        try {
+            minio(() -> {
+                minioClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(minIOConfig.getBucketName())
+                                .object(fileName)
+                                .build()
+                );
+                return null;
+            });
             log.info("File deleted successfully: {}", fileName);
         } catch (Exception e) {
             log.error("Error deleting file: {}", e.getMessage());
@@ -95,21 +153,45 @@ public class FileServiceImpl implements FileService {
             return null;
         }
         // Return public URL if bucket is public, otherwise return presigned URL
-        return minIOConfig.getUrl() + "/" + minIOConfig.getBucketName() + "/" + fileName;
+        return minIOConfig.publicUrl(fileName);
     }
 
     @Override
     public boolean fileExists(String fileName) {
         try {
-            minioClient.statObject(
+            minio(() -> minioClient.statObject(
                     StatObjectArgs.builder()
                             .bucket(minIOConfig.getBucketName())
                             .object(fileName)
                             .build()
-            );
+            ));
             return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    private <T> T minio(Callable<T> call) throws Exception {
+        return minioBulkhead.callChecked(call, MINIO_MAX_WAIT);
+    }
+
+    // Stream từ getObject giữ slot cho tới khi caller đóng stream, vì kết nối MinIO còn mở trong lúc đọc
+    private InputStream minioStream(Callable<InputStream> open) throws Exception {
+        Bulkhead.Permit permit = minioBulkhead.acquirePermit(MINIO_MAX_WAIT);
+        try {
+            return new FilterInputStream(open.call()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        permit.close();
+                    }
+                }
+            };
+        } catch (Exception e) {
+            permit.close();
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package com.marketplace.ecommerce.file.service.impl;
+
+import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.config.MinIOConfig;
+import com.marketplace.ecommerce.file.entity.PendingUpload;
+import com.marketplace.ecommerce.file.repository.PendingUploadRepository;
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
+import com.marketplace.ecommerce.file.service.FileService;
+import com.marketplace.ecommerce.file.service.PresignedUploadService;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
+import com.marketplace.ecommerce.file.valueObjects.PendingUploadStatus;
+import com.marketplace.ecommerce.file.valueObjects.UploadPurpose;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.PostPolicy;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class PresignedUploadServiceImpl implements PresignedUploadService {
+    private static final String STAGING_PREFIX = "uploads/staging/";
+
+    private final MinioClient minioClient;
+    private final MinIOConfig minIOConfig;
+    private final FileService fileService;
+    private final PendingUploadRepository pendingUploadRepository;
+    private final Duration urlTtl;
+    private final Duration confirmWindow;
+
+    public PresignedUploadServiceImpl(MinioClient minioClient,
+                                      MinIOConfig minIOConfig,
+                                      FileService fileService,
+                                      PendingUploadRepository pendingUploadRepository,
+                                      @Value("${file.upload.presign.ttl:5m}") Duration urlTtl,
+                                      @Value("${file.upload.presign.confirm-window:1h}") Duration confirmWindow) {
+        this.minioClient = minioClient;
+        this.minIOConfig = minIOConfig;
+        this.fileService = fileService;
+        this.pendingUploadRepository = pendingUploadRepository;
+        this.urlTtl = urlTtl;
+        this.confirmWindow = confirmWindow;
+    }
+
+    @Override
+    @Transactional
+    public PresignedUploadResponse issue(UUID accountId, UploadPurpose purpose, PresignedUploadRequest request) {
+        String contentType = request.getContentType().trim().toLowerCase();
+        if (!purpose.allows(contentType)) {
+            throw new CustomException("File type not allowed. Allowed types: jpg, jpeg, png, webp");
+        }
+        if (request.getSize() > purpose.maxSize()) {
+            throw new CustomException("File size exceeds maximum allowed size of "
+                    + purpose.maxSize() / (1024 * 1024) + "MB");
+        }
+
+        // Client chỉ ghi vào key staging; policy còn hạn sau confirm cũng không chạm được key cuối
+        String objectKey = STAGING_PREFIX + UUID.randomUUID() + purpose.extensionFor(contentType);
+        Instant expiresAt = Instant.now().plus(urlTtl);
+        long maxSize = Math.min(request.getSize(), purpose.maxSize());
+
+        // POST policy để MinIO tự từ chối file sai dung lượng/content type ngay lúc upload
+        Map<String, String> fields;
+        try {
+            PostPolicy policy = new PostPolicy(minIOConfig.getBucketName(), expiresAt.atZone(ZoneOffset.UTC));
+            policy.addEqualsCondition("key", objectKey);
+            policy.addEqualsCondition("Content-Type", contentType);
+            policy.addContentLengthRangeCondition(1L, maxSize);
+            fields = new HashMap<>(minioClient.getPresignedPostFormData(policy));
+            fields.put("key", objectKey);
+            fields.put("Content-Type", contentType);
+        } catch (Exception e) {
+            log.error("Error issuing presigned upload URL: {}", e.getMessage());
+            throw new CustomException("Failed to prepare upload: " + e.getMessage());
+        }
+
+        PendingUpload upload = pendingUploadRepository.save(PendingUpload.builder()
+                .accountId(accountId)
+                .purpose(purpose)
+                .objectKey(objectKey)
+                .contentType(contentType)
+                .maxSize(maxSize)
+                .status(PendingUploadStatus.PENDING)
+                .expiresAt(expiresAt)
+                .build());
+
+        return PresignedUploadResponse.builder()
+                .uploadId(upload.getId())
+                .objectKey(objectKey)
+                .uploadUrl(minIOConfig.bucketUrl())
+                .method("POST")
+                .fields(fields)
+                .maxSize(upload.getMaxSize())
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Override
+    @Transactional(noRollbackFor = CustomException.class)
+    public FileMetadata confirm(UUID accountId, UUID uploadId, UploadPurpose purpose) {
+        PendingUpload upload = pendingUploadRepository.findForUpdate(uploadId, accountId)
+                .orElseThrow(() -> new CustomException("Upload not found"));
+
+        if (upload.getPurpose() != purpose) {
+            throw new CustomException("Upload was not issued for this resource");
+        }
+        if (upload.getStatus() != PendingUploadStatus.PENDING) {
+            throw new CustomException("Upload already confirmed");
+        }
+        if (Instant.now().isAfter(upload.getExpiresAt().plus(confirmWindow))) {
+            throw new CustomException("Upload has expired");
+        }
+
+        FileMetadata staged = fileService.statFile(upload.getObjectKey())
+                .orElseThrow(() -> new CustomException("File has not been uploaded yet"));
+
+        // Policy đã ép dung lượng/content type; kiểm lại trước khi copy để không tốn công copy file sai
+        rejectIfMismatch(upload, upload.getObjectKey(), staged);
+
+        // Copy sang key do server chọn, nên upload lại vào key staging sau đó không đổi được nội dung đã duyệt
+        String finalKey = purpose.keyPrefix() + UUID.randomUUID() + purpose.extensionFor(upload.getContentType());
+        copyObject(upload.getObjectKey(), finalKey);
+        removeQuietly(upload.getObjectKey());
+
+        FileMetadata metadata = fileService.statFile(finalKey)
+                .orElseThrow(() -> new CustomException("Failed to store uploaded file"));
+        // Staging có thể bị ghi đè giữa lúc stat và copy
+        rejectIfMismatch(upload, finalKey, metadata);
+
+        upload.setStatus(PendingUploadStatus.CONFIRMED);
+        upload.setFinalKey(finalKey);
+        upload.setSize(metadata.size());
+        pendingUploadRepository.save(upload);
+        return metadata;
+    }
+
+    @Override
+    public boolean isConfirmedBy(UUID accountId, String objectKey) {
+        return objectKey != null
+                && pendingUploadRepository.existsByAccountIdAndFinalKeyAndStatus(accountId, objectKey,
+                PendingUploadStatus.CONFIRMED);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${file.upload.presign.sweep-interval:PT10M}")
+    public void sweepExpiredUploads() {
+        Instant threshold = Instant.now().minus(confirmWindow);
+        List<PendingUpload> expired = pendingUploadRepository
+                .findTop500ByStatusAndExpiresAtBeforeOrderByExpiresAt(PendingUploadStatus.PENDING, threshold);
+        if (!expired.isEmpty()) {
+            expired.forEach(upload -> removeQuietly(upload.getObjectKey()));
+            pendingUploadRepository.deleteAllInBatch(expired);
+            log.info("Swept {} unconfirmed uploads", expired.size());
+        }
+
+        // Client vẫn có thể upload lại vào key staging trước khi URL hết hạn, kể cả sau confirm
+        Instant stagingThreshold = threshold.minus(urlTtl);
+        int removed = 0;
+        try {
+            Iterable<Result<Item>> items = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .prefix(STAGING_PREFIX)
+                    .recursive(true)
+                    .build());
+            for (Result<Item> result : items) {
+                Item item = result.get();
+                if (item.lastModified() != null && item.lastModified().toInstant().isBefore(stagingThreshold)) {
+                    removeQuietly(item.objectName());
+                    removed++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep staging uploads: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("Swept {} stale staging objects", removed);
+        }
+    }
+
+    /**
+     * Object sai dung lượng hoặc content type thì bị xoá cùng bản ghi upload. confirm không rollback
+     * CustomException nên việc xoá bản ghi vẫn được commit.
+     */
+    private void rejectIfMismatch(PendingUpload upload, String objectKey, FileMetadata metadata) {
+        String reason = null;
+        if (metadata.size() <= 0 || metadata.size() > upload.getMaxSize()) {
+            reason = "Uploaded file size does not match the requested size";
+        } else if (metadata.contentType() == null
+                || !upload.getContentType().equalsIgnoreCase(metadata.contentType())) {
+            reason = "Uploaded file type does not match the requested type";
+        }
+        if (reason != null) {
+            removeQuietly(objectKey);
+            pendingUploadRepository.delete(upload);
+            throw new CustomException(reason);
+        }
+    }
+
+    private void copyObject(String sourceKey, String targetKey) {
+        try {
+            minioClient.copyObject(CopyObjectArgs.builder()
+                    .bucket(minIOConfig.getBucketName())
+                    .object(targetKey)
+                    .source(CopySource.builder()
+                            .bucket(minIOConfig.getBucketName())
+                            .object(sourceKey)
+                            .build())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error promoting upload {}: {}", sourceKey, e.getMessage());
+            throw new CustomException("Failed to store uploaded file: " + e.getMessage());
+        }
+    }
+
+    private void removeQuietly(String objectKey) {
+        try {
+            fileService.deleteFile(objectKey);
+        } catch (Exception e) {
+            log.warn("Failed to remove unconfirmed upload {}: {}", objectKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.marketplace.ecommerce.file.valueObjects;
+
+/**
+ * Phát ra sau khi sweeper đã xoá object không còn tham chiếu, để module khác dọn dữ liệu phái sinh.
+ */
+public record BlobDeletedEvent(String objectKey) {
+}
@@ -0,0 +1,6 @@
+package com.marketplace.ecommerce.file.valueObjects;
+
+import java.time.Instant;
+
+public record FileMetadata(String fileName, long size, String contentType, String etag, Instant lastModified) {
+}
@@ -0,0 +1,6 @@
+package com.marketplace.ecommerce.file.valueObjects;
+
+public enum PendingUploadStatus {
+    PENDING,
+    CONFIRMED
+}
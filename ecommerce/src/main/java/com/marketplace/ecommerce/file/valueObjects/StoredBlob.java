@@ -0,0 +1,7 @@
+package com.marketplace.ecommerce.file.valueObjects;
+
+/**
+ * @param deduplicated {@code true} nếu nội dung đã có sẵn, object không được ghi lại
+ */
+public record StoredBlob(String hash, String objectKey, long size, String contentType, boolean deduplicated) {
+}
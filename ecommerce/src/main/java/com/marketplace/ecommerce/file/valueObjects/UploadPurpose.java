@@ -0,0 +1,41 @@
+package com.marketplace.ecommerce.file.valueObjects;
+
+import java.util.Map;
+
+/**
+ * Mỗi loại upload quyết định prefix của object key, dung lượng tối đa và content type hợp lệ.
+ */
+public enum UploadPurpose {
+    PRODUCT_IMAGE("products/", 5L * 1024 * 1024),
+    REVIEW_IMAGE("reviews/", 25L * 1024 * 1024);
+
+    private static final Map<String, String> IMAGE_EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/webp", ".webp"
+    );
+
+    private final String keyPrefix;
+    private final long maxSize;
+
+    UploadPurpose(String keyPrefix, long maxSize) {
+        this.keyPrefix = keyPrefix;
+        this.maxSize = maxSize;
+    }
+
+    public String keyPrefix() {
+        return keyPrefix;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public boolean allows(String contentType) {
+        return contentType != null && IMAGE_EXTENSIONS.containsKey(contentType.toLowerCase());
+    }
+
+    public String extensionFor(String contentType) {
+        return IMAGE_EXTENSIONS.get(contentType.toLowerCase());
+    }
+}
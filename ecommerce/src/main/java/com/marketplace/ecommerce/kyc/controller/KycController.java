@@ -7,10 +7,12 @@ import com.marketplace.ecommerce.kyc.entity.EKycSession;
 import com.marketplace.ecommerce.kyc.service.CompareKycService;
 import com.marketplace.ecommerce.kyc.service.KycOrchestratorService;
 import com.marketplace.ecommerce.kyc.service.KycOrchestrator;
+import com.marketplace.ecommerce.kyc.service.KycVerificationService;
 import com.marketplace.ecommerce.kyc.valueObjects.KycDocumentType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +27,7 @@ public class KycController {
     private final KycOrchestrator orchestrator;
     private final KycOrchestratorService orchestratorService;
     private final CompareKycService compareKycService;
+    private final KycVerificationService verificationService;
 
 
     @PostMapping("/sessions:start")
@@ -122,6 +125,14 @@ public class KycController {
         return ResponseEntity.ok(out);
     }
 
+    @PostMapping("/sessions/{sessionId}/verify-all")
+    public ResponseEntity<Map<String, Object>> verifyAll(
+            @PathVariable UUID sessionId,
+            @CurrentUser CurrentUserInfo u
+    ) {
+        return ResponseEntity.ok(verificationService.verifyAll(sessionId, u.getAccountId()));
+    }
+
     @PostMapping("/sessions/{sessionId}/compare")
     public ResponseEntity<Map<String, Object>> compare(
             @PathVariable UUID sessionId,
@@ -160,7 +171,16 @@ public class KycController {
                 title,
                 description
         );
-        return ResponseEntity.ok(out);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(out);
+    }
+
+    @GetMapping("/sessions/{sessionId}/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getUploadJob(
+            @PathVariable UUID sessionId,
+            @PathVariable UUID jobId,
+            @CurrentUser CurrentUserInfo u
+    ) {
+        return ResponseEntity.ok(orchestratorService.getUploadJob(sessionId, u.getAccountId(), jobId));
     }
 
 }
@@ -1,6 +1,7 @@
 package com.marketplace.ecommerce.kyc.entity;
 
 import com.marketplace.ecommerce.common.BaseEntity;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
 import com.marketplace.ecommerce.kyc.valueObjects.KycStatus;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -33,6 +34,10 @@ public class EKycSession extends BaseEntity {
     private String backHash;
     private String selfieHash;
 
+    // Bước hiện tại của lần upload bất đồng bộ gần nhất, để client poll
+    @Enumerated(EnumType.STRING)
+    private KycPipelineStep pipelineStep;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "JSONB")
     private String providerTrace;
@@ -0,0 +1,64 @@
+package com.marketplace.ecommerce.kyc.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "kyc_pipeline_jobs", indexes = {
+        @Index(name = "idx_kyc_pipeline_jobs_step_next", columnList = "step, next_attempt_at"),
+        @Index(name = "idx_kyc_pipeline_jobs_session", columnList = "session_id")
+})
+public class KycPipelineJob extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "session_id", nullable = false)
+    private UUID sessionId;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false, length = 32)
+    private KycPipelineStep step = KycPipelineStep.UPLOAD;
+
+    // File đã lưu cục bộ (SimpleLocalFileStore) để worker upload lại khi retry
+    @Column(name = "file_path", nullable = false)
+    private String filePath;
+
+    private String fileName;
+    private String title;
+    private String description;
+
+    private String fileHash;
+    private String classifiedName;
+    private Integer classifiedType;
+    private Double classifiedConfidence;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    // Đổi mỗi lần dispatcher nhận job; worker chỉ được ghi khi token còn khớp
+    @Column(name = "lease_token")
+    private UUID leaseToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "JSONB")
+    private String result;
+}
@@ -0,0 +1,33 @@
+package com.marketplace.ecommerce.kyc.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Kết quả VNPT đã trả về cho (operation, file hash). Cùng input thì không gọi lại provider (tính phí).
+ */
+@Data
+@Entity
+@Table(name = "kyc_provider_results", indexes = {
+        @Index(name = "idx_kyc_provider_results_expires_at", columnList = "expires_at")
+})
+public class KycProviderResult extends BaseEntity {
+    @Id
+    @Column(name = "cache_key", length = 100)
+    private String cacheKey;
+
+    @Column(name = "operation", nullable = false, length = 32)
+    private String operation;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "response", columnDefinition = "JSONB", nullable = false)
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
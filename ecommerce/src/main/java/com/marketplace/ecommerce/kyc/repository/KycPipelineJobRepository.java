@@ -0,0 +1,42 @@
+package com.marketplace.ecommerce.kyc.repository;
+
+import com.marketplace.ecommerce.kyc.entity.KycPipelineJob;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface KycPipelineJobRepository extends JpaRepository<KycPipelineJob, UUID> {
+
+    Optional<KycPipelineJob> findByIdAndSessionIdAndAccountId(UUID id, UUID sessionId, UUID accountId);
+
+    @Query(value = """
+            select * from kyc_pipeline_jobs
+            where step not in ('DONE', 'FAILED') and next_attempt_at <= :now
+            order by next_attempt_at
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<KycPipelineJob> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Fencing cho worker: update chỉ khớp khi lease chưa bị nhận lại, đồng thời giữ row lock đến hết transaction.
+     */
+    @Modifying
+    @Query(value = """
+            update kyc_pipeline_jobs set lease_token = :leaseToken
+            where id = :id and lease_token = :leaseToken
+            """, nativeQuery = true)
+    int holdLease(@Param("id") UUID id, @Param("leaseToken") UUID leaseToken);
+
+    boolean existsBySessionIdAndAccountIdAndStepNotIn(UUID sessionId, UUID accountId, Collection<KycPipelineStep> steps);
+}
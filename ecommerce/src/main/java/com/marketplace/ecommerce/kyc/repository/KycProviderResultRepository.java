@@ -0,0 +1,20 @@
+package com.marketplace.ecommerce.kyc.repository;
+
+import com.marketplace.ecommerce.kyc.entity.KycProviderResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface KycProviderResultRepository extends JpaRepository<KycProviderResult, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from KycProviderResult r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,8 +1,13 @@
 package com.marketplace.ecommerce.kyc.repository;
 
 import com.marketplace.ecommerce.kyc.entity.EKycSession;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +18,13 @@ public interface KycSessionRepository extends JpaRepository<EKycSession, UUID> {
     Optional<EKycSession> findByIdAndAccountId(
             UUID id,
             UUID accountId);
+
+    @Modifying
+    @Query("update EKycSession s set s.pipelineStep = :step where s.id = :id")
+    int updatePipelineStep(@Param("id") UUID id, @Param("step") KycPipelineStep step);
+
+    @Modifying
+    @Transactional
+    @Query("update EKycSession s set s.providerTrace = :trace where s.id = :id")
+    int updateProviderTrace(@Param("id") UUID id, @Param("trace") String trace);
 }
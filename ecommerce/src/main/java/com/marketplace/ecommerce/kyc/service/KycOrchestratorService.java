@@ -13,4 +13,6 @@ public interface KycOrchestratorService {
             String title,
             String description
     );
+
+    Map<String, Object> getUploadJob(UUID sessionId, UUID accountId, UUID jobId);
 }
@@ -0,0 +1,16 @@
+package com.marketplace.ecommerce.kyc.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface KycPipelineService {
+
+    /**
+     * Lưu file cục bộ và tạo job; upload/classify/liveness/attach chạy ở worker nền.
+     */
+    Map<String, Object> submit(UUID sessionId, UUID accountId, MultipartFile file, String title, String description);
+
+    Map<String, Object> getJob(UUID sessionId, UUID accountId, UUID jobId);
+}
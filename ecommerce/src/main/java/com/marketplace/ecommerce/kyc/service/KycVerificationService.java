@@ -0,0 +1,12 @@
+package com.marketplace.ecommerce.kyc.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface KycVerificationService {
+
+    /**
+     * Chạy song song OCR mặt trước/sau, card liveness và face liveness cho các file đã attach vào session.
+     */
+    Map<String, Object> verifyAll(UUID sessionId, UUID accountId);
+}
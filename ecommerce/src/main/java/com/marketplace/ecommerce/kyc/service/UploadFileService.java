@@ -2,6 +2,10 @@ package com.marketplace.ecommerce.kyc.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 public interface UploadFileService {
     String upload(MultipartFile file, String title, String description);
+
+    String upload(Path file, String fileName, String title, String description);
 }
@@ -0,0 +1,14 @@
+package com.marketplace.ecommerce.kyc.service;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public interface VnptResultCache {
+
+    /**
+     * Trả kết quả đã lưu cho (operation, inputs) nếu còn hạn; nếu chưa có thì gọi {@code loader} một lần
+     * cho mọi request đồng thời cùng key, rồi lưu lại khi {@code cacheable} đúng.
+     */
+    <T> T getOrLoad(String operation, List<String> inputs, Class<T> type, Predicate<T> cacheable, Supplier<T> loader);
+}
@@ -4,18 +4,22 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marketplace.ecommerce.auth.entity.Account;
 import com.marketplace.ecommerce.auth.repository.AccountRepository;
+import com.marketplace.ecommerce.common.exception.CustomException;
 import com.marketplace.ecommerce.common.exception.KycNotFoundException;
 import com.marketplace.ecommerce.kyc.dto.response.CompareResponse;
 import com.marketplace.ecommerce.kyc.entity.EKycSession;
+import com.marketplace.ecommerce.kyc.repository.KycPipelineJobRepository;
 import com.marketplace.ecommerce.kyc.repository.KycSessionRepository;
 import com.marketplace.ecommerce.kyc.service.CompareKycService;
 import com.marketplace.ecommerce.kyc.usecase.VNPTClient;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
 import com.marketplace.ecommerce.kyc.valueObjects.KycStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class CompareKycServiceImpl implements CompareKycService {
 
     private final KycSessionRepository sessions;
+    private final KycPipelineJobRepository jobs;
     private final VNPTClient vnpt;
     private final AccountRepository accountRepository;
     private final ObjectMapper om;
@@ -32,6 +37,12 @@ public class CompareKycServiceImpl implements CompareKycService {
     public Map<String, Object> compare(UUID sessionId, UUID accountId) {
         EKycSession s = get(sessionId, accountId);
 
+        // Upload xử lý nền: so khớp khi job còn chạy sẽ dùng hash cũ hoặc báo thiếu ảnh
+        if (jobs.existsBySessionIdAndAccountIdAndStepNotIn(sessionId, accountId,
+                List.of(KycPipelineStep.DONE, KycPipelineStep.FAILED))) {
+            throw new CustomException("KYC images are still being processed, please retry when all uploads are done");
+        }
+
         if (s.getFrontHash() == null || s.getFrontHash().isBlank()) {
             throw new IllegalStateException("Front not uploaded");
         }
@@ -0,0 +1,390 @@
+package com.marketplace.ecommerce.kyc.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.common.exception.KycNotFoundException;
+import com.marketplace.ecommerce.file.SimpleLocalFileStore;
+import com.marketplace.ecommerce.kyc.entity.EKycSession;
+import com.marketplace.ecommerce.kyc.entity.KycPipelineJob;
+import com.marketplace.ecommerce.kyc.repository.KycPipelineJobRepository;
+import com.marketplace.ecommerce.kyc.repository.KycSessionRepository;
+import com.marketplace.ecommerce.kyc.service.*;
+import com.marketplace.ecommerce.kyc.valueObjects.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Luồng upload KYC dạng state machine lưu trong DB. Request chỉ lưu file và tạo job; worker nền nhận job
+ * bằng {@code for update skip locked}, chạy lần lượt từng bước và retry có backoff khi VNPT lỗi tạm thời.
+ * Job bị bỏ dở (app chết giữa chừng) sẽ được nhận lại khi hết lease; mỗi lần nhận cấp một lease token mới
+ * nên worker cũ chạy quá lease không ghi đè được kết quả của worker mới.
+ */
+@Slf4j
+@Service
+public class KycPipelineServiceImpl implements KycPipelineService {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final KycPipelineJobRepository jobs;
+    private final KycSessionRepository sessions;
+    private final SimpleLocalFileStore localFileStore;
+    private final UploadFileService uploadService;
+    private final CardClassifyService classifyService;
+    private final CardLivenessService cardLivenessService;
+    private final FaceLivenessService faceLivenessService;
+    private final KycSessionAttachService attachService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper om;
+
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration lease;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public KycPipelineServiceImpl(KycPipelineJobRepository jobs,
+                                  KycSessionRepository sessions,
+                                  SimpleLocalFileStore localFileStore,
+                                  UploadFileService uploadService,
+                                  CardClassifyService classifyService,
+                                  CardLivenessService cardLivenessService,
+                                  FaceLivenessService faceLivenessService,
+                                  KycSessionAttachService attachService,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper om,
+                                  @Value("${kyc.pipeline.workers:4}") int workers,
+                                  @Value("${kyc.pipeline.max-attempts:5}") int maxAttempts,
+                                  @Value("${kyc.pipeline.backoff-base:2s}") Duration backoffBase,
+                                  @Value("${kyc.pipeline.backoff-max:2m}") Duration backoffMax,
+                                  @Value("${kyc.pipeline.lease:5m}") Duration lease) {
+        this.jobs = jobs;
+        this.sessions = sessions;
+        this.localFileStore = localFileStore;
+        this.uploadService = uploadService;
+        this.classifyService = classifyService;
+        this.cardLivenessService = cardLivenessService;
+        this.faceLivenessService = faceLivenessService;
+        this.attachService = attachService;
+        this.transactionTemplate = transactionTemplate;
+        this.om = om;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.lease = lease;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "kyc-pipeline-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public Map<String, Object> submit(UUID sessionId, UUID accountId, MultipartFile file, String title, String description) {
+        EKycSession session = sessions.findByIdAndAccountId(sessionId, accountId)
+                .orElseThrow(() -> new KycNotFoundException(sessionId.toString(), accountId.toString()));
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("file is empty");
+        }
+
+        Path stored = localFileStore.save(file);
+
+        KycPipelineJob job = new KycPipelineJob();
+        job.setSessionId(session.getId());
+        job.setAccountId(accountId);
+        job.setStep(KycPipelineStep.UPLOAD);
+        job.setFilePath(stored.toString());
+        job.setFileName(file.getOriginalFilename());
+        job.setTitle(title);
+        job.setDescription(description);
+        job.setNextAttemptAt(Instant.now());
+        job = persist(job);
+
+        return describe(job);
+    }
+
+    @Override
+    public Map<String, Object> getJob(UUID sessionId, UUID accountId, UUID jobId) {
+        KycPipelineJob job = jobs.findByIdAndSessionIdAndAccountId(jobId, sessionId, accountId)
+                .orElseThrow(() -> new KycNotFoundException(jobId.toString(), accountId.toString()));
+        return describe(job);
+    }
+
+    @Scheduled(fixedDelayString = "${kyc.pipeline.poll-interval:PT1S}")
+    public void dispatchDueJobs() {
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<Claim> claimed = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<KycPipelineJob> due = jobs.lockDue(now, capacity);
+            // Giữ job trong thời gian lease; worker chết thì job tự được nhận lại sau đó
+            due.forEach(job -> {
+                job.setNextAttemptAt(now.plus(lease));
+                job.setLeaseToken(UUID.randomUUID());
+            });
+            jobs.saveAll(due);
+            return due.stream().map(job -> new Claim(job.getId(), job.getLeaseToken())).toList();
+        });
+
+        for (Claim claim : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(claim);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Executor đang shutdown: job sẽ được nhận lại khi hết lease
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(Claim claim) {
+        KycPipelineJob job = jobs.findById(claim.jobId()).orElse(null);
+        if (job == null || !claim.leaseToken().equals(job.getLeaseToken())) {
+            return;
+        }
+
+        try {
+            while (!job.getStep().isTerminal()) {
+                advance(job);
+                job.setAttempts(0);
+                job.setLastError(null);
+                job.setNextAttemptAt(Instant.now().plus(lease));
+                job = persistLeased(job);
+            }
+        } catch (LeaseLostException e) {
+            log.warn("KYC pipeline job {} was reclaimed by another worker, dropping step {}", job.getId(), job.getStep());
+        } catch (Exception e) {
+            onError(job, e);
+        }
+    }
+
+    private void advance(KycPipelineJob job) {
+        String clientSession = job.getSessionId().toString();
+
+        switch (job.getStep()) {
+            case UPLOAD -> {
+                String hash = uploadService.upload(
+                        Path.of(job.getFilePath()), job.getFileName(), job.getTitle(), job.getDescription());
+                job.setFileHash(hash);
+                job.setStep(KycPipelineStep.CLASSIFY);
+            }
+            case CLASSIFY -> {
+                ClassifyResult cls = classifyService.classify(job.getFileHash(), clientSession);
+                if (cls == null || cls.name() == null || cls.name().isBlank()) {
+                    fail(job, "CLASSIFY", Map.of("reason", "Classify returned empty name"));
+                    return;
+                }
+                job.setClassifiedName(cls.name());
+                job.setClassifiedType(cls.type());
+                job.setClassifiedConfidence(cls.confidence());
+
+                Integer type = cls.type();
+                if (type != null && type >= 0 && type <= 3) {
+                    job.setStep(KycPipelineStep.CARD_LIVENESS);
+                } else if (type != null && type == 4) {
+                    job.setStep(KycPipelineStep.FACE_LIVENESS);
+                } else {
+                    fail(job, "ROUTE_UNSUPPORTED", Map.of("reason", "Unsupported classify type for this endpoint"));
+                }
+            }
+            case CARD_LIVENESS -> {
+                CardLivenessResult live = cardLivenessService.verify(job.getFileHash(), clientSession);
+                if (live == null || !live.isReal()) {
+                    fail(job, "CARD_LIVENESS", Map.of(
+                            "liveness", live != null ? nz(live.liveness()) : "",
+                            "livenessMsg", live != null ? nz(live.livenessMsg()) : ""));
+                    return;
+                }
+                job.setStep(KycPipelineStep.ATTACH);
+            }
+            case FACE_LIVENESS -> {
+                FaceLivenessResult live = faceLivenessService.verify(job.getFileHash(), clientSession);
+                if (live == null || !live.isLive()) {
+                    fail(job, "FACE_LIVENESS", Map.of(
+                            "liveness", live != null ? nz(live.liveness()) : "",
+                            "livenessMsg", live != null ? nz(live.livenessMsg()) : ""));
+                    return;
+                }
+                job.setStep(KycPipelineStep.ATTACH);
+            }
+            case ATTACH -> {
+                AttachDecision decision = attachService.attachFile(
+                        job.getSessionId(), job.getAccountId(), job.getFileHash(), job.getClassifiedName());
+                if (decision == null || !decision.attached()) {
+                    fail(job, "ATTACH", Map.of(
+                            "reason", decision != null ? nz(decision.reason()) : "ATTACH_DECISION_NULL"));
+                    return;
+                }
+
+                Map<String, Object> out = baseResult(job, true, null);
+                out.put("classifiedConfidence", job.getClassifiedConfidence() == null ? 0.0 : job.getClassifiedConfidence());
+                out.put("savedTo", nz(decision.savedTo()));
+                job.setResult(toJson(out));
+                job.setStep(KycPipelineStep.DONE);
+            }
+            default -> throw new IllegalStateException("Unexpected step " + job.getStep());
+        }
+    }
+
+    private void onError(KycPipelineJob job, Exception e) {
+        int attempts = job.getAttempts() + 1;
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        job.setAttempts(attempts);
+        job.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (!isRetryable(e) || attempts >= maxAttempts) {
+            log.warn("KYC pipeline job {} failed at {} after {} attempts: {}", job.getId(), job.getStep(), attempts, message);
+            fail(job, job.getStep().name(), Map.of("reason", job.getLastError()));
+        } else {
+            Duration delay = backoff(attempts);
+            log.info("KYC pipeline job {} step {} failed (attempt {}), retry in {}", job.getId(), job.getStep(), attempts, delay);
+            job.setNextAttemptAt(Instant.now().plus(delay));
+        }
+
+        try {
+            persistLeased(job);
+        } catch (LeaseLostException lost) {
+            log.warn("KYC pipeline job {} was reclaimed by another worker, dropping error", job.getId());
+        } catch (Exception persistError) {
+            // Không lưu được thì job vẫn được nhận lại khi hết lease
+            log.error("Cannot persist KYC pipeline job {}: {}", job.getId(), persistError.getMessage());
+        }
+    }
+
+    // Exponential backoff có jitter: nửa cố định + nửa ngẫu nhiên
+    private Duration backoff(int attempts) {
+        long base = backoffBase.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, backoffMax.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException http) {
+                return http.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                        || http.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT);
+            }
+            if (t instanceof IllegalArgumentException || t instanceof KycNotFoundException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fail(KycPipelineJob job, String step, Map<String, Object> details) {
+        Map<String, Object> out = baseResult(job, false, step);
+        out.putAll(details);
+        job.setResult(toJson(out));
+        job.setStep(KycPipelineStep.FAILED);
+    }
+
+    private static Map<String, Object> baseResult(KycPipelineJob job, boolean ok, String step) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("ok", ok);
+        if (step != null) {
+            out.put("step", step);
+        }
+        out.put("fileHash", nz(job.getFileHash()));
+        if (job.getClassifiedName() != null) {
+            out.put("classifiedName", job.getClassifiedName());
+            out.put("classifiedType", job.getClassifiedType() == null ? -1 : job.getClassifiedType());
+        }
+        return out;
+    }
+
+    private KycPipelineJob persist(KycPipelineJob job) {
+        return transactionTemplate.execute(status -> {
+            KycPipelineJob saved = jobs.save(job);
+            sessions.updatePipelineStep(saved.getSessionId(), saved.getStep());
+            return saved;
+        });
+    }
+
+    // Ghi kết quả của worker: chỉ khi lease token vẫn là của lần nhận job này
+    private KycPipelineJob persistLeased(KycPipelineJob job) {
+        return transactionTemplate.execute(status -> {
+            if (jobs.holdLease(job.getId(), job.getLeaseToken()) == 0) {
+                throw new LeaseLostException();
+            }
+            KycPipelineJob saved = jobs.save(job);
+            sessions.updatePipelineStep(saved.getSessionId(), saved.getStep());
+            return saved;
+        });
+    }
+
+    private Map<String, Object> describe(KycPipelineJob job) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("jobId", job.getId());
+        out.put("sessionId", job.getSessionId());
+        out.put("step", job.getStep().name());
+        out.put("done", job.getStep().isTerminal());
+        out.put("attempts", job.getAttempts());
+        if (job.getLastError() != null) {
+            out.put("lastError", job.getLastError());
+        }
+        if (job.getResult() != null) {
+            try {
+                out.put("result", om.readValue(job.getResult(), Map.class));
+            } catch (JsonProcessingException e) {
+                out.put("result", job.getResult());
+            }
+        }
+        return out;
+    }
+
+    private String toJson(Map<String, Object> value) {
+        try {
+            return om.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot serialize KYC pipeline result. {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+
+    private record Claim(UUID jobId, UUID leaseToken) {
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
@@ -0,0 +1,161 @@
+package com.marketplace.ecommerce.kyc.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.kyc.entity.EKycSession;
+import com.marketplace.ecommerce.kyc.repository.KycSessionRepository;
+import com.marketplace.ecommerce.kyc.service.CardLivenessService;
+import com.marketplace.ecommerce.kyc.service.KycOrchestrator;
+import com.marketplace.ecommerce.kyc.service.KycVerificationService;
+import com.marketplace.ecommerce.kyc.valueObjects.CardLivenessResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Các check VNPT độc lập với nhau khi đã có file hash, nên chạy song song trên virtual thread.
+ * Toàn bộ lượt verify bị chặn bởi một deadline; từng lời gọi còn phải xin slot từ bulkhead VNPT chung.
+ */
+@Slf4j
+@Service
+public class KycVerificationServiceImpl implements KycVerificationService {
+    private static final int DEFAULT_CARD_TYPE = -1;
+
+    private final KycOrchestrator orchestrator;
+    private final CardLivenessService cardLivenessService;
+    private final KycSessionRepository sessions;
+    private final ObjectMapper om;
+    private final Duration deadline;
+
+    public KycVerificationServiceImpl(KycOrchestrator orchestrator,
+                                      CardLivenessService cardLivenessService,
+                                      KycSessionRepository sessions,
+                                      ObjectMapper om,
+                                      @Value("${kyc.verify.deadline:20s}") Duration deadline) {
+        this.orchestrator = orchestrator;
+        this.cardLivenessService = cardLivenessService;
+        this.sessions = sessions;
+        this.om = om;
+        this.deadline = deadline;
+    }
+
+    // Không mở transaction ở đây: không giữ connection DB trong lúc chờ VNPT
+    @Override
+    public Map<String, Object> verifyAll(UUID sessionId, UUID accountId) {
+        EKycSession s = orchestrator.get(sessionId, accountId);
+        String frontHash = blankToNull(s.getFrontHash());
+        String backHash = blankToNull(s.getBackHash());
+        String selfieHash = blankToNull(s.getSelfieHash());
+
+        Instant startedAt = Instant.now();
+        Instant until = startedAt.plus(deadline);
+
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        Map<String, Object> checks = new LinkedHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            submit(executor, futures, checks, "ocrFront", frontHash, until,
+                    () -> orchestrator.ocrFront(sessionId, accountId, frontHash, DEFAULT_CARD_TYPE));
+            submit(executor, futures, checks, "ocrBack", backHash, until,
+                    () -> orchestrator.ocrBack(sessionId, accountId, backHash, DEFAULT_CARD_TYPE));
+            submit(executor, futures, checks, "cardLiveness", frontHash, until,
+                    () -> toMap(cardLivenessService.verify(frontHash, sessionId.toString())));
+            submit(executor, futures, checks, "faceLiveness", selfieHash, until,
+                    () -> orchestrator.liveness(sessionId, accountId, selfieHash));
+
+            for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+                checks.put(entry.getKey(), await(entry.getValue(), until));
+            }
+            // Task quá hạn đã bị cancel (interrupt); close() chỉ chờ chúng thoát
+        }
+
+        boolean completed = checks.values().stream()
+                .allMatch(c -> c instanceof Map<?, ?> m && !"TIMEOUT".equals(m.get("status")));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sessionId", sessionId);
+        out.put("completed", completed);
+        out.put("elapsedMs", Duration.between(startedAt, Instant.now()).toMillis());
+        out.put("checks", checks);
+
+        sessions.updateProviderTrace(sessionId, mergeTrace(s.getProviderTrace(), out));
+        return out;
+    }
+
+    private void submit(ExecutorService executor,
+                        Map<String, Future<Object>> futures,
+                        Map<String, Object> checks,
+                        String name,
+                        String hash,
+                        Instant until,
+                        Supplier<Object> call) {
+        if (hash == null) {
+            checks.put(name, Map.of("status", "SKIPPED", "reason", "File not uploaded"));
+            return;
+        }
+        checks.put(name, null); // giữ thứ tự trong response
+        // Giới hạn đồng thời tới VNPT nằm ở VNPTClientImpl (vnptBulkhead)
+        futures.put(name, executor.submit(call::get));
+    }
+
+    private static Map<String, Object> await(Future<Object> future, Instant until) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            long remaining = Math.max(0, Duration.between(Instant.now(), until).toMillis());
+            result.put("status", "OK");
+            result.put("result", future.get(remaining, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            result.put("status", "TIMEOUT");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            result.put("status", cause instanceof RejectedExecutionException ? "TIMEOUT" : "FAILED");
+            result.put("reason", String.valueOf(cause.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            result.put("status", "TIMEOUT");
+        }
+        return result;
+    }
+
+    private static Map<String, Object> toMap(CardLivenessResult r) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("isReal", r.isReal());
+        out.put("liveness", r.liveness());
+        out.put("livenessMsg", r.livenessMsg());
+        return out;
+    }
+
+    // providerTrace có thể đang chứa trace của compare, nên chỉ ghi đè key verifyAll
+    private String mergeTrace(String existing, Map<String, Object> verifyAll) {
+        Map<String, Object> trace = new LinkedHashMap<>();
+        if (existing != null && !existing.isBlank()) {
+            try {
+                trace.putAll(om.readValue(existing, new TypeReference<Map<String, Object>>() {
+                }));
+            } catch (Exception e) {
+                trace.put("previous", existing);
+            }
+        }
+        trace.put("verifyAll", verifyAll);
+        try {
+            return om.writeValueAsString(trace);
+        } catch (Exception e) {
+            log.warn("Cannot serialize verify-all trace. {}", e.getMessage());
+            return existing;
+        }
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
@@ -7,6 +7,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 @Service
 @RequiredArgsConstructor
 public class UploadFileServiceImpl implements UploadFileService {
@@ -14,7 +16,15 @@ public class UploadFileServiceImpl implements UploadFileService {
 
     @Override
     public String upload(MultipartFile file, String title, String description) {
-        UploadResponse up = vnpt.addFile(file, title, description);
+        return hashOf(vnpt.addFile(file, title, description));
+    }
+
+    @Override
+    public String upload(Path file, String fileName, String title, String description) {
+        return hashOf(vnpt.addFile(file, fileName, title, description));
+    }
+
+    private static String hashOf(UploadResponse up) {
         String hash = up != null && up.getObject() != null ? up.getObject().getHash() : null;
         if (hash == null || hash.isBlank()) {
             throw new IllegalStateException("VNPT addFile returned empty hash");
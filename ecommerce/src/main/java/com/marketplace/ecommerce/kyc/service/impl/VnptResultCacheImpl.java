@@ -0,0 +1,157 @@
+package com.marketplace.ecommerce.kyc.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.kyc.entity.KycProviderResult;
+import com.marketplace.ecommerce.kyc.repository.KycProviderResultRepository;
+import com.marketplace.ecommerce.kyc.service.VnptResultCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả VNPT lưu trong Postgres. Request đồng thời cùng key trong một instance chỉ tạo một
+ * lượt gọi provider; các request còn lại chờ chung CompletableFuture.
+ */
+@Slf4j
+@Service
+public class VnptResultCacheImpl implements VnptResultCache {
+
+    private final KycProviderResultRepository results;
+    private final ObjectMapper om;
+    private final Duration ttl;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public VnptResultCacheImpl(KycProviderResultRepository results,
+                               ObjectMapper om,
+                               MeterRegistry meterRegistry,
+                               @Value("${kyc.vnpt.cache.ttl:30d}") Duration ttl) {
+        this.results = results;
+        this.om = om;
+        this.ttl = ttl;
+        this.hits = Counter.builder("kyc.vnpt.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("kyc.vnpt.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    public <T> T getOrLoad(String operation, List<String> inputs, Class<T> type,
+                           Predicate<T> cacheable, Supplier<T> loader) {
+        String key = cacheKey(operation, inputs);
+
+        T cached = read(key, type);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            hits.increment();
+            return type.cast(await(existing));
+        }
+
+        try {
+            // Có thể flight trước vừa ghi xong giữa lúc đọc và putIfAbsent
+            T value = read(key, type);
+            if (value == null) {
+                misses.increment();
+                value = loader.get();
+                if (value != null && cacheable.test(value)) {
+                    write(key, operation, value);
+                }
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeExpired() {
+        int removed = results.deleteExpired(Instant.now());
+        if (removed > 0) {
+            log.info("Purged {} expired VNPT results", removed);
+        }
+    }
+
+    private <T> T read(String key, Class<T> type) {
+        try {
+            return results.findById(key)
+                    .filter(r -> r.getExpiresAt().isAfter(Instant.now()))
+                    .map(r -> deserialize(r.getResponse(), type))
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("Cannot read cached VNPT result {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String key, String operation, Object value) {
+        try {
+            KycProviderResult row = new KycProviderResult();
+            row.setCacheKey(key);
+            row.setOperation(operation);
+            row.setResponse(om.writeValueAsString(value));
+            row.setExpiresAt(Instant.now().plus(ttl));
+            results.save(row);
+        } catch (Exception e) {
+            // Cache lỗi không được làm hỏng kết quả đã trả về từ provider
+            log.warn("Cannot store VNPT result {}: {}", key, e.getMessage());
+        }
+    }
+
+    private <T> T deserialize(String json, Class<T> type) {
+        try {
+            return om.readValue(json, type);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for VNPT result", e);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String cacheKey(String operation, List<String> inputs) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(String.join("\n", inputs).getBytes(StandardCharsets.UTF_8));
+            return operation + ":" + HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
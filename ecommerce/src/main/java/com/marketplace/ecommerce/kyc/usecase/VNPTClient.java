@@ -3,10 +3,14 @@ package com.marketplace.ecommerce.kyc.usecase;
 import com.marketplace.ecommerce.kyc.dto.response.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 public interface VNPTClient {
 
     UploadResponse addFile(MultipartFile file, String title, String description);
 
+    UploadResponse addFile(Path file, String fileName, String title, String description);
+
     CardLivenessResponse cardLiveness(String imgHash, String session);
 
     ClassifyResponse classify(String imgHash, String session);
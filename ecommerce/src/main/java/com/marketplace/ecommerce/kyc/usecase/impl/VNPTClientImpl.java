@@ -1,58 +1,108 @@
 package com.marketplace.ecommerce.kyc.usecase.impl;
 
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
 import com.marketplace.ecommerce.config.EKycConfig;
 import com.marketplace.ecommerce.kyc.dto.request.*;
 import com.marketplace.ecommerce.kyc.dto.response.*;
+import com.marketplace.ecommerce.kyc.service.VnptResultCache;
 import com.marketplace.ecommerce.kyc.usecase.VNPTClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.multipart.MultipartFile;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VNPTClientImpl implements VNPTClient {
+    private static final Duration VNPT_MAX_WAIT = Duration.ofSeconds(10);
 
     private final RestClient vnptRestClient;
     private final EKycConfig cfg;
+    private final VnptResultCache resultCache;
+    private final Bulkhead vnptBulkhead;
 
     @Override
     public UploadResponse addFile(MultipartFile file, String title, String description) {
-        try {
-            if (file == null || file.isEmpty()) {
-                throw new IllegalArgumentException("file is empty");
-            }
-
-            var form = new LinkedMultiValueMap<String, Object>();
-
-            // IMPORTANT: multipart part must have filename
-            ByteArrayResource filePart = new ByteArrayResource(file.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
-                }
-            };
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("file is empty");
+        }
+        // IMPORTANT: multipart part must have filename
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+        return postFile(file::getInputStream, file.getSize(), fileName, file.getContentType(), title, description);
+    }
 
-            form.add("file", filePart);
-            if (title != null && !title.isBlank()) form.add("title", title);
-            if (description != null && !description.isBlank()) form.add("description", description);
+    @Override
+    public UploadResponse addFile(Path file, String fileName, String title, String description) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            throw new RuntimeException("VNPT addFile failed: " + e.getMessage(), e);
+        }
+        String name = fileName != null && !fileName.isBlank() ? fileName : file.getFileName().toString();
+        String contentType = MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null);
+        return postFile(() -> Files.newInputStream(file), size, name, contentType, title, description);
+    }
 
-            UploadResponse res = vnptRestClient.post()
+    /**
+     * Tự dựng body multipart/form-data: phần đầu (field + header của part file) và phần đuôi là vài trăm byte,
+     * còn nội dung file được stream thẳng từ nguồn vào socket. Tổng độ dài biết trước nên request gửi kèm
+     * Content-Length, không phải chunked, và file không bao giờ bị nạp nguyên vào heap.
+     */
+    private UploadResponse postFile(InputStreamSource source, long size, String fileName, String contentType,
+                                    String title, String description) {
+        try {
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+            StringBuilder head = new StringBuilder();
+            if (title != null && !title.isBlank()) appendField(head, boundary, "title", title);
+            if (description != null && !description.isBlank()) appendField(head, boundary, "description", description);
+            head.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"file\"; filename=\"")
+                    .append(escapeQuoted(fileName)).append("\"\r\n")
+                    .append("Content-Type: ")
+                    .append(contentType != null && !contentType.isBlank() ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                    .append("\r\n\r\n");
+
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+            byte[] tailBytes = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+            UploadResponse res = limited(() -> vnptRestClient.post()
                     .uri("/file-service/v1/addFile")
-                    .contentType(MediaType.MULTIPART_FORM_DATA)
-                    .body(form)
+                    .contentType(new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary)))
+                    .contentLength(headBytes.length + size + tailBytes.length)
+                    .body(out -> {
+                        out.write(headBytes);
+                        try (InputStream in = source.getInputStream()) {
+                            long copied = in.transferTo(out);
+                            if (copied != size) {
+                                throw new IOException("File size changed while uploading: expected " + size + " bytes, got " + copied);
+                            }
+                        }
+                        out.write(tailBytes);
+                    })
                     .retrieve()
-                    .body(UploadResponse.class);
+                    .body(UploadResponse.class));
 
             return Objects.requireNonNull(res, "VNPT addFile returned null");
         } catch (Exception e) {
@@ -60,8 +110,30 @@ public class VNPTClientImpl implements VNPTClient {
         }
     }
 
+    // Cache hit không chiếm slot; chỉ lời gọi HTTP thật tới VNPT mới đi qua bulkhead
+    private <T> T limited(Supplier<T> call) {
+        return vnptBulkhead.call(call, VNPT_MAX_WAIT);
+    }
+
+    private static void appendField(StringBuilder sb, String boundary, String name, String value) {
+        sb.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n")
+                .append("Content-Type: text/plain; charset=UTF-8\r\n\r\n")
+                .append(value).append("\r\n");
+    }
+
+    private static String escapeQuoted(String value) {
+        return value.replace("\r", "").replace("\n", "").replace("\"", "%22");
+    }
+
+    // Kết quả AI chỉ phụ thuộc vào file hash (không phụ thuộc client session) nên được cache theo hash
     @Override
     public CardLivenessResponse cardLiveness(String imgHash, String session) {
+        return resultCache.getOrLoad("card_liveness", List.of(imgHash), CardLivenessResponse.class,
+                r -> r.getObject() != null, () -> limited(() -> callCardLiveness(imgHash, session)));
+    }
+
+    private CardLivenessResponse callCardLiveness(String imgHash, String session) {
         CardLivenessRequest req = new CardLivenessRequest();
         req.setImg(imgHash);
         req.setClientSession(session);
@@ -80,6 +152,11 @@ public class VNPTClientImpl implements VNPTClient {
     // nên dùng constructor explicit để build WebClient đúng baseUrl + headers.
     @Override
     public ClassifyResponse classify(String imgHash, String session) {
+        return resultCache.getOrLoad("classify", List.of(imgHash), ClassifyResponse.class,
+                r -> r.getObj() != null, () -> limited(() -> callClassify(imgHash, session)));
+    }
+
+    private ClassifyResponse callClassify(String imgHash, String session) {
         ClassifyRequest req = new ClassifyRequest();
         req.setImgCard(imgHash);
         req.setClientSession(session);
@@ -96,6 +173,11 @@ public class VNPTClientImpl implements VNPTClient {
 
     @Override
     public OcrFrontResponse ocrFront(String imgHash, int type, String session) {
+        return resultCache.getOrLoad("ocr_front", List.of(imgHash, String.valueOf(type)), OcrFrontResponse.class,
+                r -> r.getObj() != null, () -> limited(() -> callOcrFront(imgHash, type, session)));
+    }
+
+    private OcrFrontResponse callOcrFront(String imgHash, int type, String session) {
         try {
             OcrFrontRequest req = new OcrFrontRequest();
             req.setImgFront(imgHash);
@@ -123,6 +205,11 @@ public class VNPTClientImpl implements VNPTClient {
 
     @Override
     public OcrBackResponse ocrBack(String imgHash, int type, String session) {
+        return resultCache.getOrLoad("ocr_back", List.of(imgHash, String.valueOf(type)), OcrBackResponse.class,
+                r -> r.getObj() != null, () -> limited(() -> callOcrBack(imgHash, type, session)));
+    }
+
+    private OcrBackResponse callOcrBack(String imgHash, int type, String session) {
         OcrBackRequest req = new OcrBackRequest();
         req.setImgBack(imgHash);
         req.setType(type);
@@ -140,6 +227,11 @@ public class VNPTClientImpl implements VNPTClient {
 
     @Override
     public LivenessResponse liveness(String imgHash, String session) {
+        return resultCache.getOrLoad("face_liveness", List.of(imgHash), LivenessResponse.class,
+                r -> r.getObj() != null, () -> limited(() -> callLiveness(imgHash, session)));
+    }
+
+    private LivenessResponse callLiveness(String imgHash, String session) {
         LivenessRequest req = new LivenessRequest();
         req.setImg(imgHash);
         req.setClientSession(session);
@@ -156,6 +248,11 @@ public class VNPTClientImpl implements VNPTClient {
 
     @Override
     public CompareResponse compare(String frontHash, String faceHash, String session) {
+        return resultCache.getOrLoad("compare", List.of(frontHash, faceHash), CompareResponse.class,
+                r -> r.getObj() != null, () -> limited(() -> callCompare(frontHash, faceHash, session)));
+    }
+
+    private CompareResponse callCompare(String frontHash, String faceHash, String session) {
         CompareRequest req = new CompareRequest();
         req.setImgFront(frontHash);
         req.setImgFace(faceHash);
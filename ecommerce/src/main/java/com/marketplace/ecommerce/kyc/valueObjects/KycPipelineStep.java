@@ -0,0 +1,18 @@
+package com.marketplace.ecommerce.kyc.valueObjects;
+
+/**
+ * Các bước của luồng upload KYC bất đồng bộ: UPLOAD -> CLASSIFY -> CARD_LIVENESS | FACE_LIVENESS -> ATTACH -> DONE.
+ */
+public enum KycPipelineStep {
+    UPLOAD,
+    CLASSIFY,
+    CARD_LIVENESS,
+    FACE_LIVENESS,
+    ATTACH,
+    DONE,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == DONE || this == FAILED;
+    }
+}
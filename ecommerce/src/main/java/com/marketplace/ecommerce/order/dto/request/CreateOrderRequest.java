@@ -10,5 +10,7 @@ public class CreateOrderRequest {
     private UUID shopId;
     private UUID addressId;
     private String notes;
+    // Bắt buộc: quoteId từ /checkout/quote hoặc /checkout/confirm, đơn dùng đúng phí ship đã báo
+    private UUID quoteId;
 
 }
@@ -9,6 +9,7 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -18,6 +19,7 @@ public class CheckoutConfirmResponse {
     private BigDecimal subtotal;
     private BigDecimal shippingFee;
     private BigDecimal total;
+    private UUID quoteId;
 
     public static CheckoutConfirmResponse of(
             UserAddress address,
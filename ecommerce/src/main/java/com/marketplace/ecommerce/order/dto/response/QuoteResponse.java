@@ -4,9 +4,13 @@ package com.marketplace.ecommerce.order.dto.response;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
 
 @Data
 public class QuoteResponse {
+    private UUID quoteId;
+    private Instant quoteExpiresAt;
     private BigDecimal shippingFee;
     private BigDecimal total;
 }
@@ -16,7 +16,9 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_id", columnList = "status, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -84,6 +86,22 @@ public class Order {
     @Column(name = "ghn_order_code", length = 100)
     private String ghnOrderCode;
 
+    // Dữ liệu mới nhất GHN gửi qua webhook
+    @Column(name = "ghn_status", length = 50)
+    private String ghnStatus;
+
+    @Column(name = "ghn_weight")
+    private Integer ghnWeight;
+
+    @Column(name = "ghn_cod_amount", precision = 12, scale = 2)
+    private BigDecimal ghnCodAmount;
+
+    @Column(name = "ghn_total_fee", precision = 12, scale = 2)
+    private BigDecimal ghnTotalFee;
+
+    @Column(name = "ghn_updated_at")
+    private LocalDateTime ghnUpdatedAt;
+
     @Column(name = "platform_commission", precision = 12, scale = 2)
     private BigDecimal platformCommission = BigDecimal.ZERO;
 
@@ -2,7 +2,9 @@ package com.marketplace.ecommerce.order.repository;
 
 import com.marketplace.ecommerce.order.entity.Order;
 import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.shipping.valueObjects.ShippingOrderRef;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -37,17 +39,39 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
     Optional<Order> findByGhnOrderCode(String ghnOrderCode);
 
 
-    @Query("""
+    /**
+     * Khoá một chunk đơn đủ điều kiện tự nhận hàng, theo keyset trên id.
+     * Dòng đang bị instance/worker khác khoá thì bỏ qua.
+     */
+    @Query(value = """
         select o.id
+        from orders o
+        where o.status = :status
+          and o.received_by_buyer = false
+          and o.delivered_at < :threshold
+          and o.id > :after
+        order by o.id
+        limit :limit
+        for update skip locked
+    """, nativeQuery = true)
+    List<UUID> lockAutoReceivable(
+            @Param("status") String status,
+            @Param("threshold") LocalDateTime threshold,
+            @Param("after") UUID after,
+            @Param("limit") int limit
+    );
+
+    @Query("""
+        select new com.marketplace.ecommerce.shipping.valueObjects.ShippingOrderRef(o.id, o.orderNumber)
         from Order o
         where o.status = :status
-          and o.receivedByBuyer = false
-          and o.deliveredAt < :threshold
-        order by o.deliveredAt asc
+          and o.id > :after
+        order by o.id
     """)
-    List<UUID> findIdsByStatusAndReceivedByBuyerFalseAndDeliveredAtBefore(
+    List<ShippingOrderRef> findRefsByStatusAfter(
             @Param("status") OrderStatus status,
-            @Param("threshold") LocalDateTime threshold
+            @Param("after") UUID after,
+            Pageable pageable
     );
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
@@ -0,0 +1,9 @@
+package com.marketplace.ecommerce.order.service;
+
+public interface OrderAutoReceiveService {
+
+    /**
+     * Tự xác nhận đã nhận hàng và release escrow cho các đơn DELIVERED quá hạn mà buyer chưa xác nhận.
+     */
+    void autoReceiveDeliveredOrders();
+}
@@ -16,10 +16,6 @@ public interface OrderService {
 
     void markReceivedByBuyer(UUID orderId, UUID accountId);
 
-    void autoMarkReceivedOrders();
-
-    void autoReceiveAndRelease(UUID orderId);
-
     OrderResponse retryCreateGhnOrder(UUID orderId, UUID accountId);
 
     OrderResponse setGhnOrderCodeManually(UUID orderId, String ghnOrderCode, UUID accountId);
@@ -16,6 +16,7 @@ import com.marketplace.ecommerce.order.repository.OrderItemsRepository;
 import com.marketplace.ecommerce.order.repository.OrderRepository;
 import com.marketplace.ecommerce.order.service.CheckoutService;
 import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.shipping.entity.ShippingQuote;
 import com.marketplace.ecommerce.shipping.service.ShippingService;
 import com.marketplace.ecommerce.shipping.usecase.GHNClient;
 import com.marketplace.ecommerce.shop.entity.Shop;
@@ -40,7 +41,7 @@ public class CheckoutServiceImpl implements CheckoutService {
     private final ShippingService shippingService;
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public QuoteResponse quote(UUID accountId, QuoteRequest req) {
         User user = userRepository.findByAccountId(accountId)
                 .orElseThrow(() -> new CustomException("User not found."));
@@ -65,16 +66,18 @@ public class CheckoutServiceImpl implements CheckoutService {
                 .map(i -> i.getProduct().getBasePrice().multiply(BigDecimal.valueOf(i.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        BigDecimal shippingFee = shippingService.quoteFee(shop, items, addr.getDistrictId(), addr.getWardCode());
+        ShippingQuote quote = shippingService.issueQuote(accountId, shop, items, addr.getDistrictId(), addr.getWardCode());
 
         QuoteResponse res = new QuoteResponse();
-        res.setShippingFee(shippingFee);
-        res.setTotal(subtotal.add(shippingFee));
+        res.setQuoteId(quote.getId());
+        res.setQuoteExpiresAt(quote.getExpiresAt());
+        res.setShippingFee(quote.getFee());
+        res.setTotal(subtotal.add(quote.getFee()));
         return res;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public CheckoutConfirmResponse confirm(UUID accountId, UUID shopId) {
         User user = userRepository.findByAccountId(accountId)
                 .orElseThrow(() -> new CustomException("User not found."));
@@ -100,12 +103,14 @@ public class CheckoutServiceImpl implements CheckoutService {
                 .or(() -> userAddressRepository.findLastUsed(user.getId()))
                 .orElse(null);
 
-        BigDecimal shippingFee = BigDecimal.ZERO;
-        if (addr != null) {
-            shippingFee = shippingService.quoteFee(shop, items, addr.getDistrictId(), addr.getWardCode());
+        if (addr == null) {
+            return CheckoutConfirmResponse.of(null, items, subtotal, BigDecimal.ZERO);
         }
 
-        return CheckoutConfirmResponse.of(addr, items, subtotal, shippingFee);
+        ShippingQuote quote = shippingService.issueQuote(accountId, shop, items, addr.getDistrictId(), addr.getWardCode());
+        CheckoutConfirmResponse res = CheckoutConfirmResponse.of(addr, items, subtotal, quote.getFee());
+        res.setQuoteId(quote.getId());
+        return res;
     }
 
 }
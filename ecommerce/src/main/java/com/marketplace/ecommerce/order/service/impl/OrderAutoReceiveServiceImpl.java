@@ -0,0 +1,153 @@
+package com.marketplace.ecommerce.order.service.impl;
+
+import com.marketplace.ecommerce.order.entity.Order;
+import com.marketplace.ecommerce.order.repository.OrderRepository;
+import com.marketplace.ecommerce.order.service.OrderAutoReceiveService;
+import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.payment.service.EscrowService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Job tự nhận hàng: các worker lấy đơn theo chunk (keyset trên id, {@code for update skip locked}) nên
+ * nhiều worker và nhiều instance chạy cùng lúc không xử lý trùng đơn. Mỗi chunk là một transaction;
+ * chunk lỗi thì làm lại từng đơn trong transaction riêng để một đơn hỏng không kéo cả chunk.
+ */
+@Slf4j
+@Service
+public class OrderAutoReceiveServiceImpl implements OrderAutoReceiveService {
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final OrderRepository orderRepository;
+    private final EscrowService escrowService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Duration receiveAfter;
+    private final int chunkSize;
+    private final int workers;
+    private final AtomicInteger processedInRun = new AtomicInteger();
+
+    public OrderAutoReceiveServiceImpl(OrderRepository orderRepository,
+                                       EscrowService escrowService,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${order.auto-receive.after:3d}") Duration receiveAfter,
+                                       @Value("${order.auto-receive.chunk-size:100}") int chunkSize,
+                                       @Value("${order.auto-receive.workers:4}") int workers) {
+        this.orderRepository = orderRepository;
+        this.escrowService = escrowService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.receiveAfter = receiveAfter;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.workers = Math.max(1, workers);
+        // Số đơn đã xử lý trong lượt chạy gần nhất, reset về 0 đầu mỗi lượt
+        meterRegistry.gauge("order.auto_receive.processed", processedInRun);
+    }
+
+    @Override
+    @Scheduled(cron = "${order.auto-receive.cron:0 0 * * * *}")
+    public void autoReceiveDeliveredOrders() {
+        LocalDateTime threshold = LocalDateTime.now().minus(receiveAfter);
+        processedInRun.set(0);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().factory())) {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> drain(threshold, completed, failed));
+            }
+        }
+        sample.stop(meterRegistry.timer("order.auto_receive.run"));
+
+        if (completed.get() > 0 || failed.get() > 0) {
+            log.info("Auto receive: {} orders completed, {} failed", completed.get(), failed.get());
+        }
+    }
+
+    // Mỗi worker đi keyset riêng; đơn đã xong rời khỏi điều kiện lọc, đơn lỗi bị cursor vượt qua tới lần chạy sau
+    private void drain(LocalDateTime threshold, AtomicInteger completed, AtomicInteger failed) {
+        UUID cursor = MIN_UUID;
+        while (true) {
+            List<UUID> chunk = new ArrayList<>();
+            UUID after = cursor;
+            try {
+                Integer done = transactionTemplate.execute(status -> {
+                    chunk.addAll(orderRepository.lockAutoReceivable(
+                            OrderStatus.DELIVERED.name(), threshold, after, chunkSize));
+                    int n = 0;
+                    for (UUID orderId : chunk) {
+                        if (receiveAndRelease(orderId)) n++;
+                    }
+                    return n;
+                });
+                record(done == null ? 0 : done, 0, completed, failed);
+            } catch (Exception e) {
+                log.warn("Auto receive chunk after {} failed, retrying orders one by one: {}", after, e.getMessage());
+                retryOneByOne(chunk, completed, failed);
+            }
+
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            cursor = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    private void retryOneByOne(List<UUID> orderIds, AtomicInteger completed, AtomicInteger failed) {
+        for (UUID orderId : orderIds) {
+            try {
+                Boolean done = transactionTemplate.execute(status -> receiveAndRelease(orderId));
+                record(Boolean.TRUE.equals(done) ? 1 : 0, 0, completed, failed);
+            } catch (Exception e) {
+                log.warn("Auto receive failed for orderId={}: {}", orderId, e.getMessage());
+                record(0, 1, completed, failed);
+            }
+        }
+    }
+
+    private boolean receiveAndRelease(UUID orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+        if (order == null || order.isReceivedByBuyer() || order.getStatus() != OrderStatus.DELIVERED) {
+            return false;
+        }
+
+        // releaseByOrder yêu cầu đơn còn DELIVERED nên release trước rồi mới chuyển COMPLETED
+        escrowService.releaseByOrder(order.getId());
+        order.setReceivedByBuyer(true);
+        order.setReceivedAt(LocalDateTime.now());
+        order.setStatus(OrderStatus.COMPLETED);
+        orderRepository.save(order);
+
+        log.info("Auto received + released order {}", order.getOrderNumber());
+        return true;
+    }
+
+    private void record(int done, int error, AtomicInteger completed, AtomicInteger failed) {
+        if (done > 0) {
+            completed.addAndGet(done);
+            meterRegistry.counter("order.auto_receive.orders", "result", "completed").increment(done);
+        }
+        if (error > 0) {
+            failed.addAndGet(error);
+            meterRegistry.counter("order.auto_receive.orders", "result", "failed").increment(error);
+        }
+        processedInRun.addAndGet(done + error);
+    }
+}
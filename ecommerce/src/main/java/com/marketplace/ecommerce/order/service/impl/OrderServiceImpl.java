@@ -20,8 +20,8 @@ import com.marketplace.ecommerce.payment.service.EscrowService;
 import com.marketplace.ecommerce.platform.service.PlatformSettingService;
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.repository.ProductRepository;
-import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
-import com.marketplace.ecommerce.shipping.dto.response.GHNCreateOrderResponse;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import com.marketplace.ecommerce.shipping.service.ShipmentOutboxService;
 import com.marketplace.ecommerce.shipping.service.ShippingService;
 import com.marketplace.ecommerce.shipping.usecase.GHNClient;
 import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
@@ -30,9 +30,7 @@ import com.marketplace.ecommerce.shop.repository.ShopRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -52,11 +50,13 @@ public class OrderServiceImpl implements OrderService {
     private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
     private final OrderItemsRepository orderItemsRepository;
     private final CartItemRepository cartItemRepository;
     private final GHNClient ghnClient;
     private final UserAddressRepository userAddressRepository;
     private final ShippingService shippingService;
+    private final ShipmentOutboxService shipmentOutboxService;
     private final PlatformSettingService platformSettingService;
     private final EscrowService escrowService;
 
@@ -81,8 +81,8 @@ public class OrderServiceImpl implements OrderService {
             throw new CustomException(
                     "GHN shipping order can be created only when status is CONFIRMED/PROCESSING/SHIPPING.");
         }
-        tryCreateGHNOrder(order);
-        order = orderRepository.save(order);
+        // Vận đơn được tạo nền, ghnOrderCode sẽ có sau khi dispatcher gửi xong
+        shipmentOutboxService.enqueueCreateShipment(order);
         return OrderResponse.from(order);
     }
 
@@ -109,46 +109,6 @@ public class OrderServiceImpl implements OrderService {
         return OrderResponse.from(order);
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void autoReceiveAndRelease(UUID orderId) {
-        Order order = orderRepository.findByIdForUpdate(orderId)
-                .orElseThrow(() -> new CustomException("Order not found"));
-
-        if (order.isReceivedByBuyer())
-            return;
-        if (order.getStatus() != OrderStatus.DELIVERED) {
-            return;
-        }
-
-        order.setReceivedByBuyer(true);
-        order.setReceivedAt(LocalDateTime.now());
-        order.setStatus(OrderStatus.COMPLETED);
-        orderRepository.save(order);
-        escrowService.releaseByOrder(order.getId());
-
-        log.info("Auto received + released order {}", order.getOrderNumber());
-    }
-
-    @Transactional
-    @Scheduled(cron = "0 0 * * * *")
-    public void autoMarkReceivedOrders() {
-
-        LocalDateTime threshold = LocalDateTime.now().minusDays(3);
-
-        List<UUID> orderIds = orderRepository
-                .findIdsByStatusAndReceivedByBuyerFalseAndDeliveredAtBefore(
-                        OrderStatus.DELIVERED,
-                        threshold);
-
-        for (UUID orderId : orderIds) {
-            try {
-                autoReceiveAndRelease(orderId);
-            } catch (Exception e) {
-                log.warn("Auto receive failed for orderId={}", orderId, e);
-            }
-        }
-    }
-
     @Override
     @Transactional
     public void markReceivedByBuyer(UUID orderId, UUID accountId) {
@@ -212,6 +172,7 @@ public class OrderServiceImpl implements OrderService {
                     if (p.getQuantity() != null) {
                         p.setQuantity(p.getQuantity() + item.getQuantity());
                         productRepository.save(p);
+                        productCacheService.evict(p.getId());
                     }
                 }
             }
@@ -227,12 +188,12 @@ public class OrderServiceImpl implements OrderService {
         }
 
         if (currentStatus == OrderStatus.PENDING_PAYMENT && newStatus == OrderStatus.CONFIRMED) {
-            tryCreateGHNOrder(order);
+            shipmentOutboxService.enqueueCreateShipment(order);
         }
 
         if ((newStatus == OrderStatus.PROCESSING || newStatus == OrderStatus.SHIPPING)
                 && currentStatus == OrderStatus.CONFIRMED) {
-            tryCreateGHNOrder(order);
+            shipmentOutboxService.enqueueCreateShipment(order);
         }
 
         order.setStatus(newStatus);
@@ -241,20 +202,6 @@ public class OrderServiceImpl implements OrderService {
         return OrderResponse.from(order);
     }
 
-    private void tryCreateGHNOrder(Order order) {
-        if (order.getGhnOrderCode() == null || order.getGhnOrderCode().isEmpty()) {
-            try {
-                GHNCreateOrderRequest ghnRequest = shippingService.build(order);
-                GHNCreateOrderResponse ghnResponse = ghnClient.createOrder(ghnRequest);
-                order.setGhnOrderCode(ghnResponse.getOrderCode());
-            } catch (Exception e) {
-                log.error("Error when create GHN order order {}: {} (district_id={}, ward_code={})",
-                        order.getOrderNumber(), e.getMessage(),
-                        order.getShippingDistrictId(), order.getShippingWardCode());
-            }
-        }
-    }
-
     @Override
     @Transactional
     public OrderResponse convertCartToOrder(UUID accountId, CreateOrderRequest request) {
@@ -279,7 +226,7 @@ public class OrderServiceImpl implements OrderService {
 
         BigDecimal subtotal = getBigDecimal(cartItems);
 
-        BigDecimal shippingFee = shippingService.quoteFee(
+        BigDecimal shippingFee = shippingService.feeForOrder(accountId, request.getQuoteId(),
                 shop, cartItems, addr.getDistrictId(), addr.getWardCode());
 
         String orderNumber = generateOrderNumber();
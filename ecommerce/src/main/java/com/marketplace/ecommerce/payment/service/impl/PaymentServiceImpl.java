@@ -18,6 +18,7 @@ import com.marketplace.ecommerce.payment.valueObjects.PaymentMethod;
 import com.marketplace.ecommerce.payment.valueObjects.PaymentStatus;
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
 import com.marketplace.ecommerce.wallet.service.WalletService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final UserRepository userRepository;
     private final VNPayService vnPayService;
     private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
     private final WalletService walletService;
 
     @Transactional
@@ -70,6 +72,7 @@ public class PaymentServiceImpl implements PaymentService {
                 for (OrderItem item : order.getItems()) {
                     Product p = item.getProduct();
                     p.setQuantity(p.getQuantity() + item.getQuantity());
+                    productCacheService.evict(p.getId());
                 }
                 order.setStockDeducted(false);
             }
@@ -139,6 +142,7 @@ public class PaymentServiceImpl implements PaymentService {
                 throw new CustomException("Not enough stock");
             }
             p.setQuantity(p.getQuantity() - item.getQuantity());
+            productCacheService.evict(p.getId());
         }
         productRepository.saveAll(
                 order.getItems().stream().map(OrderItem::getProduct).distinct().toList()
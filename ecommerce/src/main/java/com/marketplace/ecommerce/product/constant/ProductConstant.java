@@ -1,4 +1,17 @@
 package com.marketplace.ecommerce.product.constant;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 public class ProductConstant {
+    // Mốc chia khoảng giá (VND) cho facet: [0, 100k), [100k, 300k), ..., [5tr, +∞)
+    public static final List<BigDecimal> PRICE_FACET_BOUNDS = List.of(
+            new BigDecimal("100000"),
+            new BigDecimal("300000"),
+            new BigDecimal("500000"),
+            new BigDecimal("1000000"),
+            new BigDecimal("5000000")
+    );
+
+    public static final int TOP_SHOP_FACET_LIMIT = 10;
 }
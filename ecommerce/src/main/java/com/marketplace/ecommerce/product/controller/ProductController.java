@@ -1,7 +1,10 @@
 package com.marketplace.ecommerce.product.controller;
 
 import com.marketplace.ecommerce.product.dto.request.PageQueryRequest;
+import com.marketplace.ecommerce.product.dto.response.CursorPageResponse;
+import com.marketplace.ecommerce.product.dto.response.ProductFacetResponse;
 import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+import com.marketplace.ecommerce.product.service.ProductFacetService;
 import com.marketplace.ecommerce.product.service.QueryProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +18,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ProductController {
     private final QueryProductService queryProductService;
+    private final ProductFacetService productFacetService;
 
     @GetMapping("/{productId}")
     public ProductResponse getPublishedProductById(@PathVariable UUID productId) {
@@ -26,4 +30,14 @@ public class ProductController {
         return queryProductService.getPublishedProducts(req);
     }
 
+    @GetMapping("/facets")
+    public ProductFacetResponse getFacets(@Valid @ModelAttribute PageQueryRequest req) {
+        return productFacetService.getFacets(req);
+    }
+
+    @GetMapping("/cursor")
+    public CursorPageResponse<ProductResponse> getPublishedProductsByCursor(@Valid @ModelAttribute PageQueryRequest req) {
+        return queryProductService.getPublishedProductsByCursor(req);
+    }
+
 }
@@ -2,14 +2,18 @@ package com.marketplace.ecommerce.product.controller;
 
 import com.marketplace.ecommerce.common.CurrentUserInfo;
 import com.marketplace.ecommerce.config.CurrentUser;
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
 import com.marketplace.ecommerce.product.dto.response.ImageUploadResponse;
 import com.marketplace.ecommerce.product.service.ProductImageStorageService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping(version = "1", path = "/product/image")
@@ -34,11 +38,27 @@ public class ProductImageController {
         return ResponseEntity.ok(imageStorageService.uploadMultipleProductImages(files));
     }
 
+    @PostMapping("/presign")
+    public ResponseEntity<PresignedUploadResponse> presignImage(
+            @Valid @RequestBody PresignedUploadRequest request,
+            @CurrentUser CurrentUserInfo user
+    ) {
+        return ResponseEntity.ok(imageStorageService.presignProductImage(user.getAccountId(), request));
+    }
+
+    @PostMapping("/confirm/{uploadId}")
+    public ResponseEntity<ImageUploadResponse> confirmImage(
+            @PathVariable UUID uploadId,
+            @CurrentUser CurrentUserInfo user
+    ) {
+        return ResponseEntity.ok(imageStorageService.confirmProductImage(user.getAccountId(), uploadId));
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> deleteImage(
             @RequestParam("imageUrl") String imageUrl,
             @CurrentUser CurrentUserInfo user
     ) {
-        return imageStorageService.deleteProductImage(imageUrl);
+        return imageStorageService.deleteProductImage(user.getAccountId(), imageUrl);
     }
 }
@@ -4,15 +4,25 @@ import com.marketplace.ecommerce.common.CurrentUserInfo;
 import com.marketplace.ecommerce.config.CurrentUser;
 import com.marketplace.ecommerce.product.dto.request.CreateProductRequest;
 import com.marketplace.ecommerce.product.dto.request.UpdateProductRequest;
+import com.marketplace.ecommerce.product.dto.response.ProductImportResponse;
 import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+import com.marketplace.ecommerce.product.service.ProductBulkService;
 import com.marketplace.ecommerce.product.service.ProductService;
 import com.marketplace.ecommerce.product.service.QueryProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -22,6 +32,7 @@ public class SellerProductController {
 
     private final ProductService productService;
     private final QueryProductService queryProductService;
+    private final ProductBulkService productBulkService;
 
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(
@@ -32,6 +43,29 @@ public class SellerProductController {
         return ResponseEntity.ok(created);
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @CurrentUser CurrentUserInfo u,
+            @RequestParam("file") MultipartFile file
+    ) {
+        return ResponseEntity.ok(productBulkService.importProducts(u.getAccountId(), file));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @CurrentUser CurrentUserInfo u,
+            @RequestParam(defaultValue = "csv") String format
+    ) {
+        boolean jsonl = "jsonl".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(jsonl ? "products.jsonl" : "products.csv")
+                        .build()
+                        .toString())
+                .contentType(jsonl ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                .body(productBulkService.exportProducts(u.getAccountId(), format));
+    }
+
     @GetMapping("/{productId}")
     public ProductResponse getProductById(@PathVariable UUID productId) {
         return queryProductService.getProductById(productId);
@@ -39,12 +73,13 @@ public class SellerProductController {
 
 
     @GetMapping("/by-shop")
-    public List<ProductResponse> getProductsByShop(
+    public Page<ProductResponse> getProductsByShop(
             @CurrentUser CurrentUserInfo u,
-            @RequestParam(required = false) String status
+            @RequestParam(required = false) String status,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
 
-        return queryProductService.getProductsByShopAndStatus(u.getAccountId(), status);
+        return queryProductService.getProductsByShopAndStatus(u.getAccountId(), status, pageable);
     }
 
     @PutMapping("/{productId}")
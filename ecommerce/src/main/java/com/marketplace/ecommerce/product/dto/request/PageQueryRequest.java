@@ -32,7 +32,9 @@ public class PageQueryRequest {
 
     private BigDecimal maxPrice;
 
-    private String sortBy = "createdAt";
+    private String sortBy;
 
     private String sortDir = "desc";
+
+    private String cursor;
 }
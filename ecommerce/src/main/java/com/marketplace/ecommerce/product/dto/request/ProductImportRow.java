@@ -0,0 +1,28 @@
+package com.marketplace.ecommerce.product.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng của file import (CSV hoặc JSONL). {@code category} nhận id hoặc tên category.
+ */
+@Data
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRow {
+    private String sku;
+    private String name;
+    private String description;
+    private BigDecimal basePrice;
+    private Integer stockQuantity;
+    private String category;
+    private Integer weight;
+    private String thumbnailUrl;
+}
@@ -0,0 +1,18 @@
+package com.marketplace.ecommerce.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucketResponse {
+    private UUID id;
+    private String name;
+    private long count;
+}
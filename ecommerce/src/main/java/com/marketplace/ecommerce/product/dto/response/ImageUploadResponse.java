@@ -11,6 +11,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ImageUploadResponse {
     private String imageUrl;
+    private String thumbUrl;
+    private String mediumUrl;
     private String fileName;
     private Long fileSize;
     private String contentType;
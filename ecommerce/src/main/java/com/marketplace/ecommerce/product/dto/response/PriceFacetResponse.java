@@ -0,0 +1,18 @@
+package com.marketplace.ecommerce.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceFacetResponse {
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
@@ -0,0 +1,19 @@
+package com.marketplace.ecommerce.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+    private long total;
+    private List<FacetBucketResponse> categories;
+    private List<PriceFacetResponse> priceRanges;
+    private List<FacetBucketResponse> shops;
+}
@@ -1,6 +1,7 @@
 package com.marketplace.ecommerce.product.dto.response;
 
 import com.marketplace.ecommerce.product.entity.ProductImage;
+import com.marketplace.ecommerce.product.valueObjects.ImageVariant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,14 +18,19 @@ public class ProductImageResponse {
 
     private UUID id;
     private String imageUrl;
+    private String thumbUrl;
+    private String mediumUrl;
     private Boolean isThumbnail;
     private Integer displayOrder;
     private LocalDateTime createdAt;
 
     public static ProductImageResponse from(ProductImage image) {
+        boolean ready = Boolean.TRUE.equals(image.getRenditionsReady());
         return ProductImageResponse.builder()
                 .id(image.getId())
                 .imageUrl(image.getImageUrl())
+                .thumbUrl(ImageVariant.THUMB.urlFor(image.getImageUrl(), ready))
+                .mediumUrl(ImageVariant.MEDIUM.urlFor(image.getImageUrl(), ready))
                 .isThumbnail(image.getIsThumbnail())
                 .displayOrder(image.getDisplayOrder())
                 .createdAt(image.getCreatedAt())
@@ -0,0 +1,16 @@
+package com.marketplace.ecommerce.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportError {
+    private int line;
+    private String sku;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.marketplace.ecommerce.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private int total;
+    private int imported;
+    private int failed;
+    private List<ProductImportError> errors;
+    private boolean errorsTruncated;
+}
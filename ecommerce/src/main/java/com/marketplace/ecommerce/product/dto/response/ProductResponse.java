@@ -1,7 +1,9 @@
 package com.marketplace.ecommerce.product.dto.response;
 
+import com.marketplace.ecommerce.product.entity.ListableProduct;
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.entity.ProductImage;
+import com.marketplace.ecommerce.product.valueObjects.ImageVariant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,6 +29,7 @@ public class ProductResponse {
     private BigDecimal basePrice;
     private Integer quantity;
     private List<ProductImageResponse> images;
+    private String thumbnailUrl;
     private UUID categoryId;
     private String categoryName;
     private LocalDateTime createdAt;
@@ -34,6 +37,10 @@ public class ProductResponse {
 
 
     public static ProductResponse from(Product product) {
+        return from(product, product.getImages());
+    }
+
+    public static ProductResponse from(Product product, Collection<ProductImage> images) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .shopId(product.getShop().getId())
@@ -44,7 +51,12 @@ public class ProductResponse {
                 .status(String.valueOf(product.getStatus()))
                 .basePrice(product.getBasePrice())
                 .quantity(product.getQuantity())
-                .images(mapImages(product.getImages()))
+                .images(mapImages(images))
+                .thumbnailUrl(images == null ? null : images.stream()
+                        .sorted(IMAGE_ORDER)
+                        .map(ProductImage::getImageUrl)
+                        .findFirst()
+                        .orElse(null))
                 .categoryId(product.getProductCategory().getId())
                 .categoryName(product.getProductCategory().getName())
                 .createdAt(product.getCreatedAt())
@@ -52,15 +64,48 @@ public class ProductResponse {
                 .build();
     }
 
-    private static List<ProductImageResponse> mapImages(Set<ProductImage> images) {
+    // Bản listing chỉ mang ảnh thumbnail, đủ cho grid; chi tiết ảnh lấy qua /product/{id}
+    public static ProductResponse from(ListableProduct product) {
+        boolean ready = Boolean.TRUE.equals(product.getThumbnailRenditionsReady());
+        List<ProductImageResponse> images = product.getThumbnailImageId() == null
+                ? Collections.emptyList()
+                : List.of(ProductImageResponse.builder()
+                        .id(product.getThumbnailImageId())
+                        .imageUrl(product.getThumbnailUrl())
+                        .thumbUrl(ImageVariant.THUMB.urlFor(product.getThumbnailUrl(), ready))
+                        .mediumUrl(ImageVariant.MEDIUM.urlFor(product.getThumbnailUrl(), ready))
+                        .isThumbnail(true)
+                        .build());
+
+        return ProductResponse.builder()
+                .id(product.getId())
+                .shopId(product.getShopId())
+                .shopName(product.getShopName())
+                .name(product.getName())
+                .description(product.getDescription())
+                .sku(product.getSku())
+                .status(product.getStatus())
+                .basePrice(product.getBasePrice())
+                .quantity(product.getQuantity())
+                .images(images)
+                .thumbnailUrl(product.getThumbnailUrl())
+                .categoryId(product.getCategoryId())
+                .categoryName(product.getCategoryName())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+
+    private static final Comparator<ProductImage> IMAGE_ORDER = Comparator
+            .comparing(ProductImage::getIsThumbnail, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductImage::getDisplayOrder, Comparator.nullsLast(Integer::compareTo))
+            .thenComparing(ProductImage::getCreatedAt, Comparator.nullsLast(LocalDateTime::compareTo));
+
+    private static List<ProductImageResponse> mapImages(Collection<ProductImage> images) {
         if (images == null || images.isEmpty()) return Collections.emptyList();
 
         return images.stream()
-                .sorted(Comparator
-                        .comparing(ProductImage::getIsThumbnail, Comparator.nullsLast(Comparator.reverseOrder()))
-                        .thenComparing(ProductImage::getDisplayOrder, Comparator.nullsLast(Integer::compareTo))
-                        .thenComparing(ProductImage::getCreatedAt, Comparator.nullsLast(LocalDateTime::compareTo))
-                )
+                .sorted(IMAGE_ORDER)
                 .map(ProductImageResponse::from)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,41 @@
+package com.marketplace.ecommerce.product.entity;
+
+import com.marketplace.ecommerce.product.valueObjects.RenditionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Kết quả sinh bản resize cho một object ảnh gốc. READY thì các key {@code _thumb/_medium} đã có trên MinIO;
+ * FAILED (ảnh hỏng, vượt ngân sách pixel...) thì không thử lại, client dùng ảnh gốc.
+ */
+@Entity
+@Table(name = "image_renditions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageRendition {
+
+    @Id
+    @Column(name = "object_key", length = 255)
+    private String objectKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private RenditionStatus status;
+
+    @Column(name = "source_width")
+    private Integer sourceWidth;
+
+    @Column(name = "source_height")
+    private Integer sourceHeight;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
@@ -0,0 +1,78 @@
+package com.marketplace.ecommerce.product.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bảng đọc đã denormalize cho trang browse: chỉ chứa sản phẩm PUBLISHED, chưa xoá, thuộc
+ * shop ACTIVE có account đang active. Bảng được trigger trong DB cập nhật
+ * (xem ListableProductProjectionInitializer), app chỉ đọc.
+ */
+@Entity
+@Immutable
+@Table(name = "listable_products", indexes = {
+        @Index(name = "idx_listable_products_created_at_id", columnList = "created_at, product_id"),
+        @Index(name = "idx_listable_products_base_price_id", columnList = "base_price, product_id"),
+        @Index(name = "idx_listable_products_name_id", columnList = "name, product_id"),
+        @Index(name = "idx_listable_products_category", columnList = "category_id"),
+        @Index(name = "idx_listable_products_shop", columnList = "shop_id")
+})
+@Getter
+@NoArgsConstructor
+public class ListableProduct {
+
+    @Id
+    @Column(name = "product_id", columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "shop_id", columnDefinition = "uuid", nullable = false)
+    private UUID shopId;
+
+    @Column(name = "shop_name", nullable = false, length = 255)
+    private String shopName;
+
+    @Column(name = "category_id", columnDefinition = "uuid", nullable = false)
+    private UUID categoryId;
+
+    @Column(name = "category_name", nullable = false, length = 255)
+    private String categoryName;
+
+    @Column(name = "name", nullable = false, length = 255)
+    private String name;
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "sku", nullable = false, length = 100)
+    private String sku;
+
+    @Column(name = "status", nullable = false, length = 50)
+    private String status;
+
+    @Column(name = "base_price", nullable = false, precision = 12, scale = 2)
+    private BigDecimal basePrice;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "thumbnail_image_id", columnDefinition = "uuid")
+    private UUID thumbnailImageId;
+
+    @Column(name = "thumbnail_url", length = 255)
+    private String thumbnailUrl;
+
+    @Column(name = "thumbnail_renditions_ready")
+    private Boolean thumbnailRenditionsReady;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
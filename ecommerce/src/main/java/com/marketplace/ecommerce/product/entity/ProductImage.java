@@ -33,6 +33,11 @@ public class ProductImage {
     @Column(name = "is_thumbnail", nullable = false)
     private Boolean isThumbnail = false;
 
+    // Bản thumb/medium đã sinh xong (xem ImageRendition); false thì client nhận URL ảnh gốc
+    @Builder.Default
+    @Column(name = "renditions_ready", nullable = false, columnDefinition = "boolean default false")
+    private Boolean renditionsReady = false;
+
     @Column(name = "display_order")
     private Integer displayOrder = 0; // Thứ tự hiển thị
 
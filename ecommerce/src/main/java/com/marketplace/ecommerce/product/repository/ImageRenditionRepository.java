@@ -0,0 +1,15 @@
+package com.marketplace.ecommerce.product.repository;
+
+import com.marketplace.ecommerce.product.entity.ImageRendition;
+import com.marketplace.ecommerce.product.valueObjects.RenditionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageRenditionRepository extends JpaRepository<ImageRendition, String> {
+
+    boolean existsByObjectKeyAndStatus(String objectKey, RenditionStatus status);
+
+    List<ImageRendition> findByObjectKeyIn(Collection<String> objectKeys);
+}
@@ -0,0 +1,32 @@
+package com.marketplace.ecommerce.product.repository;
+
+import com.marketplace.ecommerce.product.entity.ListableProduct;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Repository
+public interface ListableProductRepository extends JpaRepository<ListableProduct, UUID>, ProductSearchRepository {
+
+    @Query("""
+                select lp
+                from ListableProduct lp
+                where (:categoryId is null or lp.categoryId = :categoryId)
+                  and (:shopId is null or lp.shopId = :shopId)
+                  and (:minPrice is null or lp.basePrice >= :minPrice)
+                  and (:maxPrice is null or lp.basePrice <= :maxPrice)
+            """)
+    Page<ListableProduct> findWithFilters(
+            @Param("categoryId") UUID categoryId,
+            @Param("shopId") UUID shopId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            Pageable pageable
+    );
+}
@@ -2,13 +2,64 @@ package com.marketplace.ecommerce.product.repository;
 
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.entity.ProductImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, UUID> {
     Optional<ProductImage> findByProductAndImageUrl(Product product, String imageUrl);
+
+    @Query("""
+                select i
+                from ProductImage i
+                where i.product.id in :productIds
+            """)
+    List<ProductImage> findAllByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    @Query("select i.imageUrl from ProductImage i where i.product.id = :productId")
+    List<String> findImageUrlsByProductId(@Param("productId") UUID productId);
+
+    @Query("select distinct i.product.id from ProductImage i where i.imageUrl = :imageUrl")
+    List<UUID> findProductIdsByImageUrl(@Param("imageUrl") String imageUrl);
+
+    @Query("select distinct i.product.id from ProductImage i where i.id in :ids")
+    List<UUID> findProductIdsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("""
+                select count(i) > 0
+                from ProductImage i
+                where i.imageUrl = :imageUrl
+                  and i.product.deleted = false
+                  and i.product.shop.user.account.id = :accountId
+            """)
+    boolean existsOwnedBy(@Param("imageUrl") String imageUrl, @Param("accountId") UUID accountId);
+
+    @Query("""
+                select i
+                from ProductImage i
+                where i.renditionsReady = false
+                  and i.id > :after
+                order by i.id
+            """)
+    List<ProductImage> findWithoutRenditionsAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ProductImage i set i.renditionsReady = true where i.imageUrl = :imageUrl and i.renditionsReady = false")
+    int markRenditionsReady(@Param("imageUrl") String imageUrl);
+
+    @Transactional
+    @Modifying
+    @Query("update ProductImage i set i.renditionsReady = true where i.id in :ids and i.renditionsReady = false")
+    int markRenditionsReady(@Param("ids") Collection<UUID> ids);
 }
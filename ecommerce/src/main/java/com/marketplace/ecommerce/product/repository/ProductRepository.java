@@ -10,7 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -50,33 +50,6 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
             """)
     Optional<Product> findPublishedByIdWithDetails(@Param("id") UUID id);
 
-    @Query("""
-                select p
-                from Product p
-                where p.status = 'PUBLISHED'
-                  and p.shop.status = 'ACTIVE'
-                  and p.shop.user.account.isActive = true
-                  and p.deleted = false
-                  and (:categoryId is null or p.productCategory.id = :categoryId)
-                  and (:shopId is null or p.shop.id = :shopId)
-                  and (:minPrice is null or p.basePrice >= :minPrice)
-                  and (:maxPrice is null or p.basePrice <= :maxPrice)
-                  and (
-                       :search is null
-                    or p.name ilike concat('%', cast(:search as string), '%')
-                    or p.description ilike concat('%', cast(:search as string), '%')
-                    or p.sku ilike concat('%', cast(:search as string), '%')
-                  )
-            """)
-    Page<Product> findPublishedProductsWithFilters(
-            @Param("categoryId") UUID categoryId,
-            @Param("shopId") UUID shopId,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            @Param("search") String search,
-            Pageable pageable
-    );
-
     @Query("""
                 select p
                 from Product p
@@ -88,29 +61,32 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
             """)
     Optional<Product> findByIdWithDetails(@Param("id") UUID id);
 
-    @Query("""
-                select distinct p
+    @Query(value = """
+                select p.id
                 from Product p
-                join fetch p.shop s
-                join fetch p.productCategory c
-                left join fetch p.images i
-                where s.id = :shopId
+                where p.shop.id = :shopId
+                  and (:status is null or p.status = :status)
+                  and p.deleted = false
+            """, countQuery = """
+                select count(p)
+                from Product p
+                where p.shop.id = :shopId
+                  and (:status is null or p.status = :status)
                   and p.deleted = false
             """)
-    List<Product> findAllByShopIdWithDetails(@Param("shopId") UUID shopId);
+    Page<UUID> findIdsByShopIdAndStatus(
+            @Param("shopId") UUID shopId,
+            @Param("status") ProductStatus status,
+            Pageable pageable
+    );
 
+    // to-one nên join fetch không làm nhân bản dòng; images được load riêng theo cùng tập id
     @Query("""
-                select distinct p
+                select p
                 from Product p
                 join fetch p.shop s
                 join fetch p.productCategory c
-                left join fetch p.images i
-                where s.id = :shopId
-                  and p.status = :status
-                  and p.deleted = false
+                where p.id in :ids
             """)
-    List<Product> findAllByShopIdAndStatusWithDetails(
-            @Param("shopId") UUID shopId,
-            @Param("status") ProductStatus status
-    );
+    List<Product> findAllWithShopAndCategoryByIdIn(@Param("ids") Collection<UUID> ids);
 }
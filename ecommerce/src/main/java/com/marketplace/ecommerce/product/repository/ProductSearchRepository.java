@@ -0,0 +1,56 @@
+package com.marketplace.ecommerce.product.repository;
+
+import com.marketplace.ecommerce.product.entity.ListableProduct;
+import com.marketplace.ecommerce.product.valueObjects.ProductFacetRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductSearchRepository {
+
+    /**
+     * Full-text search trên {@code listable_products.search_vector} (không dấu, match theo tiền tố),
+     * giữ nguyên các filter category/shop/price. Khi {@code pageable} không có sort thì
+     * kết quả được xếp theo độ liên quan.
+     */
+    Page<ListableProduct> searchPublishedProducts(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Pageable pageable
+    );
+
+    /**
+     * Keyset pagination theo (cột sort, id): lấy tối đa {@code limit} sản phẩm đứng sau
+     * (afterValue, afterId), không chạy count. {@code afterId == null} là trang đầu tiên.
+     */
+    List<ListableProduct> scrollPublishedProducts(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Sort.Order order,
+            Object afterValue,
+            UUID afterId,
+            int limit
+    );
+
+    /**
+     * Đếm số sản phẩm theo category, khoảng giá (ProductConstant.PRICE_FACET_BOUNDS) và shop
+     * cho cùng bộ filter, trong một query GROUPING SETS.
+     */
+    List<ProductFacetRow> countFacets(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice
+    );
+}
@@ -0,0 +1,213 @@
+package com.marketplace.ecommerce.product.repository;
+
+import com.marketplace.ecommerce.product.constant.ProductConstant;
+import com.marketplace.ecommerce.product.entity.ListableProduct;
+import com.marketplace.ecommerce.product.valueObjects.ProductFacetRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "basePrice", "p.base_price",
+            "name", "p.name",
+            "createdAt", "p.created_at"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<ListableProduct> searchPublishedProducts(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Pageable pageable
+    ) {
+        String tsQuery = toPrefixTsQuery(search);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = filterConditions(tsQuery, categoryId, shopId, minPrice, maxPrice, params);
+
+        String sql = "select p.* from listable_products p" + where + orderBy(pageable.getSort());
+        Query query = entityManager.createNativeQuery(sql, ListableProduct.class);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<ListableProduct> content = query.getResultList();
+
+        Query countQuery = entityManager.createNativeQuery("select count(*) from listable_products p" + where);
+        params.forEach(countQuery::setParameter);
+        long total = ((Number) countQuery.getSingleResult()).longValue();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ListableProduct> scrollPublishedProducts(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Sort.Order order,
+            Object afterValue,
+            UUID afterId,
+            int limit
+    ) {
+        String tsQuery = toPrefixTsQuery(search);
+        if (search != null && tsQuery == null) {
+            return List.of();
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = filterConditions(tsQuery, categoryId, shopId, minPrice, maxPrice, params);
+
+        String column = SORT_COLUMNS.get(order.getProperty());
+        String direction = order.isAscending() ? "asc" : "desc";
+        if (afterId != null) {
+            // row comparison chỉ đúng khi cả hai cột cùng chiều sort, nên id luôn đi theo chiều của cột chính
+            where.append(" and (").append(column).append(", p.product_id) ")
+                    .append(order.isAscending() ? ">" : "<")
+                    .append(" (:afterValue, :afterId)");
+            params.put("afterValue", afterValue);
+            params.put("afterId", afterId);
+        }
+
+        String sql = "select p.* from listable_products p" + where + " order by " + column + " " + direction + ", p.product_id " + direction;
+        Query query = entityManager.createNativeQuery(sql, ListableProduct.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    private StringBuilder filterConditions(
+            String tsQuery,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Map<String, Object> params
+    ) {
+        // listable_products chỉ chứa sản phẩm đang bán của shop/account active nên không cần join
+        StringBuilder where = new StringBuilder(" where true");
+        if (tsQuery != null) {
+            where.append(" and p.search_vector @@ to_tsquery('simple', product_search_fold(:tsQuery))");
+            params.put("tsQuery", tsQuery);
+        }
+        if (categoryId != null) {
+            where.append(" and p.category_id = :categoryId");
+            params.put("categoryId", categoryId);
+        }
+        if (shopId != null) {
+            where.append(" and p.shop_id = :shopId");
+            params.put("shopId", shopId);
+        }
+        if (minPrice != null) {
+            where.append(" and p.base_price >= :minPrice");
+            params.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            where.append(" and p.base_price <= :maxPrice");
+            params.put("maxPrice", maxPrice);
+        }
+        return where;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ProductFacetRow> countFacets(
+            String search,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice
+    ) {
+        String tsQuery = toPrefixTsQuery(search);
+        if (search != null && tsQuery == null) {
+            return List.of();
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = filterConditions(tsQuery, categoryId, shopId, minPrice, maxPrice, params);
+
+        String bounds = ProductConstant.PRICE_FACET_BOUNDS.stream()
+                .map(BigDecimal::toPlainString)
+                .collect(Collectors.joining(","));
+
+        // Một lần quét cho cả 3 facet + tổng; grouping() = 0 nghĩa là cột đó thuộc grouping set của dòng
+        String sql = """
+                select case
+                           when grouping(p.category_id) = 0 then 'CATEGORY'
+                           when grouping(b.bucket) = 0 then 'PRICE'
+                           when grouping(p.shop_id) = 0 then 'SHOP'
+                           else 'TOTAL'
+                       end,
+                       coalesce(p.category_id, p.shop_id),
+                       coalesce(p.category_name, p.shop_name),
+                       b.bucket,
+                       count(*)
+                from listable_products p
+                cross join lateral (select width_bucket(p.base_price, array[%s]::numeric[]) as bucket) b
+                """.formatted(bounds)
+                + where
+                + " group by grouping sets ((p.category_id, p.category_name), (b.bucket), (p.shop_id, p.shop_name), ())";
+
+        Query query = entityManager.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(r -> new ProductFacetRow(
+                        (String) r[0],
+                        (UUID) r[1],
+                        (String) r[2],
+                        r[3] == null ? null : ((Number) r[3]).intValue(),
+                        ((Number) r[4]).longValue()))
+                .toList();
+    }
+
+    private String orderBy(Sort sort) {
+        String columns = sort.stream()
+                .filter(o -> SORT_COLUMNS.containsKey(o.getProperty()))
+                .map(o -> SORT_COLUMNS.get(o.getProperty()) + (o.isAscending() ? " asc" : " desc"))
+                .collect(Collectors.joining(", "));
+
+        if (columns.isEmpty()) {
+            columns = "ts_rank_cd(p.search_vector, to_tsquery('simple', product_search_fold(:tsQuery))) desc";
+        }
+        return " order by " + columns + ", p.product_id";
+    }
+
+    // "Áo thun-nam" -> "Áo:* & thun:* & nam:*"; bỏ mọi ký tự đặc biệt để input không phá cú pháp
+    // tsquery, việc bỏ dấu làm ở phía DB bằng product_search_fold
+    static String toPrefixTsQuery(String search) {
+        if (search == null) {
+            return null;
+        }
+        String tsQuery = Arrays.stream(search.split("[^\\p{L}\\p{M}\\p{N}]+"))
+                .filter(token -> !token.isBlank())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
+    }
+}
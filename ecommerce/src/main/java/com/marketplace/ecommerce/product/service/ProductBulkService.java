@@ -0,0 +1,14 @@
+package com.marketplace.ecommerce.product.service;
+
+import com.marketplace.ecommerce.product.dto.response.ProductImportResponse;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+public interface ProductBulkService {
+
+    ProductImportResponse importProducts(UUID accountId, MultipartFile file);
+
+    StreamingResponseBody exportProducts(UUID accountId, String format);
+}
@@ -0,0 +1,16 @@
+package com.marketplace.ecommerce.product.service;
+
+import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ProductCacheService {
+
+    Optional<ProductResponse> getPublishedProduct(UUID productId);
+
+    void evict(UUID productId);
+
+    void evictAll(Collection<UUID> productIds);
+}
@@ -0,0 +1,9 @@
+package com.marketplace.ecommerce.product.service;
+
+import com.marketplace.ecommerce.product.dto.request.PageQueryRequest;
+import com.marketplace.ecommerce.product.dto.response.ProductFacetResponse;
+
+public interface ProductFacetService {
+
+    ProductFacetResponse getFacets(PageQueryRequest req);
+}
@@ -0,0 +1,18 @@
+package com.marketplace.ecommerce.product.service;
+
+public interface ProductImageDerivativeService {
+
+    /**
+     * Đưa việc sinh các bản resize của ảnh gốc vào hàng đợi, không chặn request hiện tại.
+     *
+     * @return false nếu hàng đợi đầy (backfill sẽ thử lại sau)
+     */
+    boolean generateAsync(String objectName);
+
+    /**
+     * Bản thumb/medium của ảnh (public URL hoặc object key) đã sinh xong chưa.
+     */
+    boolean isReady(String imageUrlOrKey);
+
+    void deleteDerivatives(String objectName);
+}
@@ -1,13 +1,18 @@
 package com.marketplace.ecommerce.product.service;
 
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
 import com.marketplace.ecommerce.product.dto.response.ImageUploadResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface ProductImageStorageService {
     ImageUploadResponse uploadProductImage(MultipartFile file);
     List<ImageUploadResponse> uploadMultipleProductImages(MultipartFile[] files);
-    ResponseEntity<Void> deleteProductImage(String imageUrl);
+    PresignedUploadResponse presignProductImage(UUID accountId, PresignedUploadRequest request);
+    ImageUploadResponse confirmProductImage(UUID accountId, UUID uploadId);
+    ResponseEntity<Void> deleteProductImage(UUID accountId, String imageUrl);
 }
@@ -1,8 +1,10 @@
 package com.marketplace.ecommerce.product.service;
 
 import com.marketplace.ecommerce.product.dto.request.PageQueryRequest;
+import com.marketplace.ecommerce.product.dto.response.CursorPageResponse;
 import com.marketplace.ecommerce.product.dto.response.ProductResponse;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.UUID;
@@ -15,7 +17,9 @@ public interface QueryProductService {
 
 //    List<ProductResponse> getAllProductsByShop(UUID shopId);
 
-    List<ProductResponse> getProductsByShopAndStatus(UUID accountId, String status);
+    Page<ProductResponse> getProductsByShopAndStatus(UUID accountId, String status, Pageable pageable);
 
     Page<ProductResponse> getPublishedProducts(PageQueryRequest req);
+
+    CursorPageResponse<ProductResponse> getPublishedProductsByCursor(PageQueryRequest req);
 }
@@ -0,0 +1,480 @@
+package com.marketplace.ecommerce.product.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.auth.entity.User;
+import com.marketplace.ecommerce.auth.repository.UserRepository;
+import com.marketplace.ecommerce.common.CsvReader;
+import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.file.service.BlobStore;
+import com.marketplace.ecommerce.product.dto.request.ProductImportRow;
+import com.marketplace.ecommerce.product.dto.response.ProductImportError;
+import com.marketplace.ecommerce.product.dto.response.ProductImportResponse;
+import com.marketplace.ecommerce.product.entity.ProductCategory;
+import com.marketplace.ecommerce.product.repository.ProductCategoryRepository;
+import com.marketplace.ecommerce.product.service.ProductBulkService;
+import com.marketplace.ecommerce.product.valueObjects.ProductStatus;
+import com.marketplace.ecommerce.shop.entity.Shop;
+import com.marketplace.ecommerce.shop.repository.ShopRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBulkServiceImpl implements ProductBulkService {
+    private static final int CHUNK_SIZE = 1000;
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final List<String> CSV_COLUMNS = List.of(
+            "sku", "name", "description", "basePrice", "stockQuantity", "category", "weight", "thumbnailUrl");
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of(
+            "sku", "name", "basePrice", "stockQuantity", "category");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper om;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final UserRepository userRepository;
+    private final ShopRepository shopRepository;
+    private final BlobStore blobStore;
+
+    @Override
+    public ProductImportResponse importProducts(UUID accountId, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new CustomException("File import không được để trống");
+        }
+        Shop shop = getShopByAccountId(accountId);
+        boolean jsonl = isJsonl(file);
+
+        ImportBatch batch = new ImportBatch(shop.getId(), loadCategories());
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            if (jsonl) {
+                readJsonl(reader, batch);
+            } else {
+                readCsv(reader, batch);
+            }
+        } catch (IOException e) {
+            throw new CustomException("Không đọc được file import: " + e.getMessage());
+        }
+        batch.flush();
+
+        log.info("Imported {}/{} products for shop {}", batch.imported, batch.total, shop.getId());
+        return batch.toResponse();
+    }
+
+    @Override
+    public StreamingResponseBody exportProducts(UUID accountId, String format) {
+        Shop shop = getShopByAccountId(accountId);
+        boolean jsonl = "jsonl".equalsIgnoreCase(format);
+        UUID shopId = shop.getId();
+
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (!jsonl) {
+                writer.write(String.join(",", CSV_COLUMNS));
+                writer.write('\n');
+            }
+
+            // Keyset theo id, mỗi lần một trang nhỏ nên bộ nhớ không phụ thuộc số SKU của shop
+            UUID lastId = null;
+            while (true) {
+                List<ExportRow> page = fetchExportPage(shopId, lastId);
+                for (ExportRow exportRow : page) {
+                    if (jsonl) {
+                        writer.write(om.writeValueAsString(exportRow.row()));
+                    } else {
+                        writeCsv(writer, exportRow.row());
+                    }
+                    writer.write('\n');
+                }
+                writer.flush();
+                if (page.size() < EXPORT_PAGE_SIZE) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).id();
+            }
+        };
+    }
+
+    private void readCsv(BufferedReader reader, ImportBatch batch) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new CustomException("File CSV không có header");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(required.toLowerCase(Locale.ROOT))) {
+                throw new CustomException("File CSV thiếu cột: " + required);
+            }
+        }
+
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            int line = csv.getRecordLine();
+            try {
+                batch.add(line, ProductImportRow.builder()
+                        .sku(column(record, columns, "sku"))
+                        .name(column(record, columns, "name"))
+                        .description(column(record, columns, "description"))
+                        .basePrice(parseDecimal(column(record, columns, "basePrice")))
+                        .stockQuantity(parseInteger(column(record, columns, "stockQuantity")))
+                        .category(column(record, columns, "category"))
+                        .weight(parseInteger(column(record, columns, "weight")))
+                        .thumbnailUrl(column(record, columns, "thumbnailUrl"))
+                        .build());
+            } catch (NumberFormatException e) {
+                batch.reject(line, column(record, columns, "sku"), "Giá trị số không hợp lệ");
+            }
+        }
+    }
+
+    private void readJsonl(BufferedReader reader, ImportBatch batch) throws IOException {
+        String raw;
+        int line = 0;
+        while ((raw = reader.readLine()) != null) {
+            line++;
+            if (raw.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(line, om.readValue(raw, ProductImportRow.class));
+            } catch (JsonProcessingException e) {
+                batch.reject(line, null, "JSON không hợp lệ: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private List<ExportRow> fetchExportPage(UUID shopId, UUID lastId) {
+        String sql = """
+                select p.id, p.sku, p.name, p.description, p.base_price, p.quantity, p.weight,
+                       c.name as category_name, t.image_url
+                from products p
+                join product_categories c on c.id = p.category_id
+                left join lateral (
+                    select i.image_url
+                    from product_images i
+                    where i.product_id = p.id
+                    order by i.is_thumbnail desc, i.display_order nulls last, i.created_at nulls last
+                    limit 1
+                ) t on true
+                where p.shop_id = ?
+                  and p.deleted = false
+                """ + (lastId == null ? "" : " and p.id > ?") + " order by p.id limit ?";
+
+        Object[] args = (lastId == null)
+                ? new Object[]{shopId, EXPORT_PAGE_SIZE}
+                : new Object[]{shopId, lastId, EXPORT_PAGE_SIZE};
+
+        return jdbcTemplate.query(sql, (rs, i) -> new ExportRow(
+                rs.getObject("id", UUID.class),
+                ProductImportRow.builder()
+                        .sku(rs.getString("sku"))
+                        .name(rs.getString("name"))
+                        .description(rs.getString("description"))
+                        .basePrice(rs.getBigDecimal("base_price"))
+                        .stockQuantity(rs.getInt("quantity"))
+                        .category(rs.getString("category_name"))
+                        .weight((Integer) rs.getObject("weight"))
+                        .thumbnailUrl(rs.getString("image_url"))
+                        .build()
+        ), args);
+    }
+
+    private void writeCsv(Writer writer, ProductImportRow row) throws IOException {
+        writer.write(String.join(",",
+                CsvReader.escape(row.getSku()),
+                CsvReader.escape(row.getName()),
+                CsvReader.escape(row.getDescription()),
+                row.getBasePrice() == null ? "" : row.getBasePrice().toPlainString(),
+                row.getStockQuantity() == null ? "" : row.getStockQuantity().toString(),
+                CsvReader.escape(row.getCategory()),
+                row.getWeight() == null ? "" : row.getWeight().toString(),
+                CsvReader.escape(row.getThumbnailUrl())));
+    }
+
+    // Category được nhận diện bằng id hoặc tên (không phân biệt hoa thường)
+    private Map<String, UUID> loadCategories() {
+        Map<String, UUID> categories = new HashMap<>();
+        for (ProductCategory category : productCategoryRepository.findAll()) {
+            categories.put(category.getId().toString(), category.getId());
+            categories.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+        }
+        return categories;
+    }
+
+    private boolean isJsonl(MultipartFile file) {
+        String filename = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        if (filename.endsWith(".jsonl") || filename.endsWith(".ndjson")) {
+            return true;
+        }
+        if (filename.endsWith(".csv")) {
+            return false;
+        }
+        String contentType = file.getContentType() == null ? "" : file.getContentType();
+        if (contentType.contains("ndjson") || contentType.contains("jsonl")) {
+            return true;
+        }
+        if (contentType.contains("csv")) {
+            return false;
+        }
+        throw new CustomException("Chỉ hỗ trợ file .csv hoặc .jsonl");
+    }
+
+    private String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal parseDecimal(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private Shop getShopByAccountId(UUID accountId) {
+        User user = userRepository.findByAccountId(accountId)
+                .orElseThrow(() -> new CustomException("User not found"));
+
+        return shopRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new CustomException("Shop not found"));
+    }
+
+    private record PendingRow(int line, ProductImportRow row, UUID categoryId) {
+    }
+
+    private record ExportRow(UUID id, ProductImportRow row) {
+    }
+
+    /**
+     * Gom các dòng hợp lệ thành chunk, kiểm tra SKU theo lô và insert bằng JDBC batch,
+     * mỗi chunk một transaction.
+     */
+    private class ImportBatch {
+        private final UUID shopId;
+        private final Map<String, UUID> categories;
+        private final Set<String> seenSkus = new HashSet<>();
+        private final List<PendingRow> pending = new ArrayList<>(CHUNK_SIZE);
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private int total;
+        private int imported;
+        private int failed;
+
+        ImportBatch(UUID shopId, Map<String, UUID> categories) {
+            this.shopId = shopId;
+            this.categories = categories;
+        }
+
+        void add(int line, ProductImportRow row) {
+            total++;
+            if (row.getSku() != null) {
+                row.setSku(row.getSku().trim());
+            }
+            if (row.getName() != null) {
+                row.setName(row.getName().trim());
+            }
+
+            String error = validate(row);
+            if (error != null) {
+                rejectCounted(line, row.getSku(), error);
+                return;
+            }
+            if (!seenSkus.add(row.getSku())) {
+                rejectCounted(line, row.getSku(), "SKU bị trùng trong file");
+                return;
+            }
+
+            UUID categoryId = categories.get(row.getCategory().trim().toLowerCase(Locale.ROOT));
+            pending.add(new PendingRow(line, row, categoryId));
+            if (pending.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(int line, String sku, String message) {
+            total++;
+            rejectCounted(line, sku, message);
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingRow> chunk = new ArrayList<>(pending);
+            pending.clear();
+
+            Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                    "select sku from products where sku in (:skus)",
+                    Map.of("skus", chunk.stream().map(p -> p.row().getSku()).toList()),
+                    String.class));
+
+            List<PendingRow> toInsert = new ArrayList<>(chunk.size());
+            for (PendingRow row : chunk) {
+                if (existing.contains(row.row().getSku())) {
+                    rejectCounted(row.line(), row.row().getSku(), "SKU already exists: " + row.row().getSku());
+                } else {
+                    toInsert.add(row);
+                }
+            }
+            if (toInsert.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<PendingRow> expired = transactionTemplate.execute(status -> insert(toInsert));
+                for (PendingRow row : expired) {
+                    rejectCounted(row.line(), row.row().getSku(), "Uploaded image has expired, please upload it again");
+                }
+                imported += toInsert.size() - expired.size();
+            } catch (DataAccessException e) {
+                log.warn("Bulk import chunk failed for shop {}: {}", shopId, e.getMessage());
+                for (PendingRow row : toInsert) {
+                    rejectCounted(row.line(), row.row().getSku(), "Không lưu được chunk chứa dòng này: "
+                            + e.getMostSpecificCause().getMessage());
+                }
+            } catch (CustomException e) {
+                log.warn("Bulk import chunk failed for shop {}: {}", shopId, e.getMessage());
+                for (PendingRow row : toInsert) {
+                    rejectCounted(row.line(), row.row().getSku(), "Không lưu được chunk chứa dòng này: "
+                            + e.getMessage());
+                }
+            }
+        }
+
+        // Trả về các dòng bị bỏ vì ảnh thumbnail đã hết hạn; các dòng còn lại được insert trong transaction hiện tại
+        private List<PendingRow> insert(List<PendingRow> rows) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> products = new ArrayList<>(rows.size());
+            List<Object[]> images = new ArrayList<>();
+            List<PendingRow> skipped = new ArrayList<>();
+
+            // Kiểm tra ảnh từng dòng trước khi batch: một ảnh hết hạn không được làm rollback cả chunk
+            Set<String> expired = blobStore.lockOrFindExpired(rows.stream()
+                    .map(r -> thumbnailOf(r.row()))
+                    .filter(Objects::nonNull)
+                    .toList());
+
+            for (PendingRow pendingRow : rows) {
+                ProductImportRow row = pendingRow.row();
+                String thumbnail = thumbnailOf(row);
+                if (thumbnail != null && expired.contains(thumbnail)) {
+                    skipped.add(pendingRow);
+                    continue;
+                }
+                UUID productId = UUID.randomUUID();
+                products.add(new Object[]{
+                        productId, shopId, pendingRow.categoryId(), row.getName(), row.getDescription(),
+                        row.getSku(), row.getStockQuantity(), ProductStatus.PUBLISHED.name(), row.getBasePrice(),
+                        row.getWeight() == null ? 500 : row.getWeight(), now, now
+                });
+                if (thumbnail != null) {
+                    blobStore.acquire(thumbnail);
+                    images.add(new Object[]{UUID.randomUUID(), productId, thumbnail, now});
+                }
+            }
+            if (products.isEmpty()) {
+                return skipped;
+            }
+
+            jdbcTemplate.batchUpdate("""
+                    insert into products (id, shop_id, category_id, name, description, sku, quantity, status,
+                                          base_price, weight, deleted, created_at, updated_at)
+                    values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?)
+                    """, products);
+            if (!images.isEmpty()) {
+                jdbcTemplate.batchUpdate("""
+                        insert into product_images (id, product_id, image_url, is_thumbnail, display_order, created_at)
+                        values (?, ?, ?, true, 0, ?)
+                        """, images);
+            }
+            return skipped;
+        }
+
+        private static String thumbnailOf(ProductImportRow row) {
+            String url = row.getThumbnailUrl();
+            return url == null || url.isBlank() ? null : url.trim();
+        }
+
+        private String validate(ProductImportRow row) {
+            if (row.getSku() == null || row.getSku().isBlank()) return "SKU must not be blank";
+            if (row.getSku().length() > 100) return "SKU must not exceed 100 characters";
+            if (row.getName() == null || row.getName().isBlank()) return "Product name must not be blank";
+            if (row.getName().length() > 255) return "Product name must not exceed 255 characters";
+            if (row.getDescription() != null && row.getDescription().length() > 5000)
+                return "Description must not exceed 5000 characters";
+            if (row.getBasePrice() == null || row.getBasePrice().signum() <= 0)
+                return "Base price must be greater than 0";
+            if (row.getBasePrice().scale() > 2 || row.getBasePrice().precision() - row.getBasePrice().scale() > 10)
+                return "Base price format is invalid";
+            if (row.getStockQuantity() == null || row.getStockQuantity() < 0)
+                return "Stock quantity must be greater than or equal to 0";
+            if (row.getWeight() != null && row.getWeight() <= 0) return "Weight must be greater than 0";
+            if (row.getThumbnailUrl() != null && row.getThumbnailUrl().length() > 255)
+                return "Image URL must not exceed 255 characters";
+            if (row.getCategory() == null || row.getCategory().isBlank()) return "Category must not be blank";
+            if (!categories.containsKey(row.getCategory().trim().toLowerCase(Locale.ROOT)))
+                return "Category not found: " + row.getCategory();
+            return null;
+        }
+
+        private void rejectCounted(int line, String sku, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ProductImportError.builder().line(line).sku(sku).message(message).build());
+            }
+        }
+
+        ProductImportResponse toResponse() {
+            return ProductImportResponse.builder()
+                    .total(total)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.marketplace.ecommerce.product.service.impl;
+
+import com.marketplace.ecommerce.common.cache.LocalCache;
+import com.marketplace.ecommerce.common.cache.LocalCacheMetrics;
+import com.marketplace.ecommerce.common.cache.SharedCache;
+import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+import com.marketplace.ecommerce.product.entity.Product;
+import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache 2 tầng cho chi tiết sản phẩm đã publish: LocalCache trong JVM, sau đó SharedCache (nếu có),
+ * cuối cùng mới query findPublishedByIdWithDetails. Chỉ cache kết quả tìm thấy.
+ * Chỉ dùng cho hiển thị: giỏ hàng và checkout luôn đọc giá/tồn kho từ DB.
+ * Ghi qua app (sửa/xoá sản phẩm, tồn kho, bản resize ảnh xong) đều evict. Shop hoặc account bị khoá ngoài app
+ * thì không được báo: tầng local nạp lại từ tầng shared, nên sản phẩm có thể còn hiển thị tới
+ * product.cache.shared.ttl + product.cache.local.ttl (mặc định ~11 phút).
+ */
+@Service
+public class ProductCacheServiceImpl implements ProductCacheService {
+    private static final String RESPONSE_KEY_PREFIX = "product:response:";
+
+    private final ProductRepository productRepository;
+    private final SharedCache sharedCache;
+    private final Duration sharedTtl;
+    private final LocalCache<UUID, ProductResponse> responses;
+
+    public ProductCacheServiceImpl(
+            ProductRepository productRepository,
+            ObjectProvider<SharedCache> sharedCache,
+            MeterRegistry meterRegistry,
+            @Value("${product.cache.local.max-size:10000}") int localMaxSize,
+            @Value("${product.cache.local.ttl:60s}") Duration localTtl,
+            @Value("${product.cache.shared.ttl:10m}") Duration sharedTtl
+    ) {
+        this.productRepository = productRepository;
+        this.sharedCache = sharedCache.getIfAvailable();
+        this.sharedTtl = sharedTtl;
+        this.responses = LocalCacheMetrics.monitor(meterRegistry,
+                new LocalCache<>("product-detail", localMaxSize, localTtl));
+    }
+
+    @Override
+    public Optional<ProductResponse> getPublishedProduct(UUID productId) {
+        return get(productId, responses, RESPONSE_KEY_PREFIX, ProductResponse.class, ProductResponse::from);
+    }
+
+    @Override
+    public void evict(UUID productId) {
+        evictAll(List.of(productId));
+    }
+
+    @Override
+    public void evictAll(Collection<UUID> productIds) {
+        List<UUID> ids = List.copyOf(productIds);
+        evictNow(ids);
+
+        // Xoá thêm lần nữa sau commit để request đọc song song không nạp lại dữ liệu cũ
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(ids);
+                }
+            });
+        }
+    }
+
+    private void evictNow(List<UUID> productIds) {
+        for (UUID productId : productIds) {
+            responses.invalidate(productId);
+            if (sharedCache != null) {
+                sharedCache.evict(RESPONSE_KEY_PREFIX + productId);
+            }
+        }
+    }
+
+    private <T> Optional<T> get(
+            UUID productId,
+            LocalCache<UUID, T> local,
+            String sharedPrefix,
+            Class<T> type,
+            Function<Product, T> mapper
+    ) {
+        T cached = local.getIfPresent(productId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        if (sharedCache != null) {
+            Optional<T> shared = sharedCache.get(sharedPrefix + productId, type);
+            if (shared.isPresent()) {
+                local.put(productId, shared.get());
+                return shared;
+            }
+        }
+
+        Optional<T> loaded = productRepository.findPublishedByIdWithDetails(productId).map(mapper);
+        loaded.ifPresent(value -> {
+            local.put(productId, value);
+            if (sharedCache != null) {
+                sharedCache.put(sharedPrefix + productId, value, sharedTtl);
+            }
+        });
+        return loaded;
+    }
+}
@@ -0,0 +1,122 @@
+package com.marketplace.ecommerce.product.service.impl;
+
+import com.marketplace.ecommerce.common.cache.LocalCache;
+import com.marketplace.ecommerce.common.cache.LocalCacheMetrics;
+import com.marketplace.ecommerce.product.constant.ProductConstant;
+import com.marketplace.ecommerce.product.dto.request.PageQueryRequest;
+import com.marketplace.ecommerce.product.dto.response.FacetBucketResponse;
+import com.marketplace.ecommerce.product.dto.response.PriceFacetResponse;
+import com.marketplace.ecommerce.product.dto.response.ProductFacetResponse;
+import com.marketplace.ecommerce.product.repository.ListableProductRepository;
+import com.marketplace.ecommerce.product.service.ProductFacetService;
+import com.marketplace.ecommerce.product.valueObjects.ProductFacetRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+    private final ListableProductRepository listableProductRepository;
+    private final LocalCache<String, ProductFacetResponse> cache;
+
+    public ProductFacetServiceImpl(
+            ListableProductRepository listableProductRepository,
+            MeterRegistry meterRegistry,
+            @Value("${product.facet.cache.max-size:2000}") int maxSize,
+            @Value("${product.facet.cache.ttl:30s}") Duration ttl
+    ) {
+        this.listableProductRepository = listableProductRepository;
+        this.cache = LocalCacheMetrics.monitor(meterRegistry, new LocalCache<>("product-facets", maxSize, ttl));
+    }
+
+    @Override
+    public ProductFacetResponse getFacets(PageQueryRequest req) {
+        String search = (req.getSearch() == null || req.getSearch().isBlank())
+                ? null
+                : req.getSearch().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+
+        String key = cacheKey(search, req.getCategoryId(), req.getShopId(), req.getMinPrice(), req.getMaxPrice());
+        ProductFacetResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<ProductFacetRow> rows = listableProductRepository.countFacets(
+                search,
+                req.getCategoryId(),
+                req.getShopId(),
+                req.getMinPrice(),
+                req.getMaxPrice()
+        );
+
+        ProductFacetResponse response = toResponse(rows);
+        cache.put(key, response);
+        return response;
+    }
+
+    private ProductFacetResponse toResponse(List<ProductFacetRow> rows) {
+        long total = 0;
+        List<FacetBucketResponse> categories = new ArrayList<>();
+        List<FacetBucketResponse> shops = new ArrayList<>();
+        long[] priceCounts = new long[ProductConstant.PRICE_FACET_BOUNDS.size() + 1];
+
+        for (ProductFacetRow row : rows) {
+            switch (row.type()) {
+                case "CATEGORY" -> categories.add(toBucket(row));
+                case "SHOP" -> shops.add(toBucket(row));
+                case "PRICE" -> priceCounts[row.priceBucket()] = row.count();
+                default -> total = row.count();
+            }
+        }
+
+        Comparator<FacetBucketResponse> byCount = Comparator.comparingLong(FacetBucketResponse::getCount).reversed();
+        categories.sort(byCount);
+        shops.sort(byCount);
+
+        return ProductFacetResponse.builder()
+                .total(total)
+                .categories(categories)
+                .priceRanges(toPriceRanges(priceCounts))
+                .shops(shops.subList(0, Math.min(shops.size(), ProductConstant.TOP_SHOP_FACET_LIMIT)))
+                .build();
+    }
+
+    // width_bucket trả 0 cho giá < mốc đầu, i cho [bounds[i-1], bounds[i]), n cho giá >= mốc cuối
+    private List<PriceFacetResponse> toPriceRanges(long[] priceCounts) {
+        List<BigDecimal> bounds = ProductConstant.PRICE_FACET_BOUNDS;
+        List<PriceFacetResponse> ranges = new ArrayList<>();
+        for (int i = 0; i < priceCounts.length; i++) {
+            ranges.add(PriceFacetResponse.builder()
+                    .min(i == 0 ? BigDecimal.ZERO : bounds.get(i - 1))
+                    .max(i == bounds.size() ? null : bounds.get(i))
+                    .count(priceCounts[i])
+                    .build());
+        }
+        return ranges;
+    }
+
+    private FacetBucketResponse toBucket(ProductFacetRow row) {
+        return FacetBucketResponse.builder()
+                .id(row.id())
+                .name(row.name())
+                .count(row.count())
+                .build();
+    }
+
+    private String cacheKey(String search, UUID categoryId, UUID shopId, BigDecimal minPrice, BigDecimal maxPrice) {
+        return String.join("|",
+                String.valueOf(search),
+                String.valueOf(categoryId),
+                String.valueOf(shopId),
+                minPrice == null ? "null" : minPrice.stripTrailingZeros().toPlainString(),
+                maxPrice == null ? "null" : maxPrice.stripTrailingZeros().toPlainString());
+    }
+}
@@ -0,0 +1,375 @@
+package com.marketplace.ecommerce.product.service.impl;
+
+import com.marketplace.ecommerce.config.MinIOConfig;
+import com.marketplace.ecommerce.file.valueObjects.BlobDeletedEvent;
+import com.marketplace.ecommerce.product.entity.ImageRendition;
+import com.marketplace.ecommerce.product.entity.ProductImage;
+import com.marketplace.ecommerce.product.repository.ImageRenditionRepository;
+import com.marketplace.ecommerce.product.repository.ProductImageRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import com.marketplace.ecommerce.product.service.ProductImageDerivativeService;
+import com.marketplace.ecommerce.product.valueObjects.ImageVariant;
+import com.marketplace.ecommerce.product.valueObjects.RenditionStatus;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Sinh ảnh thumb/medium (JPEG) bằng ImageIO trên một pool worker có giới hạn. Worker tự đọc ảnh gốc
+ * từ MinIO nên hàng đợi chỉ giữ object key, không giữ bytes của request.
+ * <p>
+ * Kết quả được ghi vào image_renditions và bật cờ renditions_ready của product_images; chưa có cờ thì
+ * client nhận URL ảnh gốc. Job backfill quét các ảnh chưa có bản resize (ảnh cũ, lần trước hàng đợi đầy
+ * hoặc MinIO lỗi) và đưa lại vào hàng đợi.
+ */
+@Slf4j
+@Service
+public class ProductImageDerivativeServiceImpl implements ProductImageDerivativeService {
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MinioClient minioClient;
+    private final MinIOConfig minIOConfig;
+    private final ImageRenditionRepository renditions;
+    private final ProductImageRepository productImageRepository;
+    private final ProductCacheService productCacheService;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    private final int backfillBatchSize;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private volatile UUID backfillCursor = MIN_UUID;
+
+    public ProductImageDerivativeServiceImpl(
+            MinioClient minioClient,
+            MinIOConfig minIOConfig,
+            ImageRenditionRepository renditions,
+            ProductImageRepository productImageRepository,
+            ProductCacheService productCacheService,
+            @Value("${product.image.derivative.workers:2}") int workers,
+            @Value("${product.image.derivative.queue-capacity:500}") int queueCapacity,
+            @Value("${product.image.derivative.max-pixels:50000000}") long maxPixels,
+            @Value("${product.image.derivative.backfill-batch-size:200}") int backfillBatchSize
+    ) {
+        this.minioClient = minioClient;
+        this.minIOConfig = minIOConfig;
+        this.renditions = renditions;
+        this.productImageRepository = productImageRepository;
+        this.productCacheService = productCacheService;
+        this.maxPixels = maxPixels;
+        this.backfillBatchSize = Math.max(1, backfillBatchSize);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-derivative-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @Override
+    public boolean generateAsync(String objectName) {
+        if (!ImageVariant.isDerivable(objectName) || !queued.add(objectName)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(objectName);
+                } finally {
+                    queued.remove(objectName);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: client vẫn dùng ảnh gốc, backfill sẽ đưa lại vào hàng đợi
+            queued.remove(objectName);
+            log.warn("Image derivative queue is full, skip {}", objectName);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isReady(String imageUrlOrKey) {
+        String objectKey = ImageVariant.objectKeyOf(imageUrlOrKey);
+        return objectKey != null && renditions.existsByObjectKeyAndStatus(objectKey, RenditionStatus.READY);
+    }
+
+    @Override
+    public void deleteDerivatives(String objectName) {
+        if (!ImageVariant.isDerivable(objectName)) {
+            return;
+        }
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                minioClient.removeObject(RemoveObjectArgs.builder()
+                        .bucket(minIOConfig.getBucketName())
+                        .object(variant.derive(objectName))
+                        .build());
+            } catch (Exception e) {
+                log.warn("Failed to delete derivative {} of {}: {}", variant, objectName, e.getMessage());
+            }
+        }
+        renditions.deleteById(objectName);
+    }
+
+    // Bản resize của blob dùng chung chỉ bị xoá khi blob gốc đã được GC
+    @EventListener
+    public void onBlobDeleted(BlobDeletedEvent event) {
+        deleteDerivatives(event.objectKey());
+    }
+
+    /**
+     * Quét product_images chưa có cờ renditions_ready theo keyset: ảnh đã có bản resize thì bật cờ,
+     * chưa từng sinh thì đưa vào hàng đợi. Dừng khi hàng đợi đầy và lần sau đi tiếp từ chỗ đó.
+     */
+    @Scheduled(fixedDelayString = "${product.image.derivative.backfill-interval:PT5M}",
+            initialDelayString = "${product.image.derivative.backfill-initial-delay:PT1M}")
+    public void backfill() {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            return;
+        }
+
+        UUID cursor = backfillCursor;
+        List<ProductImage> batch = productImageRepository.findWithoutRenditionsAfter(
+                cursor, PageRequest.of(0, backfillBatchSize));
+        if (batch.isEmpty()) {
+            backfillCursor = MIN_UUID;
+            return;
+        }
+
+        Set<String> keys = batch.stream()
+                .map(image -> ImageVariant.objectKeyOf(image.getImageUrl()))
+                .filter(key -> key != null)
+                .collect(Collectors.toSet());
+        Map<String, RenditionStatus> known = renditions.findByObjectKeyIn(keys).stream()
+                .collect(Collectors.toMap(ImageRendition::getObjectKey, ImageRendition::getStatus));
+
+        List<UUID> ready = new ArrayList<>();
+        UUID last = cursor;
+        boolean queueFull = false;
+        for (ProductImage image : batch) {
+            String key = ImageVariant.objectKeyOf(image.getImageUrl());
+            if (key != null) {
+                RenditionStatus status = known.get(key);
+                if (status == RenditionStatus.READY) {
+                    ready.add(image.getId());
+                } else if (status == null && !generateAsync(key)) {
+                    queueFull = true;
+                    break;
+                }
+            }
+            last = image.getId();
+        }
+
+        if (!ready.isEmpty() && productImageRepository.markRenditionsReady(ready) > 0) {
+            productCacheService.evictAll(productImageRepository.findProductIdsByIdIn(ready));
+        }
+        // Hết danh sách thì lượt sau quét lại từ đầu (ảnh vừa sinh xong, ảnh lỗi tạm thời)
+        backfillCursor = (!queueFull && batch.size() < backfillBatchSize) ? MIN_UUID : last;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void generate(String objectName) {
+        try {
+            DecodedImage decoded = decode(objectName);
+            for (ImageVariant variant : ImageVariant.values()) {
+                byte[] bytes = toJpeg(resize(decoded.image(), variant.getMaxSize()));
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(minIOConfig.getBucketName())
+                        .object(variant.derive(objectName))
+                        .stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+                        .contentType("image/jpeg")
+                        .build());
+            }
+            record(objectName, RenditionStatus.READY, decoded.width(), decoded.height(), null);
+            String imageUrl = minIOConfig.publicUrl(objectName);
+            if (productImageRepository.markRenditionsReady(imageUrl) > 0) {
+                // Chi tiết sản phẩm đang cache vẫn trỏ vào ảnh gốc
+                productCacheService.evictAll(productImageRepository.findProductIdsByImageUrl(imageUrl));
+            }
+        } catch (RejectedImageException e) {
+            log.warn("Skip derivatives for {}: {}", objectName, e.getMessage());
+            record(objectName, RenditionStatus.FAILED, e.width, e.height, e.getMessage());
+        } catch (Exception e) {
+            // Lỗi tạm thời (MinIO...): không ghi FAILED để backfill thử lại
+            log.error("Failed to generate derivatives for {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * Đọc kích thước từ header trước khi decode: ảnh vượt ngân sách pixel bị từ chối (PNG vài MB có thể
+     * bung ra BufferedImage nhiều GB), ảnh lớn được decode với subsampling về cỡ đủ cho bản resize lớn nhất.
+     */
+    private DecodedImage decode(String objectName) throws Exception {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minIOConfig.getBucketName())
+                .object(objectName)
+                .build());
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new RejectedImageException("Unsupported image format", null, null);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new RejectedImageException(
+                            "Image exceeds pixel budget: " + width + "x" + height, width, height);
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = subsampling(width, height);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return new DecodedImage(reader.read(0, param), width, height);
+            } catch (IIOException e) {
+                throw new RejectedImageException("Corrupt image: " + e.getMessage(), null, null);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Giữ cạnh dài >= 2 lần bản resize lớn nhất để bước thu nhỏ 1/2 vẫn cho ảnh mịn
+    private static int subsampling(int width, int height) {
+        int largest = 0;
+        for (ImageVariant variant : ImageVariant.values()) {
+            largest = Math.max(largest, variant.getMaxSize());
+        }
+        return Math.max(1, Math.max(width, height) / (largest * 2));
+    }
+
+    private void record(String objectName, RenditionStatus status, Integer width, Integer height, String error) {
+        try {
+            renditions.save(ImageRendition.builder()
+                    .objectKey(objectName)
+                    .status(status)
+                    .sourceWidth(width)
+                    .sourceHeight(height)
+                    .lastError(error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH))
+                    .generatedAt(Instant.now())
+                    .build());
+        } catch (Exception e) {
+            log.warn("Cannot record rendition status for {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    // Thu nhỏ từng bước 1/2 rồi mới về kích thước đích để ảnh không bị răng cưa khi giảm nhiều lần
+    private BufferedImage resize(BufferedImage source, int maxSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        int w = width;
+        int h = height;
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            current = draw(current, w, h);
+        } while (w != targetWidth || h != targetHeight);
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG không có alpha: nền trắng cho ảnh PNG trong suốt
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private record DecodedImage(BufferedImage image, int width, int height) {
+    }
+
+    // Ảnh không thể sinh bản resize (hỏng, định dạng lạ, quá lớn): ghi FAILED, không thử lại
+    private static class RejectedImageException extends Exception {
+        private final Integer width;
+        private final Integer height;
+
+        RejectedImageException(String message, Integer width, Integer height) {
+            super(message);
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
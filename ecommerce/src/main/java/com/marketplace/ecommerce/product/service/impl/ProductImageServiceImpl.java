@@ -1,11 +1,12 @@
 package com.marketplace.ecommerce.product.service.impl;
 
 import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.file.service.BlobStore;
 import com.marketplace.ecommerce.product.dto.request.CreateProductRequest;
 import com.marketplace.ecommerce.product.dto.request.ProductImageRequest;
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.entity.ProductImage;
-import com.marketplace.ecommerce.product.repository.ProductImageRepository;
+import com.marketplace.ecommerce.product.service.ProductImageDerivativeService;
 import com.marketplace.ecommerce.product.service.ProductImageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,9 @@ import java.time.LocalDateTime;
 @Service
 @RequiredArgsConstructor
 public class ProductImageServiceImpl implements ProductImageService {
+    private final ProductImageDerivativeService productImageDerivativeService;
+    private final BlobStore blobStore;
+
     @Override
     public void createProductImage(Product product, CreateProductRequest request) {
         if (request.getImages() == null || request.getImages().isEmpty()) return;
@@ -27,10 +31,12 @@ public class ProductImageServiceImpl implements ProductImageService {
         }
 
         for (ProductImageRequest imageRequest : request.getImages()) {
+            blobStore.acquire(imageRequest.getImageUrl());
             ProductImage image = ProductImage.builder()
                     .product(product)
                     .imageUrl(imageRequest.getImageUrl())
                     .isThumbnail(Boolean.TRUE.equals(imageRequest.getIsThumbnail()))
+                    .renditionsReady(productImageDerivativeService.isReady(imageRequest.getImageUrl()))
                     .createdAt(LocalDateTime.now())
                     .displayOrder(imageRequest.getDisplayOrder() == null ? 0 : imageRequest.getDisplayOrder())
                     .build();
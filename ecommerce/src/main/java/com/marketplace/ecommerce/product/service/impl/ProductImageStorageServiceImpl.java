@@ -2,22 +2,35 @@ package com.marketplace.ecommerce.product.service.impl;
 
 import com.marketplace.ecommerce.common.exception.CustomException;
 import com.marketplace.ecommerce.config.MinIOConfig;
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
+import com.marketplace.ecommerce.file.service.BlobStore;
+import com.marketplace.ecommerce.file.service.PresignedUploadService;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
+import com.marketplace.ecommerce.file.valueObjects.StoredBlob;
+import com.marketplace.ecommerce.file.valueObjects.UploadPurpose;
 import com.marketplace.ecommerce.product.dto.response.ImageUploadResponse;
+import com.marketplace.ecommerce.product.repository.ProductImageRepository;
+import com.marketplace.ecommerce.product.service.ProductImageDerivativeService;
 import com.marketplace.ecommerce.product.service.ProductImageStorageService;
+import com.marketplace.ecommerce.product.valueObjects.ImageVariant;
 import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStream;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Slf4j
 @Service
@@ -26,79 +39,156 @@ public class ProductImageStorageServiceImpl implements ProductImageStorageServic
 
     private final MinioClient minioClient;
     private final MinIOConfig minIOConfig;
+    private final ProductImageDerivativeService productImageDerivativeService;
+    private final PresignedUploadService presignedUploadService;
+    private final BlobStore blobStore;
+    private final ProductImageRepository productImageRepository;
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png", ".webp"};
-    private static final String PRODUCT_IMAGES_FOLDER = "products/";
+
+    @Value("${product.image.upload.parallelism:4}")
+    private int uploadParallelism;
 
     @Override
     public ImageUploadResponse uploadProductImage(MultipartFile file) {
-        try {
-            // 1. Validate file
+        validateFile(file);
+        StoredImage stored = storeOriginal(file);
+
+        // Generate thumb/medium in background (nội dung trùng thì bản resize có thể đã có sẵn)
+        if (!stored.renditionsReady()) {
+            productImageDerivativeService.generateAsync(stored.objectName());
+        }
+        return stored.response();
+    }
+
+    @Override
+    public List<ImageUploadResponse> uploadMultipleProductImages(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            throw new CustomException("No files provided");
+        }
+        for (MultipartFile file : files) {
             validateFile(file);
+        }
 
-            // 2. Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = getFileExtension(originalFilename);
-            String uniqueFileName = PRODUCT_IMAGES_FOLDER + UUID.randomUUID() + extension;
-
-            // 3. Upload to MinIO
-            try (InputStream inputStream = file.getInputStream()) {
-                minioClient.putObject(
-                    PutObjectArgs.builder()
-                        .bucket(minIOConfig.getBucketName())
-                        .object(uniqueFileName)
-                        .stream(inputStream, file.getSize(), -1)
-                        .contentType(file.getContentType())
-                        .build()
-                );
+        // Upload song song trên virtual thread, semaphore giới hạn số request đồng thời tới MinIO
+        Semaphore permits = new Semaphore(Math.max(1, uploadParallelism));
+        List<Future<StoredImage>> futures = new ArrayList<>(files.length);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return storeOriginal(file);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        // Executor đã đóng nên mọi task đều đã xong; giữ đúng thứ tự input
+        List<StoredImage> stored = new ArrayList<>(files.length);
+        Throwable failure = null;
+        for (Future<StoredImage> future : futures) {
+            try {
+                stored.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) failure = e;
             }
+        }
+
+        // Blob đã lưu chưa được gắn vào row nào nên sẽ tự bị sweeper dọn
+        if (failure != null) {
+            throw (failure instanceof CustomException ce)
+                    ? ce
+                    : new CustomException("Failed to upload image: " + failure.getMessage());
+        }
+
+        stored.stream()
+                .filter(image -> !image.renditionsReady())
+                .forEach(image -> productImageDerivativeService.generateAsync(image.objectName()));
+        return stored.stream().map(StoredImage::response).toList();
+    }
 
-            // 4. Return public URL
-            String imageUrl = buildPublicUrl(uniqueFileName);
+    @Override
+    public PresignedUploadResponse presignProductImage(UUID accountId, PresignedUploadRequest request) {
+        return presignedUploadService.issue(accountId, UploadPurpose.PRODUCT_IMAGE, request);
+    }
 
-            return ImageUploadResponse.builder()
+    @Override
+    public ImageUploadResponse confirmProductImage(UUID accountId, UUID uploadId) {
+        FileMetadata metadata = presignedUploadService.confirm(accountId, uploadId, UploadPurpose.PRODUCT_IMAGE);
+        productImageDerivativeService.generateAsync(metadata.fileName());
+
+        // Bản resize chưa có ngay sau khi confirm: trả URL gốc cho cả thumb/medium
+        String imageUrl = buildPublicUrl(metadata.fileName());
+        return ImageUploadResponse.builder()
+                .imageUrl(imageUrl)
+                .thumbUrl(imageUrl)
+                .mediumUrl(imageUrl)
+                .fileName(metadata.fileName())
+                .fileSize(metadata.size())
+                .contentType(metadata.contentType())
+                .build();
+    }
+
+    private StoredImage storeOriginal(MultipartFile file) {
+        try {
+            // Lưu theo SHA-256 nội dung, ảnh trùng dùng chung một object
+            String originalFilename = file.getOriginalFilename();
+            StoredBlob blob = blobStore.store(file);
+
+            // Return public URL
+            String imageUrl = buildPublicUrl(blob.objectKey());
+            boolean ready = blob.deduplicated() && productImageDerivativeService.isReady(blob.objectKey());
+
+            return new StoredImage(blob.objectKey(), ready, ImageUploadResponse.builder()
                     .imageUrl(imageUrl)
+                    .thumbUrl(ImageVariant.THUMB.urlFor(imageUrl, ready))
+                    .mediumUrl(ImageVariant.MEDIUM.urlFor(imageUrl, ready))
                     .fileName(originalFilename)
                     .fileSize(file.getSize())
                     .contentType(file.getContentType())
-                    .build();
+                    .build());
 
+        } catch (CustomException e) {
+            throw e;
         } catch (Exception e) {
             throw new CustomException("Failed to upload image: " + e.getMessage());
         }
     }
 
     @Override
-    public List<ImageUploadResponse> uploadMultipleProductImages(MultipartFile[] files) {
-        if (files == null || files.length == 0) {
-            throw new CustomException("No files provided");
+    public ResponseEntity<Void> deleteProductImage(UUID accountId, String imageUrl) {
+        String objectName = minIOConfig.objectKeyOf(imageUrl);
+        if (objectName == null || objectName.isEmpty()) {
+            return ResponseEntity.noContent().build();
         }
 
-        List<ImageUploadResponse> uploadResponses = Arrays.stream(files)
-                .map(this::uploadProductImage)
-                .collect(Collectors.toList());
+        // Blob dùng chung: tham chiếu do row product/review giữ và trả khi row bị gỡ,
+        // blob chưa gắn vào đâu sẽ bị sweeper dọn nên ở đây không có gì để xoá
+        if (blobStore.contains(imageUrl)) {
+            return ResponseEntity.noContent().build();
+        }
 
-        return uploadResponses;
-    }
+        // Ảnh cũ lưu theo UUID: chỉ chủ sở hữu mới được xoá trực tiếp
+        if (!productImageRepository.existsOwnedBy(imageUrl, accountId)
+                && !presignedUploadService.isConfirmedBy(accountId, objectName)) {
+            throw new CustomException("You don't have permission to delete this image");
+        }
 
-    @Override
-    public ResponseEntity<Void> deleteProductImage(String imageUrl) {
         try {
-            // Extract object name from URL
-            String objectName = extractObjectNameFromUrl(imageUrl);
-            
-            if (objectName == null || objectName.isEmpty()) {
-                return ResponseEntity.noContent().build();
-            }
-
-            // Delete from MinIO
             minioClient.removeObject(
                 RemoveObjectArgs.builder()
                     .bucket(minIOConfig.getBucketName())
                     .object(objectName)
                     .build()
             );
+            productImageDerivativeService.deleteDerivatives(objectName);
 
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
@@ -146,32 +236,9 @@ public class ProductImageStorageServiceImpl implements ProductImageStorageServic
     }
 
     private String buildPublicUrl(String objectName) {
-        // MinIO public URL format: http://minio-url/bucket-name/object-name
-        String baseUrl = minIOConfig.getUrl();
-        // Remove trailing slash if present
-        if (baseUrl.endsWith("/")) {
-            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-        }
-        return String.format("%s/%s/%s", baseUrl, minIOConfig.getBucketName(), objectName);
+        return minIOConfig.publicUrl(objectName);
     }
 
-    private String extractObjectNameFromUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return null;
-        }
-        
-        // Extract object name from URL like: http://localhost:9000/bucket-name/products/uuid.jpg
-        try {
-            String bucketName = minIOConfig.getBucketName();
-            int bucketIndex = imageUrl.indexOf(bucketName);
-            if (bucketIndex == -1) {
-                return null;
-            }
-            
-            String objectName = imageUrl.substring(bucketIndex + bucketName.length() + 1);
-            return objectName;
-        } catch (Exception e) {
-            return null;
-        }
+    private record StoredImage(String objectName, boolean renditionsReady, ImageUploadResponse response) {
     }
 }
@@ -3,13 +3,17 @@ package com.marketplace.ecommerce.product.service.impl;
 import com.marketplace.ecommerce.auth.entity.User;
 import com.marketplace.ecommerce.auth.repository.UserRepository;
 import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.file.service.BlobStore;
 import com.marketplace.ecommerce.product.dto.request.CreateProductRequest;
 import com.marketplace.ecommerce.product.dto.request.UpdateProductRequest;
 import com.marketplace.ecommerce.product.dto.response.ProductResponse;
 import com.marketplace.ecommerce.product.entity.Product;
 import com.marketplace.ecommerce.product.entity.ProductCategory;
 import com.marketplace.ecommerce.product.repository.ProductCategoryRepository;
+import com.marketplace.ecommerce.product.repository.ProductImageRepository;
 import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import com.marketplace.ecommerce.product.service.ProductImageDerivativeService;
 import com.marketplace.ecommerce.product.service.ProductImageService;
 import com.marketplace.ecommerce.product.service.ProductService;
 import com.marketplace.ecommerce.product.valueObjects.ProductStatus;
@@ -31,6 +35,10 @@ public class ProductServiceImpl implements ProductService {
     private final ShopRepository shopRepository;
     private final ProductImageService productImageService;
     private final ProductCategoryRepository productCategoryRepository;
+    private final ProductCacheService productCacheService;
+    private final ProductImageDerivativeService productImageDerivativeService;
+    private final ProductImageRepository productImageRepository;
+    private final BlobStore blobStore;
 
     @Override
     @Transactional
@@ -39,6 +47,8 @@ public class ProductServiceImpl implements ProductService {
         if (updated == 0) {
             throw new CustomException("Product can not found or you don't have permission to delete this product");
         }
+        productImageRepository.findImageUrlsByProductId(productId).forEach(blobStore::release);
+        productCacheService.evict(productId);
     }
 
     @Override
@@ -70,11 +80,13 @@ public class ProductServiceImpl implements ProductService {
         productImageService.createProductImage(product, request);
 
         Product productSaved = productRepository.save(product);
+        productCacheService.evict(productSaved.getId());
 
         return ProductResponse.from(productSaved);
     }
 
     @Override
+    @Transactional
     public ProductResponse updateProduct(UUID accountId, UUID productId, UpdateProductRequest req) {
         Shop shop = getShopByAccountId(accountId);
 
@@ -89,7 +101,10 @@ public class ProductServiceImpl implements ProductService {
         applyCategory(product, req);
         applyImages(product, req);
 
-        return ProductResponse.from(productRepository.save(product));
+        Product productSaved = productRepository.save(product);
+        productCacheService.evict(productSaved.getId());
+
+        return ProductResponse.from(productSaved);
     }
 
     private Shop getShopByAccountId(UUID accountId) {
@@ -162,13 +177,17 @@ public class ProductServiceImpl implements ProductService {
             throw new CustomException("Only one thumbnail image is allowed");
         }
 
+        // Tham chiếu blob tính theo row: trả của các row bị orphanRemoval, giữ cho các row mới
+        product.getImages().forEach(image -> blobStore.release(image.getImageUrl()));
         product.getImages().clear();
 
+        req.getImages().forEach(imgReq -> blobStore.acquire(imgReq.getImageUrl()));
         req.getImages().forEach(imgReq -> product.getImages().add(
                 com.marketplace.ecommerce.product.entity.ProductImage.builder()
                         .product(product)
                         .imageUrl(imgReq.getImageUrl())
                         .isThumbnail(Boolean.TRUE.equals(imgReq.getIsThumbnail()))
+                        .renditionsReady(productImageDerivativeService.isReady(imgReq.getImageUrl()))
                         .displayOrder(imgReq.getDisplayOrder() == null ? 0 : imgReq.getDisplayOrder())
                         .createdAt(LocalDateTime.now())
                         .build()
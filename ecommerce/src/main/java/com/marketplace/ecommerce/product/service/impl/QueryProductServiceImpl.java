@@ -5,10 +5,17 @@ import com.marketplace.ecommerce.auth.repository.UserRepository;
 import com.marketplace.ecommerce.common.QueryUtils;
 import com.marketplace.ecommerce.common.exception.CustomException;
 import com.marketplace.ecommerce.product.dto.request.PageQueryRequest;
+import com.marketplace.ecommerce.product.dto.response.CursorPageResponse;
 import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+import com.marketplace.ecommerce.product.entity.ListableProduct;
 import com.marketplace.ecommerce.product.entity.Product;
+import com.marketplace.ecommerce.product.entity.ProductImage;
+import com.marketplace.ecommerce.product.repository.ListableProductRepository;
+import com.marketplace.ecommerce.product.repository.ProductImageRepository;
 import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
 import com.marketplace.ecommerce.product.service.QueryProductService;
+import com.marketplace.ecommerce.product.valueObjects.ProductCursor;
 import com.marketplace.ecommerce.product.valueObjects.ProductStatus;
 import com.marketplace.ecommerce.shop.entity.Shop;
 import com.marketplace.ecommerce.shop.repository.ShopRepository;
@@ -18,14 +25,23 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class QueryProductServiceImpl implements QueryProductService {
     private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ListableProductRepository listableProductRepository;
+    private final ProductCacheService productCacheService;
     private final ShopRepository shopRepository;
     private final QueryUtils queryUtils;
     private final UserRepository userRepository;
@@ -41,27 +57,93 @@ public class QueryProductServiceImpl implements QueryProductService {
                 ? null
                 : req.getSearch().trim();
 
-        Sort sort = queryUtils.createSort(req.getSortBy(), req.getSortDir());
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Page<ListableProduct> products;
+        if (search == null) {
+            Sort sort = queryUtils.createSort(req.getSortBy(), req.getSortDir());
+            products = listableProductRepository.findWithFilters(
+                    req.getCategoryId(),
+                    req.getShopId(),
+                    req.getMinPrice(),
+                    req.getMaxPrice(),
+                    PageRequest.of(page, size, sort)
+            );
+        } else {
+            // Không chỉ định sortBy khi search -> xếp theo độ liên quan
+            Sort sort = (req.getSortBy() == null || req.getSortBy().isBlank())
+                    ? Sort.unsorted()
+                    : queryUtils.createSort(req.getSortBy(), req.getSortDir());
+            products = listableProductRepository.searchPublishedProducts(
+                    search,
+                    req.getCategoryId(),
+                    req.getShopId(),
+                    req.getMinPrice(),
+                    req.getMaxPrice(),
+                    PageRequest.of(page, size, sort)
+            );
+        }
+
+        return products.map(ProductResponse::from);
+    }
+
+    @Override
+    public CursorPageResponse<ProductResponse> getPublishedProductsByCursor(PageQueryRequest req) {
+        int size = (req.getSize() == null) ? 20 : req.getSize();
+        if (size < 1) size = 20;
+        if (size > 100) size = 100;
+
+        String search = (req.getSearch() == null || req.getSearch().isBlank())
+                ? null
+                : req.getSearch().trim();
+
+        Sort.Order order = queryUtils.createSort(req.getSortBy(), req.getSortDir()).iterator().next();
+
+        Object afterValue = null;
+        UUID afterId = null;
+        if (req.getCursor() != null && !req.getCursor().isBlank()) {
+            ProductCursor cursor = ProductCursor.decode(req.getCursor().trim());
+            if (!cursor.matches(order)) {
+                throw new CustomException("Cursor không khớp với sortBy/sortDir hiện tại");
+            }
+            afterValue = parseCursorValue(order.getProperty(), cursor.value());
+            afterId = cursor.id();
+        }
 
-        Page<Product> products = productRepository.findPublishedProductsWithFilters(
+        List<ListableProduct> products = listableProductRepository.scrollPublishedProducts(
+                search,
                 req.getCategoryId(),
                 req.getShopId(),
                 req.getMinPrice(),
                 req.getMaxPrice(),
-                search,
-                pageable
+                order,
+                afterValue,
+                afterId,
+                size + 1
         );
 
-        return products.map(ProductResponse::from);
+        boolean hasNext = products.size() > size;
+        if (hasNext) {
+            products = products.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            ListableProduct last = products.get(products.size() - 1);
+            nextCursor = new ProductCursor(order.getProperty(), order.getDirection(),
+                    cursorValueOf(order.getProperty(), last), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<ProductResponse>builder()
+                .content(products.stream().map(ProductResponse::from).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
     public ProductResponse getPublishedProductById(UUID productId) {
-        Product product = productRepository.findPublishedByIdWithDetails(productId)
+        return productCacheService.getPublishedProduct(productId)
                 .orElseThrow(() -> new CustomException("Sản phẩm không tồn tại hoặc chưa được xuất bản"));
-
-        return ProductResponse.from(product);
     }
 
     @Override
@@ -73,20 +155,25 @@ public class QueryProductServiceImpl implements QueryProductService {
     }
 
     @Override
-    public List<ProductResponse> getProductsByShopAndStatus(UUID accountId, String status) {
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> getProductsByShopAndStatus(UUID accountId, String status, Pageable pageable) {
         Shop shop = getShopByAccountId(accountId);
 
-        if (status == null || status.isBlank()) {
-            return productRepository.findAllByShopIdWithDetails(shop.getId()).stream()
-                    .map(ProductResponse::from)
-                    .toList();
+        ProductStatus productStatus = (status == null || status.isBlank()) ? null : parseStatus(status);
+
+        // Phase 1: chỉ phân trang trên id, tránh fetch join collection khi phân trang
+        Page<UUID> ids = productRepository.findIdsByShopIdAndStatus(shop.getId(), productStatus, pageable);
+        if (ids.isEmpty()) {
+            return ids.map(id -> null);
         }
 
-        ProductStatus productStatus = parseStatus(status);
+        // Phase 2: 1 query cho product + shop + category, 1 query cho toàn bộ images của trang
+        Map<UUID, Product> products = productRepository.findAllWithShopAndCategoryByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<UUID, List<ProductImage>> images = productImageRepository.findAllByProductIdIn(ids.getContent()).stream()
+                .collect(Collectors.groupingBy(i -> i.getProduct().getId()));
 
-        return productRepository.findAllByShopIdAndStatusWithDetails(shop.getId(), productStatus).stream()
-                .map(ProductResponse::from)
-                .toList();
+        return ids.map(id -> ProductResponse.from(products.get(id), images.getOrDefault(id, List.of())));
     }
 
 
@@ -110,6 +197,26 @@ public class QueryProductServiceImpl implements QueryProductService {
         }
     }
 
+    private String cursorValueOf(String property, ListableProduct product) {
+        return switch (property) {
+            case "basePrice" -> product.getBasePrice().toPlainString();
+            case "name" -> product.getName();
+            default -> product.getCreatedAt().toString();
+        };
+    }
+
+    private Object parseCursorValue(String property, String value) {
+        try {
+            return switch (property) {
+                case "basePrice" -> new BigDecimal(value);
+                case "name" -> value;
+                default -> LocalDateTime.parse(value);
+            };
+        } catch (RuntimeException e) {
+            throw new CustomException("Cursor không hợp lệ");
+        }
+    }
+
     private Shop getShopByAccountId(UUID accountId) {
         User user = userRepository.findByAccountId(accountId)
                 .orElseThrow(() -> new CustomException("User not found"));
@@ -0,0 +1,66 @@
+package com.marketplace.ecommerce.product.valueObjects;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Các bản resize sinh ra từ ảnh gốc sản phẩm. Key của bản resize được suy ra từ key ảnh gốc
+ * ({@code products/<uuid>.png} -> {@code products/<uuid>_thumb.jpg}); việc bản resize đã có hay chưa
+ * được ghi ở bảng image_renditions và cờ {@code renditions_ready} của product_images.
+ */
+public enum ImageVariant {
+    THUMB("_thumb", 256),
+    MEDIUM("_medium", 800);
+
+    // Chỉ ảnh do chính hệ thống upload (products/<uuid> hoặc blobs/ab/cd/<sha256>, đuôi jpg|jpeg|png)
+    // mới có bản resize; ImageIO của JDK không đọc được webp nên webp giữ nguyên bản gốc
+    private static final Pattern DERIVABLE = Pattern.compile(
+            "^(.*?)(products/[0-9a-fA-F-]{36}|blobs/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64})\\.(jpg|jpeg|png)$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String suffix;
+    private final int maxSize;
+
+    ImageVariant(String suffix, int maxSize) {
+        this.suffix = suffix;
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public static boolean isDerivable(String originalKeyOrUrl) {
+        return originalKeyOrUrl != null && DERIVABLE.matcher(originalKeyOrUrl).matches();
+    }
+
+    /**
+     * Object key của ảnh gốc ({@code products/<uuid>.png}) lấy từ public URL hoặc key; null nếu không có bản resize.
+     */
+    public static String objectKeyOf(String originalKeyOrUrl) {
+        if (originalKeyOrUrl == null) {
+            return null;
+        }
+        Matcher matcher = DERIVABLE.matcher(originalKeyOrUrl);
+        return matcher.matches() ? matcher.group(2) + "." + matcher.group(3) : null;
+    }
+
+    /**
+     * Áp dụng được cho cả object key lẫn public URL. Trả về {@code null} nếu ảnh không có bản resize.
+     */
+    public String derive(String originalKeyOrUrl) {
+        if (originalKeyOrUrl == null) {
+            return null;
+        }
+        Matcher matcher = DERIVABLE.matcher(originalKeyOrUrl);
+        return matcher.matches() ? matcher.group(1) + matcher.group(2) + suffix + ".jpg" : null;
+    }
+
+    /**
+     * URL trả cho client: bản resize khi đã sinh xong, ngược lại dùng luôn ảnh gốc để không trả link 404.
+     */
+    public String urlFor(String originalUrl, boolean renditionsReady) {
+        String derived = renditionsReady ? derive(originalUrl) : null;
+        return derived != null ? derived : originalUrl;
+    }
+}
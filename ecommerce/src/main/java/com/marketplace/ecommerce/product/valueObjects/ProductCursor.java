@@ -0,0 +1,34 @@
+package com.marketplace.ecommerce.product.valueObjects;
+
+import com.marketplace.ecommerce.common.exception.CustomException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Vị trí cuối cùng của một trang keyset: (giá trị cột sort, id) của bản ghi cuối.
+ * Client chỉ nhận chuỗi base64 đã encode, không cần biết cấu trúc bên trong.
+ */
+public record ProductCursor(String property, Sort.Direction direction, String value, UUID id) {
+
+    public String encode() {
+        String raw = property + "|" + direction + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            return new ProductCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[3], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new CustomException("Cursor không hợp lệ");
+        }
+    }
+
+    public boolean matches(Sort.Order order) {
+        return property.equals(order.getProperty()) && direction == order.getDirection();
+    }
+}
@@ -0,0 +1,10 @@
+package com.marketplace.ecommerce.product.valueObjects;
+
+import java.util.UUID;
+
+/**
+ * Một dòng kết quả của query GROUPING SETS: {@code type} cho biết dòng thuộc facet nào
+ * (CATEGORY, PRICE, SHOP hoặc TOTAL).
+ */
+public record ProductFacetRow(String type, UUID id, String name, Integer priceBucket, long count) {
+}
@@ -0,0 +1,6 @@
+package com.marketplace.ecommerce.product.valueObjects;
+
+public enum RenditionStatus {
+    READY,
+    FAILED
+}
@@ -2,6 +2,8 @@ package com.marketplace.ecommerce.review.controller;
 
 import com.marketplace.ecommerce.common.CurrentUserInfo;
 import com.marketplace.ecommerce.config.CurrentUser;
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
 import com.marketplace.ecommerce.review.dto.request.CreateReviewRequest;
 import com.marketplace.ecommerce.review.dto.request.UpdateReviewRequest;
 import com.marketplace.ecommerce.review.dto.response.ReviewResponse;
@@ -45,6 +47,14 @@ public class ReviewController {
         return ResponseEntity.ok(res);
     }
 
+    @PostMapping("/images/presign")
+    public ResponseEntity<PresignedUploadResponse> presignImage(
+            @CurrentUser CurrentUserInfo u,
+            @Valid @RequestBody PresignedUploadRequest request
+    ) {
+        return ResponseEntity.ok(reviewService.presignReviewImage(u.getAccountId(), request));
+    }
+
     @PutMapping("/reviews/{reviewId}")
     public ResponseEntity<ReviewResponse> updateReview(
             @CurrentUser CurrentUserInfo u,
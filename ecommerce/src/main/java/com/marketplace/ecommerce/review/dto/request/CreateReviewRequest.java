@@ -23,4 +23,7 @@ public class CreateReviewRequest {
     private String comment;
 
     private List<MultipartFile> images;
+
+    // Ảnh đã upload thẳng lên MinIO qua presigned URL
+    private List<UUID> uploadIds;
 }
\ No newline at end of file
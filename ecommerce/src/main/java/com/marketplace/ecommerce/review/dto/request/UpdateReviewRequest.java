@@ -8,6 +8,7 @@ import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.UUID;
 
 @Data
 public class UpdateReviewRequest {
@@ -19,4 +20,7 @@ public class UpdateReviewRequest {
     private String comment;
 
     private List<MultipartFile> newImages;
+
+    // Ảnh đã upload thẳng lên MinIO qua presigned URL
+    private List<UUID> uploadIds;
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.marketplace.ecommerce.review.service;
 
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
 import com.marketplace.ecommerce.review.dto.request.CreateReviewRequest;
 import com.marketplace.ecommerce.review.dto.request.UpdateReviewRequest;
 import com.marketplace.ecommerce.review.dto.response.ReviewResponse;
@@ -19,4 +21,6 @@ public interface ReviewService {
     Page<ReviewResponse> getProductReviews(UUID productId,  Integer rating,  Boolean hasImages, Pageable pageable);
 
     ReviewResponse getMyReview(UUID accountId, UUID productId, UUID subOrderId);
+
+    PresignedUploadResponse presignReviewImage(UUID accountId, PresignedUploadRequest request);
 }
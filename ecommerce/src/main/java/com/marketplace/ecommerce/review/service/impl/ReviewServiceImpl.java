@@ -3,7 +3,13 @@ package com.marketplace.ecommerce.review.service.impl;
 import com.marketplace.ecommerce.auth.entity.User;
 import com.marketplace.ecommerce.auth.repository.UserRepository;
 import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.file.request.PresignedUploadRequest;
+import com.marketplace.ecommerce.file.response.PresignedUploadResponse;
+import com.marketplace.ecommerce.file.service.BlobStore;
 import com.marketplace.ecommerce.file.service.FileService;
+import com.marketplace.ecommerce.file.service.PresignedUploadService;
+import com.marketplace.ecommerce.file.valueObjects.FileMetadata;
+import com.marketplace.ecommerce.file.valueObjects.UploadPurpose;
 import com.marketplace.ecommerce.order.entity.Order;
 import com.marketplace.ecommerce.order.repository.OrderRepository;
 import com.marketplace.ecommerce.product.entity.Product;
@@ -40,6 +46,8 @@ public class ReviewServiceImpl implements ReviewService {
     private final OrderRepository orderRepository;
     private final ReviewValidation reviewValidation;
     private final FileService fileService;
+    private final PresignedUploadService presignedUploadService;
+    private final BlobStore blobStore;
 
     @Override
     public ReviewResponse getMyReview(UUID accountId, UUID productId, UUID subOrderId) {
@@ -80,6 +88,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         review.setStatus(ReviewStatus.DELETED);
+        review.getImages().forEach(image -> blobStore.release(image.getImageUrl()));
         reviewRepository.save(review);
     }
 
@@ -102,12 +111,14 @@ public class ReviewServiceImpl implements ReviewService {
         review.setRating(request.getRating());
         review.setComment(request.getComment());
         processImages(review, request.getNewImages());
+        attachUploadedImages(accountId, review, request.getUploadIds());
 
         reviewRepository.save(review);
         return ReviewResponse.fromEntity(review);
     }
 
     @Override
+    @Transactional
     public ReviewResponse createReview(UUID accountId, UUID productId, CreateReviewRequest request) {
         UUID orderId = reviewValidation.requireOrderId(request);
 
@@ -137,6 +148,7 @@ public class ReviewServiceImpl implements ReviewService {
                 .build();
 
         processImages(review, request.getImages());
+        attachUploadedImages(accountId, review, request.getUploadIds());
 
         reviewRepository.save(review);
 
@@ -144,24 +156,44 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
 
+    @Override
+    public PresignedUploadResponse presignReviewImage(UUID accountId, PresignedUploadRequest request) {
+        return presignedUploadService.issue(accountId, UploadPurpose.REVIEW_IMAGE, request);
+    }
+
+    private void attachUploadedImages(UUID accountId, Review review, List<UUID> uploadIds) {
+        if (uploadIds == null || uploadIds.isEmpty()) return;
+
+        List<ReviewImage> images = review.getImages();
+        if (images == null) images = new ArrayList<>();
+
+        for (UUID uploadId : uploadIds) {
+            FileMetadata metadata = presignedUploadService.confirm(accountId, uploadId, UploadPurpose.REVIEW_IMAGE);
+            images.add(ReviewImage.builder()
+                    .review(review)
+                    .imageUrl(fileService.getFileUrl(metadata.fileName()))
+                    .displayOrder(images.size())
+                    .build());
+        }
+        review.setImages(images);
+    }
+
     private void processImages(Review review, List<MultipartFile> files) {
         if (files == null || files.isEmpty()) return;
 
         List<ReviewImage> images = review.getImages();
         if (images == null) images = new ArrayList<>();
 
+        // Tham chiếu blob giữ trong transaction của review: rollback thì blob về ref_count 0 và bị sweeper dọn
         for (MultipartFile file : files) {
             if (!file.isEmpty()) {
-                try {
-                    String url = fileService.getFileUrl(fileService.uploadFile(file, "reviews"));
-                    images.add(ReviewImage.builder()
-                            .review(review)
-                            .imageUrl(url)
-                            .displayOrder(images.size())
-                            .build());
-                } catch (Exception e) {
-                    System.err.println("Upload failed: " + e.getMessage());
-                }
+                String url = fileService.getFileUrl(blobStore.store(file).objectKey());
+                blobStore.acquire(url);
+                images.add(ReviewImage.builder()
+                        .review(review)
+                        .imageUrl(url)
+                        .displayOrder(images.size())
+                        .build());
             }
         }
         review.setImages(images);
@@ -5,6 +5,7 @@ import com.marketplace.ecommerce.shipping.dto.response.GHNCalculateFeeResponse;
 import com.marketplace.ecommerce.shipping.dto.response.GHNDistrictResponse;
 import com.marketplace.ecommerce.shipping.dto.response.GHNProvinceResponse;
 import com.marketplace.ecommerce.shipping.dto.response.GHNWardResponse;
+import com.marketplace.ecommerce.shipping.service.GhnMasterDataService;
 import com.marketplace.ecommerce.shipping.usecase.GHNClient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -16,20 +17,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ShippingController {
     private final GHNClient ghnClient;
+    private final GhnMasterDataService masterDataService;
 
     @GetMapping("/provinces")
     public List<GHNProvinceResponse> provinces() {
-        return ghnClient.getProvinces();
+        return masterDataService.getProvinces();
     }
 
     @GetMapping("/districts")
     public List<GHNDistrictResponse> districts(@RequestParam Integer provinceId) {
-        return ghnClient.getDistricts(provinceId);
+        return masterDataService.getDistricts(provinceId);
     }
 
     @GetMapping("/wards")
     public List<GHNWardResponse> wards(@RequestParam Integer districtId) {
-        return ghnClient.getWards(districtId);
+        return masterDataService.getWards(districtId);
     }
 
     @PostMapping("/fee")
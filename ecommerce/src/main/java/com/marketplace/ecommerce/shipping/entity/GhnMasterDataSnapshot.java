@@ -0,0 +1,28 @@
+package com.marketplace.ecommerce.shipping.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Bản sao tỉnh/huyện/xã GHN lần tải thành công gần nhất, dùng khi khởi động lại lúc GHN đang lỗi.
+ */
+@Data
+@Entity
+@Table(name = "ghn_master_data_snapshots")
+public class GhnMasterDataSnapshot extends BaseEntity {
+    @Id
+    @Column(name = "id", length = 32)
+    private String id;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", columnDefinition = "JSONB", nullable = false)
+    private String payload;
+
+    @Column(name = "loaded_at", nullable = false)
+    private Instant loadedAt;
+}
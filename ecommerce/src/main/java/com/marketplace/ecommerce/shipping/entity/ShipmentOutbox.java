@@ -0,0 +1,52 @@
+package com.marketplace.ecommerce.shipping.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import com.marketplace.ecommerce.shipping.valueObjects.ShipmentOutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Yêu cầu tạo vận đơn GHN, ghi cùng transaction với việc đổi trạng thái đơn. Dispatcher nền gửi sang GHN
+ * và ghi ghnOrderCode ngược về đơn. Mỗi đơn chỉ có một dòng.
+ */
+@Data
+@Entity
+@Table(name = "shipment_outbox", indexes = {
+        @Index(name = "idx_shipment_outbox_status_next", columnList = "status, next_attempt_at")
+})
+public class ShipmentOutbox extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private UUID orderId;
+
+    // = orderNumber, GHN dùng client_order_code để nhận biết đơn đã tạo
+    @Column(name = "client_order_code", nullable = false, length = 50)
+    private String clientOrderCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ShipmentOutboxStatus status = ShipmentOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    // Đổi mỗi lần dispatcher nhận dòng; worker chỉ được ghi khi token còn khớp
+    @Column(name = "lease_token")
+    private UUID leaseToken;
+
+    @Column(name = "ghn_order_code", length = 50)
+    private String ghnOrderCode;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
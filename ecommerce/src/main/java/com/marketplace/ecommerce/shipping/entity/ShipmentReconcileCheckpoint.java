@@ -0,0 +1,38 @@
+package com.marketplace.ecommerce.shipping.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Vị trí keyset của lượt đối soát trạng thái GHN hiện tại. Khởi động lại sẽ đi tiếp từ lastOrderId
+ * thay vì quét lại từ đầu; lockedUntil đảm bảo chỉ một instance chạy tại một thời điểm, lockOwner là fencing
+ * token để lần chạy đã mất lease không ghi đè checkpoint của lần chạy mới.
+ */
+@Data
+@Entity
+@Table(name = "shipment_reconcile_checkpoints")
+public class ShipmentReconcileCheckpoint extends BaseEntity {
+    @Id
+    @Column(name = "id", length = 50)
+    private String id;
+
+    // null = bắt đầu lượt mới
+    @Column(name = "last_order_id")
+    private UUID lastOrderId;
+
+    @Column(name = "pass_started_at")
+    private Instant passStartedAt;
+
+    @Column(name = "processed_in_pass", nullable = false)
+    private long processedInPass;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Column(name = "lock_owner")
+    private UUID lockOwner;
+}
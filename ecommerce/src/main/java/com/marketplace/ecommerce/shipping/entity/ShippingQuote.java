@@ -0,0 +1,46 @@
+package com.marketplace.ecommerce.shipping.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Phí ship đã báo cho người mua ở bước checkout. Đơn tạo bằng quoteId còn hạn và cùng route key
+ * sẽ dùng đúng phí này thay vì hỏi lại GHN.
+ */
+@Entity
+@Table(name = "shipping_quotes", indexes = {
+        @Index(name = "idx_shipping_quotes_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_shipping_quotes_account_route", columnList = "account_id, shop_id, route_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShippingQuote extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "account_id", columnDefinition = "uuid", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "shop_id", columnDefinition = "uuid", nullable = false)
+    private UUID shopId;
+
+    @Column(name = "route_key", nullable = false, length = 200)
+    private String routeKey;
+
+    @Column(name = "fee", nullable = false, precision = 12, scale = 2)
+    private BigDecimal fee;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,9 @@
+package com.marketplace.ecommerce.shipping.repository;
+
+import com.marketplace.ecommerce.shipping.entity.GhnMasterDataSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GhnMasterDataSnapshotRepository extends JpaRepository<GhnMasterDataSnapshot, String> {
+}
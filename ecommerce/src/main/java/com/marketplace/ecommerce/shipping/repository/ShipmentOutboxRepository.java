@@ -0,0 +1,38 @@
+package com.marketplace.ecommerce.shipping.repository;
+
+import com.marketplace.ecommerce.shipping.entity.ShipmentOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ShipmentOutboxRepository extends JpaRepository<ShipmentOutbox, UUID> {
+
+    Optional<ShipmentOutbox> findByOrderId(UUID orderId);
+
+    @Query(value = """
+            select * from shipment_outbox
+            where status = 'PENDING' and next_attempt_at <= :now
+            order by next_attempt_at
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<ShipmentOutbox> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Fencing cho worker: update chỉ khớp khi lease chưa bị nhận lại, đồng thời giữ row lock đến hết transaction.
+     */
+    @Modifying
+    @Query(value = """
+            update shipment_outbox set lease_token = :leaseToken
+            where id = :id and lease_token = :leaseToken
+            """, nativeQuery = true)
+    int holdLease(@Param("id") UUID id, @Param("leaseToken") UUID leaseToken);
+}
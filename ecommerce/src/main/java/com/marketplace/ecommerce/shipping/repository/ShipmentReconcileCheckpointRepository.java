@@ -0,0 +1,53 @@
+package com.marketplace.ecommerce.shipping.repository;
+
+import com.marketplace.ecommerce.shipping.entity.ShipmentReconcileCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface ShipmentReconcileCheckpointRepository extends JpaRepository<ShipmentReconcileCheckpoint, String> {
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update ShipmentReconcileCheckpoint c set c.lockedUntil = :until, c.lockOwner = :owner
+            where c.id = :id and (c.lockedUntil is null or c.lockedUntil < :now)
+            """)
+    int tryLock(@Param("id") String id, @Param("owner") UUID owner,
+                @Param("now") Instant now, @Param("until") Instant until);
+
+    // Các update dưới đây chỉ áp dụng khi vẫn còn giữ lease: 0 dòng nghĩa là đã mất lease
+    @Modifying
+    @Transactional
+    @Query("""
+            update ShipmentReconcileCheckpoint c
+            set c.lastOrderId = :cursor, c.processedInPass = c.processedInPass + :processed, c.lockedUntil = :until
+            where c.id = :id and c.lockOwner = :owner and c.lockedUntil >= :now
+            """)
+    int advance(@Param("id") String id, @Param("owner") UUID owner, @Param("cursor") UUID cursor,
+                @Param("processed") long processed, @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update ShipmentReconcileCheckpoint c
+            set c.lastOrderId = null, c.processedInPass = 0, c.passStartedAt = :now
+            where c.id = :id and c.lockOwner = :owner and c.lockedUntil >= :now
+            """)
+    int startNewPass(@Param("id") String id, @Param("owner") UUID owner, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update ShipmentReconcileCheckpoint c set c.lockedUntil = null, c.lockOwner = null
+            where c.id = :id and c.lockOwner = :owner
+            """)
+    int unlock(@Param("id") String id, @Param("owner") UUID owner);
+}
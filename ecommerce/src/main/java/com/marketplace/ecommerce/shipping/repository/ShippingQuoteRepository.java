@@ -0,0 +1,25 @@
+package com.marketplace.ecommerce.shipping.repository;
+
+import com.marketplace.ecommerce.shipping.entity.ShippingQuote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ShippingQuoteRepository extends JpaRepository<ShippingQuote, UUID> {
+
+    Optional<ShippingQuote> findFirstByAccountIdAndShopIdAndRouteKeyAndExpiresAtAfterOrderByExpiresAtDesc(
+            UUID accountId, UUID shopId, String routeKey, Instant after);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ShippingQuote q where q.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,16 @@
+package com.marketplace.ecommerce.shipping.service;
+
+import com.marketplace.ecommerce.shipping.dto.response.GHNDistrictResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNProvinceResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNWardResponse;
+
+import java.util.List;
+
+public interface GhnMasterDataService {
+
+    List<GHNProvinceResponse> getProvinces();
+
+    List<GHNDistrictResponse> getDistricts(Integer provinceId);
+
+    List<GHNWardResponse> getWards(Integer districtId);
+}
@@ -0,0 +1,12 @@
+package com.marketplace.ecommerce.shipping.service;
+
+import com.marketplace.ecommerce.order.entity.Order;
+
+public interface ShipmentOutboxService {
+
+    /**
+     * Ghi yêu cầu tạo vận đơn GHN trong transaction hiện tại của caller. Gọi lại cho cùng đơn sẽ đưa
+     * dòng đã FAILED về PENDING; đơn đã có ghnOrderCode thì bỏ qua.
+     */
+    void enqueueCreateShipment(Order order);
+}
@@ -0,0 +1,9 @@
+package com.marketplace.ecommerce.shipping.service;
+
+public interface ShipmentReconcileService {
+
+    /**
+     * Chạy tiếp lượt đối soát từ checkpoint, tối đa số batch cấu hình cho mỗi lần.
+     */
+    void reconcile();
+}
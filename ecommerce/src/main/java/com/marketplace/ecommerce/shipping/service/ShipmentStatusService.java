@@ -0,0 +1,16 @@
+package com.marketplace.ecommerce.shipping.service;
+
+import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ShipmentStatusService {
+
+    /**
+     * Ghi trạng thái GHN lên đơn và chuyển đơn SHIPPING sang trạng thái cuối khi GHN báo kết thúc:
+     * delivered → DELIVERED; cancel, returned, lost, damage → CANCELLED. Idempotent: trả về trạng thái mới
+     * nếu có chuyển, empty nếu đơn không đổi trạng thái.
+     */
+    Optional<OrderStatus> applyGhnStatus(UUID orderId, String ghnStatus);
+}
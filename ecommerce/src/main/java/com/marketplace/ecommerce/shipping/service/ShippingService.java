@@ -3,14 +3,27 @@ package com.marketplace.ecommerce.shipping.service;
 import com.marketplace.ecommerce.cart.entity.CartItem;
 import com.marketplace.ecommerce.order.entity.Order;
 import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
+import com.marketplace.ecommerce.shipping.entity.ShippingQuote;
 import com.marketplace.ecommerce.shop.entity.Shop;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
 
 public interface ShippingService {
 
     BigDecimal quoteFee(Shop shop, List<CartItem> cartItems, Integer toDistrictId, String toWardCode);
 
+    /**
+     * Báo phí và lưu lại để bước tạo đơn dùng đúng phí đã hiển thị. Quote cùng route còn hạn được dùng lại.
+     */
+    ShippingQuote issueQuote(UUID accountId, Shop shop, List<CartItem> cartItems, Integer toDistrictId, String toWardCode);
+
+    /**
+     * Phí dùng khi tạo đơn: phí của quote, bắt buộc còn hạn và giỏ/địa chỉ không đổi so với lúc báo phí.
+     */
+    BigDecimal feeForOrder(UUID accountId, UUID quoteId, Shop shop, List<CartItem> cartItems,
+                           Integer toDistrictId, String toWardCode);
+
     GHNCreateOrderRequest build(Order order);
 }
@@ -0,0 +1,231 @@
+package com.marketplace.ecommerce.shipping.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.shipping.dto.response.GHNDistrictResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNProvinceResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNWardResponse;
+import com.marketplace.ecommerce.shipping.entity.GhnMasterDataSnapshot;
+import com.marketplace.ecommerce.shipping.repository.GhnMasterDataSnapshotRepository;
+import com.marketplace.ecommerce.shipping.service.GhnMasterDataService;
+import com.marketplace.ecommerce.shipping.usecase.GHNClient;
+import com.marketplace.ecommerce.shipping.valueObjects.GhnMasterData;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Tỉnh/huyện/xã GHN gần như không đổi nên được tải trọn một lần vào bộ nhớ và phục vụ tại chỗ.
+ * Bản cũ hơn max-age vẫn được trả ngay, đồng thời refresh chạy nền (stale-while-revalidate).
+ * Mỗi lần tải thành công được lưu vào Postgres để lần khởi động sau vẫn có dữ liệu khi GHN lỗi.
+ */
+@Slf4j
+@Service
+public class GhnMasterDataServiceImpl implements GhnMasterDataService {
+    private static final String SNAPSHOT_ID = "ghn";
+    private static final int PRELOAD_CONCURRENCY = 4;
+    private static final Duration RETRY_AFTER_FAILURE = Duration.ofMinutes(5);
+    private static final Duration COLD_LOAD_TIMEOUT = Duration.ofMinutes(2);
+
+    private final GHNClient ghnClient;
+    private final GhnMasterDataSnapshotRepository snapshots;
+    private final ObjectMapper om;
+    private final Duration maxAge;
+
+    private final AtomicReference<GhnMasterData> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<GhnMasterData>> refreshing = new AtomicReference<>();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ghn-master-data").daemon().factory());
+    private volatile Instant lastFailureAt;
+
+    public GhnMasterDataServiceImpl(GHNClient ghnClient,
+                                    GhnMasterDataSnapshotRepository snapshots,
+                                    ObjectMapper om,
+                                    @Value("${ghn.master-data.max-age:24h}") Duration maxAge) {
+        this.ghnClient = ghnClient;
+        this.snapshots = snapshots;
+        this.om = om;
+        this.maxAge = maxAge;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        loadSnapshot().ifPresent(current::set);
+        GhnMasterData data = current.get();
+        if (data == null || isStale(data)) {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ghn.master-data.refresh-interval:PT12H}",
+            initialDelayString = "${ghn.master-data.refresh-interval:PT12H}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public List<GHNProvinceResponse> getProvinces() {
+        return data().provinces();
+    }
+
+    @Override
+    public List<GHNDistrictResponse> getDistricts(Integer provinceId) {
+        return data().districtsByProvince().getOrDefault(provinceId, List.of());
+    }
+
+    @Override
+    public List<GHNWardResponse> getWards(Integer districtId) {
+        return data().wardsByDistrict().getOrDefault(districtId, List.of());
+    }
+
+    private GhnMasterData data() {
+        GhnMasterData data = current.get();
+        if (data != null) {
+            if (isStale(data) && !failedRecently()) {
+                refresh();
+            }
+            return data;
+        }
+
+        // Chưa có bản nào (lần đầu chạy, DB trống): phải chờ lượt tải đầu tiên
+        if (failedRecently()) {
+            throw new CustomException("GHN master data is temporarily unavailable");
+        }
+        try {
+            return refresh().get(COLD_LOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("GHN master data is temporarily unavailable");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new CustomException("GHN master data is temporarily unavailable");
+        }
+    }
+
+    // Mỗi instance chỉ có một lượt refresh tại một thời điểm, các caller dùng chung future
+    private CompletableFuture<GhnMasterData> refresh() {
+        CompletableFuture<GhnMasterData> mine = new CompletableFuture<>();
+        CompletableFuture<GhnMasterData> existing = refreshing.compareAndExchange(null, mine);
+        if (existing != null) {
+            return existing;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                GhnMasterData data = fetchAll();
+                current.set(data);
+                lastFailureAt = null;
+                saveSnapshot(data);
+                log.info("Loaded GHN master data: {} provinces, {} districts, {} wards",
+                        data.provinces().size(),
+                        data.districtsByProvince().values().stream().mapToInt(List::size).sum(),
+                        data.wardsByDistrict().values().stream().mapToInt(List::size).sum());
+                mine.complete(data);
+            } catch (Exception e) {
+                lastFailureAt = Instant.now();
+                log.warn("Failed to refresh GHN master data, keep serving previous copy: {}", e.getMessage());
+                mine.completeExceptionally(e);
+            } finally {
+                refreshing.set(null);
+            }
+        });
+        return mine;
+    }
+
+    private GhnMasterData fetchAll() throws Exception {
+        List<GHNProvinceResponse> provinces = nonNull(ghnClient.getProvinces()).stream()
+                .filter(p -> p.getProvinceID() != null)
+                .toList();
+
+        Map<Integer, List<GHNDistrictResponse>> districts = fetchEach(
+                provinces.stream().map(GHNProvinceResponse::getProvinceID).toList(), ghnClient::getDistricts);
+
+        List<Integer> districtIds = districts.values().stream()
+                .flatMap(List::stream)
+                .map(GHNDistrictResponse::getDistrictID)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Integer, List<GHNWardResponse>> wards = fetchEach(districtIds, ghnClient::getWards);
+
+        return new GhnMasterData(provinces, districts, wards, Instant.now());
+    }
+
+    // Lỗi ở bất kỳ id nào làm hỏng cả lượt, để không thay bản đầy đủ bằng bản thiếu
+    private <T> Map<Integer, List<T>> fetchEach(List<Integer> ids,
+                                                Function<Integer, List<T>> loader) throws Exception {
+        Map<Integer, Future<List<T>>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(PRELOAD_CONCURRENCY, Thread.ofVirtual().factory())) {
+            for (Integer id : ids) {
+                futures.put(id, executor.submit(() -> List.copyOf(nonNull(loader.apply(id)))));
+            }
+            Map<Integer, List<T>> result = new HashMap<>(futures.size() * 2);
+            for (Map.Entry<Integer, Future<List<T>>> e : futures.entrySet()) {
+                try {
+                    result.put(e.getKey(), e.getValue().get());
+                } catch (ExecutionException ex) {
+                    futures.values().forEach(f -> f.cancel(true));
+                    throw ex.getCause() instanceof Exception cause ? cause : ex;
+                }
+            }
+            return Map.copyOf(result);
+        }
+    }
+
+    private Optional<GhnMasterData> loadSnapshot() {
+        try {
+            return snapshots.findById(SNAPSHOT_ID)
+                    .map(s -> readPayload(s.getPayload()));
+        } catch (Exception e) {
+            log.warn("Cannot read GHN master data snapshot: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private GhnMasterData readPayload(String payload) {
+        try {
+            return om.readValue(payload, GhnMasterData.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private void saveSnapshot(GhnMasterData data) {
+        try {
+            GhnMasterDataSnapshot snapshot = snapshots.findById(SNAPSHOT_ID).orElseGet(GhnMasterDataSnapshot::new);
+            snapshot.setId(SNAPSHOT_ID);
+            snapshot.setPayload(om.writeValueAsString(data));
+            snapshot.setLoadedAt(data.loadedAt());
+            snapshots.save(snapshot);
+        } catch (Exception e) {
+            log.warn("Cannot persist GHN master data snapshot: {}", e.getMessage());
+        }
+    }
+
+    private boolean isStale(GhnMasterData data) {
+        return data.loadedAt() == null || data.loadedAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private boolean failedRecently() {
+        Instant failedAt = lastFailureAt;
+        return failedAt != null && failedAt.plus(RETRY_AFTER_FAILURE).isAfter(Instant.now());
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
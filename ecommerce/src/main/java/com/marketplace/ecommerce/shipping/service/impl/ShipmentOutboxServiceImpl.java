@@ -0,0 +1,310 @@
+package com.marketplace.ecommerce.shipping.service.impl;
+
+import com.marketplace.ecommerce.common.exception.CustomException;
+import com.marketplace.ecommerce.order.entity.Order;
+import com.marketplace.ecommerce.order.repository.OrderRepository;
+import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
+import com.marketplace.ecommerce.shipping.dto.response.GHNOrderDetailResponse;
+import com.marketplace.ecommerce.shipping.entity.ShipmentOutbox;
+import com.marketplace.ecommerce.shipping.repository.ShipmentOutboxRepository;
+import com.marketplace.ecommerce.shipping.service.ShipmentOutboxService;
+import com.marketplace.ecommerce.shipping.service.ShippingService;
+import com.marketplace.ecommerce.shipping.usecase.GHNClient;
+import com.marketplace.ecommerce.shipping.valueObjects.ShipmentOutboxStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional outbox cho việc tạo vận đơn GHN. Request đổi trạng thái đơn chỉ ghi một dòng outbox;
+ * worker nền nhận dòng bằng {@code for update skip locked}, gọi GHN ngoài mọi transaction rồi ghi
+ * ghnOrderCode về đơn. Trước khi tạo luôn tra theo client_order_code để lần retry sau một lần tạo
+ * thành công nhưng chưa kịp ghi lại không sinh vận đơn thứ hai. Mỗi lần nhận dòng đổi lease token; worker
+ * chạy quá lease (dòng đã bị worker khác nhận lại) không được ghi đè kết quả.
+ */
+@Slf4j
+@Service
+public class ShipmentOutboxServiceImpl implements ShipmentOutboxService {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ShipmentOutboxRepository outbox;
+    private final OrderRepository orderRepository;
+    private final ShippingService shippingService;
+    private final GHNClient ghnClient;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration lease;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ShipmentOutboxServiceImpl(ShipmentOutboxRepository outbox,
+                                     OrderRepository orderRepository,
+                                     ShippingService shippingService,
+                                     GHNClient ghnClient,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${shipping.outbox.workers:2}") int workers,
+                                     @Value("${shipping.outbox.max-attempts:10}") int maxAttempts,
+                                     @Value("${shipping.outbox.backoff-base:30s}") Duration backoffBase,
+                                     @Value("${shipping.outbox.backoff-max:30m}") Duration backoffMax,
+                                     @Value("${shipping.outbox.lease:5m}") Duration lease) {
+        this.outbox = outbox;
+        this.orderRepository = orderRepository;
+        this.shippingService = shippingService;
+        this.ghnClient = ghnClient;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.lease = lease;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "shipment-outbox-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueCreateShipment(Order order) {
+        if (hasGhnCode(order)) {
+            return;
+        }
+
+        ShipmentOutbox row = outbox.findByOrderId(order.getId()).orElseGet(ShipmentOutbox::new);
+        if (row.getId() != null && row.getStatus() == ShipmentOutboxStatus.PENDING) {
+            return;
+        }
+        row.setOrderId(order.getId());
+        row.setClientOrderCode(order.getOrderNumber());
+        row.setStatus(ShipmentOutboxStatus.PENDING);
+        row.setAttempts(0);
+        row.setLastError(null);
+        row.setNextAttemptAt(Instant.now());
+        outbox.save(row);
+    }
+
+    @Scheduled(fixedDelayString = "${shipping.outbox.poll-interval:PT2S}")
+    public void dispatchDue() {
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<Claim> claimed = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<ShipmentOutbox> due = outbox.lockDue(now, capacity);
+            // Giữ dòng trong thời gian lease; worker chết thì dòng tự được nhận lại
+            due.forEach(row -> {
+                row.setNextAttemptAt(now.plus(lease));
+                row.setLeaseToken(UUID.randomUUID());
+            });
+            outbox.saveAll(due);
+            return due.stream().map(row -> new Claim(row.getId(), row.getLeaseToken())).toList();
+        });
+
+        for (Claim claim : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(claim);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Executor đang shutdown: dòng sẽ được nhận lại khi hết lease
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void process(Claim claim) {
+        ShipmentOutbox row = outbox.findById(claim.rowId()).orElse(null);
+        if (row == null || row.getStatus() != ShipmentOutboxStatus.PENDING
+                || !claim.leaseToken().equals(row.getLeaseToken())) {
+            return;
+        }
+
+        try {
+            // Transaction ngắn chỉ để đọc đơn (items/product/shop là lazy), không giữ trong lúc gọi GHN
+            GHNCreateOrderRequest request = transactionTemplate.execute(status -> {
+                Order order = orderRepository.findById(row.getOrderId()).orElse(null);
+                if (order == null || order.getStatus() == OrderStatus.CANCELLED || hasGhnCode(order)) {
+                    return null;
+                }
+                return shippingService.build(order);
+            });
+            if (request == null) {
+                row.setStatus(ShipmentOutboxStatus.DONE);
+                row.setLastError("Skipped: order cancelled, missing or already has a GHN code");
+                persistLeased(row);
+                return;
+            }
+
+            String ghnOrderCode = findExisting(row.getClientOrderCode())
+                    .orElseGet(() -> ghnClient.createOrder(request).getOrderCode());
+            if (ghnOrderCode == null || ghnOrderCode.isBlank()) {
+                throw new IllegalStateException("GHN returned no order_code");
+            }
+            writeBack(row, ghnOrderCode);
+        } catch (LeaseLostException e) {
+            // Worker mới sẽ tìm thấy vận đơn (nếu đã tạo) qua client_order_code
+            log.warn("Shipment outbox {} was reclaimed by another worker, dropping result", row.getId());
+        } catch (Exception e) {
+            onError(row, e);
+        }
+    }
+
+    private Optional<String> findExisting(String clientOrderCode) {
+        try {
+            GHNOrderDetailResponse detail = ghnClient.getOrderDetailByClientCode(clientOrderCode);
+            return Optional.ofNullable(detail)
+                    .map(GHNOrderDetailResponse::getOrder_code)
+                    .filter(code -> !code.isBlank());
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            // GHN trả lỗi nghiệp vụ khi chưa có đơn với client_order_code này
+            return Optional.empty();
+        }
+    }
+
+    private void writeBack(ShipmentOutbox row, String ghnOrderCode) {
+        Boolean orphaned = transactionTemplate.execute(status -> {
+            if (outbox.holdLease(row.getId(), row.getLeaseToken()) == 0) {
+                throw new LeaseLostException();
+            }
+            Order order = orderRepository.findByIdForUpdate(row.getOrderId())
+                    .orElseThrow(() -> new CustomException("Order not found"));
+            boolean keep = !hasGhnCode(order) && order.getStatus() != OrderStatus.CANCELLED;
+            if (keep) {
+                order.setGhnOrderCode(ghnOrderCode);
+                orderRepository.save(order);
+            }
+            row.setGhnOrderCode(ghnOrderCode);
+            row.setStatus(ShipmentOutboxStatus.DONE);
+            row.setLastError(null);
+            outbox.save(row);
+            return !keep && !ghnOrderCode.equals(order.getGhnOrderCode());
+        });
+
+        if (Boolean.TRUE.equals(orphaned)) {
+            // Đơn bị huỷ hoặc seller nhập mã tay trong lúc đang tạo: huỷ vận đơn thừa
+            try {
+                ghnClient.cancelOrder(ghnOrderCode);
+                log.info("Cancelled orphan GHN shipment {} for order {}", ghnOrderCode, row.getClientOrderCode());
+            } catch (Exception e) {
+                log.error("Cannot cancel orphan GHN shipment {} for order {}: {}",
+                        ghnOrderCode, row.getClientOrderCode(), e.getMessage());
+            }
+        } else {
+            log.info("Created GHN shipment {} for order {}", ghnOrderCode, row.getClientOrderCode());
+        }
+    }
+
+    private void onError(ShipmentOutbox row, Exception e) {
+        int attempts = row.getAttempts() + 1;
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        row.setAttempts(attempts);
+        row.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (!isTransient(e) || attempts >= maxAttempts) {
+            log.error("Create GHN shipment for order {} failed after {} attempts: {}",
+                    row.getClientOrderCode(), attempts, message);
+            row.setStatus(ShipmentOutboxStatus.FAILED);
+        } else {
+            Duration delay = backoff(attempts);
+            log.warn("Create GHN shipment for order {} failed (attempt {}), retry in {}: {}",
+                    row.getClientOrderCode(), attempts, delay, message);
+            row.setNextAttemptAt(Instant.now().plus(delay));
+        }
+
+        try {
+            persistLeased(row);
+        } catch (LeaseLostException lost) {
+            log.warn("Shipment outbox {} was reclaimed by another worker, dropping error", row.getId());
+        } catch (Exception persistError) {
+            // Không lưu được thì dòng vẫn được nhận lại khi hết lease
+            log.error("Cannot persist shipment outbox {}: {}", row.getId(), persistError.getMessage());
+        }
+    }
+
+    // Chỉ ghi khi vẫn giữ lease, holdLease khoá dòng tới khi save xong
+    private void persistLeased(ShipmentOutbox row) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (outbox.holdLease(row.getId(), row.getLeaseToken()) == 0) {
+                throw new LeaseLostException();
+            }
+            outbox.save(row);
+        });
+    }
+
+    // Lỗi mạng, GHN 5xx/429, circuit breaker/bulkhead từ chối và lỗi DB tạm thời thì thử lại
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ResourceAccessException
+                    || t instanceof HttpServerErrorException
+                    || t instanceof RejectedExecutionException
+                    || t instanceof TransientDataAccessException) {
+                return true;
+            }
+            if (t instanceof HttpClientErrorException http) {
+                return http.getStatusCode().value() == 429 || http.getStatusCode().value() == 408;
+            }
+        }
+        return false;
+    }
+
+    // Exponential backoff có jitter: nửa cố định + nửa ngẫu nhiên
+    private Duration backoff(int attempts) {
+        long base = backoffBase.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, backoffMax.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private static boolean hasGhnCode(Order order) {
+        return order.getGhnOrderCode() != null && !order.getGhnOrderCode().isEmpty();
+    }
+
+    private record Claim(UUID rowId, UUID leaseToken) {
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
@@ -0,0 +1,209 @@
+package com.marketplace.ecommerce.shipping.service.impl;
+
+import com.marketplace.ecommerce.common.concurrency.RateLimiter;
+import com.marketplace.ecommerce.order.repository.OrderRepository;
+import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.shipping.dto.response.GHNOrderDetailResponse;
+import com.marketplace.ecommerce.shipping.entity.ShipmentReconcileCheckpoint;
+import com.marketplace.ecommerce.shipping.repository.ShipmentReconcileCheckpointRepository;
+import com.marketplace.ecommerce.shipping.service.ShipmentReconcileService;
+import com.marketplace.ecommerce.shipping.service.ShipmentStatusService;
+import com.marketplace.ecommerce.shipping.usecase.GHNClient;
+import com.marketplace.ecommerce.shipping.valueObjects.ShippingOrderRef;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đối soát đơn SHIPPING với GHN cho trường hợp mất webhook. Duyệt keyset theo order id, mỗi batch hỏi GHN
+ * song song có giới hạn và rate limit, rồi lưu checkpoint để lần chạy sau (hoặc sau khi restart) đi tiếp.
+ * Hết danh sách thì bắt đầu lượt mới từ đầu. Một lần chạy có thể mất vài phút nên chạy trên executor riêng,
+ * không giữ thread của scheduler (dùng chung với dispatcher webhook, outbox, KYC).
+ */
+@Slf4j
+@Service
+public class ShipmentReconcileServiceImpl implements ShipmentReconcileService {
+    private static final String CHECKPOINT_ID = "ghn-order-status";
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final OrderRepository orderRepository;
+    private final ShipmentReconcileCheckpointRepository checkpoints;
+    private final ShipmentStatusService shipmentStatusService;
+    private final GHNClient ghnClient;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter rateLimiter;
+
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int parallelism;
+    private final Duration lease;
+
+    private final ExecutorService runExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ghn-reconcile").daemon().factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ShipmentReconcileServiceImpl(OrderRepository orderRepository,
+                                        ShipmentReconcileCheckpointRepository checkpoints,
+                                        ShipmentStatusService shipmentStatusService,
+                                        GHNClient ghnClient,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${shipping.reconcile.batch-size:200}") int batchSize,
+                                        @Value("${shipping.reconcile.max-batches-per-run:10}") int maxBatchesPerRun,
+                                        @Value("${shipping.reconcile.parallelism:4}") int parallelism,
+                                        @Value("${shipping.reconcile.rate-per-second:5}") double ratePerSecond,
+                                        @Value("${shipping.reconcile.lease:10m}") Duration lease) {
+        this.orderRepository = orderRepository;
+        this.checkpoints = checkpoints;
+        this.shipmentStatusService = shipmentStatusService;
+        this.ghnClient = ghnClient;
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.parallelism = Math.max(1, parallelism);
+        this.lease = lease;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runExecutor.shutdownNow();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${shipping.reconcile.interval:PT15M}",
+            initialDelayString = "${shipping.reconcile.initial-delay:PT2M}")
+    public void reconcile() {
+        // Lần chạy trước chưa xong thì bỏ qua lượt này
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runExecutor.execute(() -> {
+                try {
+                    runOnce();
+                } catch (Exception e) {
+                    log.error("GHN reconcile run failed: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void runOnce() {
+        ensureCheckpoint();
+        UUID owner = UUID.randomUUID();
+        Instant now = Instant.now();
+        if (checkpoints.tryLock(CHECKPOINT_ID, owner, now, now.plus(lease)) == 0) {
+            return; // instance khác đang chạy
+        }
+
+        try {
+            UUID cursor = checkpoints.findById(CHECKPOINT_ID)
+                    .map(ShipmentReconcileCheckpoint::getLastOrderId)
+                    .orElse(null);
+
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<ShippingOrderRef> refs = orderRepository.findRefsByStatusAfter(
+                        OrderStatus.SHIPPING, cursor != null ? cursor : MIN_UUID, PageRequest.of(0, batchSize));
+                if (refs.isEmpty()) {
+                    checkpoints.startNewPass(CHECKPOINT_ID, owner, Instant.now());
+                    return;
+                }
+
+                int failed = reconcileBatch(refs);
+                if (failed == refs.size()) {
+                    // GHN đang lỗi (hoặc circuit mở): giữ nguyên checkpoint để lần sau chạy lại batch này
+                    log.warn("GHN reconcile: whole batch of {} orders failed, stop this run", refs.size());
+                    return;
+                }
+
+                cursor = refs.get(refs.size() - 1).id();
+                Instant at = Instant.now();
+                if (checkpoints.advance(CHECKPOINT_ID, owner, cursor, refs.size(), at, at.plus(lease)) == 0) {
+                    // Lease đã hết và instance khác đã nhận: không ghi đè checkpoint của họ
+                    log.warn("GHN reconcile: lost checkpoint lease, stop this run");
+                    return;
+                }
+
+                if (refs.size() < batchSize) {
+                    checkpoints.startNewPass(CHECKPOINT_ID, owner, Instant.now());
+                    return;
+                }
+            }
+        } finally {
+            checkpoints.unlock(CHECKPOINT_ID, owner);
+        }
+    }
+
+    private int reconcileBatch(List<ShippingOrderRef> refs) {
+        AtomicInteger failed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+            for (ShippingOrderRef ref : refs) {
+                executor.execute(() -> {
+                    if (!reconcileOne(ref)) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+        }
+        return failed.get();
+    }
+
+    private boolean reconcileOne(ShippingOrderRef ref) {
+        try {
+            rateLimiter.acquire();
+            GHNOrderDetailResponse detail = ghnClient.getOrderDetailByClientCode(ref.orderNumber());
+            String status = detail != null ? detail.getStatus() : null;
+
+            String result = shipmentStatusService.applyGhnStatus(ref.id(), status)
+                    .map(next -> next.name().toLowerCase(Locale.ROOT))
+                    .orElse("unchanged");
+            if (!"unchanged".equals(result)) {
+                log.info("GHN reconcile: order {} {} from GHN status {} (missed webhook)",
+                        ref.orderNumber(), result, status);
+            }
+            meterRegistry.counter("ghn.reconcile.orders", "result", result).increment();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            meterRegistry.counter("ghn.reconcile.orders", "result", "error").increment();
+            log.debug("GHN reconcile failed for order {}: {}", ref.orderNumber(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void ensureCheckpoint() {
+        if (checkpoints.existsById(CHECKPOINT_ID)) {
+            return;
+        }
+        ShipmentReconcileCheckpoint checkpoint = new ShipmentReconcileCheckpoint();
+        checkpoint.setId(CHECKPOINT_ID);
+        checkpoint.setPassStartedAt(Instant.now());
+        try {
+            checkpoints.save(checkpoint);
+        } catch (DataIntegrityViolationException e) {
+            // instance khác vừa tạo
+        }
+    }
+}
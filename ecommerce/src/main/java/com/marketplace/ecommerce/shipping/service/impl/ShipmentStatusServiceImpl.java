@@ -0,0 +1,92 @@
+package com.marketplace.ecommerce.shipping.service.impl;
+
+import com.marketplace.ecommerce.order.entity.Order;
+import com.marketplace.ecommerce.order.entity.OrderItem;
+import com.marketplace.ecommerce.order.repository.OrderRepository;
+import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.product.entity.Product;
+import com.marketplace.ecommerce.product.repository.ProductRepository;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import com.marketplace.ecommerce.shipping.service.ShipmentStatusService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShipmentStatusServiceImpl implements ShipmentStatusService {
+    private static final Set<String> DELIVERED = Set.of("delivered", "đã giao hàng", "da_giao_hang");
+    // Hàng quay về shop: hoàn lại tồn kho
+    private static final Set<String> RETURNED_TO_SHOP = Set.of("cancel", "returned");
+    // Hàng thất lạc/hư hỏng: GHN bồi thường, không hoàn tồn kho
+    private static final Set<String> LOST = Set.of("lost", "damage");
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final ProductCacheService productCacheService;
+
+    @Override
+    @Transactional
+    public Optional<OrderStatus> applyGhnStatus(UUID orderId, String ghnStatus) {
+        // Khoá dòng để webhook và job đối soát chạy cùng lúc không ghi đè lẫn nhau
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+        if (order == null || ghnStatus == null || ghnStatus.isBlank()) {
+            return Optional.empty();
+        }
+
+        String raw = ghnStatus.trim();
+        boolean changed = false;
+        if (!raw.equals(order.getGhnStatus())) {
+            order.setGhnStatus(raw);
+            order.setGhnUpdatedAt(LocalDateTime.now());
+            changed = true;
+        }
+
+        OrderStatus next = order.getStatus() == OrderStatus.SHIPPING ? terminalStatus(raw) : null;
+        if (next == OrderStatus.DELIVERED) {
+            order.setDeliveredAt(LocalDateTime.now());
+        } else if (next == OrderStatus.CANCELLED && RETURNED_TO_SHOP.contains(raw.toLowerCase(Locale.ROOT))) {
+            restock(order);
+        }
+        if (next != null) {
+            order.setStatus(next);
+            changed = true;
+            log.info("Order {} marked {} from GHN status {}", order.getOrderNumber(), next, raw);
+        }
+
+        if (changed) {
+            orderRepository.save(order);
+        }
+        return Optional.ofNullable(next);
+    }
+
+    private static OrderStatus terminalStatus(String ghnStatus) {
+        String s = ghnStatus.toLowerCase(Locale.ROOT);
+        if (DELIVERED.contains(s)) {
+            return OrderStatus.DELIVERED;
+        }
+        if (RETURNED_TO_SHOP.contains(s) || LOST.contains(s)) {
+            return OrderStatus.CANCELLED;
+        }
+        return null;
+    }
+
+    private void restock(Order order) {
+        for (OrderItem item : order.getItems()) {
+            Product p = item.getProduct();
+            if (p != null && p.getQuantity() != null) {
+                p.setQuantity(p.getQuantity() + item.getQuantity());
+                productRepository.save(p);
+                productCacheService.evict(p.getId());
+            }
+        }
+    }
+}
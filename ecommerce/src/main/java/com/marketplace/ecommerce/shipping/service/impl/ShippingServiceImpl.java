@@ -1,29 +1,69 @@
 package com.marketplace.ecommerce.shipping.service.impl;
 
 import com.marketplace.ecommerce.cart.entity.CartItem;
+import com.marketplace.ecommerce.common.cache.LocalCache;
+import com.marketplace.ecommerce.common.cache.LocalCacheMetrics;
 import com.marketplace.ecommerce.common.exception.CustomException;
 import com.marketplace.ecommerce.order.entity.Order;
 import com.marketplace.ecommerce.order.entity.OrderItem;
 import com.marketplace.ecommerce.shipping.dto.request.GHNCalculateFeeRequest;
 import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
 import com.marketplace.ecommerce.shipping.dto.response.GHNCalculateFeeResponse;
+import com.marketplace.ecommerce.shipping.entity.ShippingQuote;
+import com.marketplace.ecommerce.shipping.repository.ShippingQuoteRepository;
 import com.marketplace.ecommerce.shipping.service.ShippingService;
 import com.marketplace.ecommerce.shipping.usecase.GHNClient;
+import com.marketplace.ecommerce.shipping.valueObjects.FeeQuoteKey;
 import com.marketplace.ecommerce.shop.entity.Shop;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Phí ship được cache theo (tuyến, loại dịch vụ, bậc cân nặng). Cân nặng được làm tròn lên hết bậc
+ * trước khi hỏi GHN, nên mọi giỏ hàng trong cùng bậc dùng chung một phí.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ShippingServiceImpl implements ShippingService {
+    private static final int SERVICE_TYPE_LIGHT = 2;
 
     private final GHNClient ghnClient;
+    private final ShippingQuoteRepository quotes;
+    private final MeterRegistry meterRegistry;
+    private final LocalCache<FeeQuoteKey, BigDecimal> feeCache;
+    private final ConcurrentHashMap<FeeQuoteKey, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+    private final int weightBandGrams;
+    private final Duration quoteValidity;
+
+    public ShippingServiceImpl(GHNClient ghnClient,
+                               ShippingQuoteRepository quotes,
+                               MeterRegistry meterRegistry,
+                               @Value("${ghn.fee-cache.max-size:10000}") int maxSize,
+                               @Value("${ghn.fee-cache.ttl:30m}") Duration ttl,
+                               @Value("${ghn.fee-cache.weight-band-grams:500}") int weightBandGrams,
+                               @Value("${ghn.fee-quote.validity:30m}") Duration quoteValidity) {
+        this.ghnClient = ghnClient;
+        this.quotes = quotes;
+        this.meterRegistry = meterRegistry;
+        this.feeCache = LocalCacheMetrics.monitor(meterRegistry, new LocalCache<>("ghn-fee", maxSize, ttl));
+        this.weightBandGrams = weightBandGrams;
+        this.quoteValidity = quoteValidity;
+    }
 
     public GHNCreateOrderRequest build(Order order) {
         int totalWeight = order.getItems().stream()
@@ -87,7 +127,60 @@ public class ShippingServiceImpl implements ShippingService {
                 .build();
     }
 
+    @Override
     public BigDecimal quoteFee(Shop shop, List<CartItem> cartItems, Integer toDistrictId, String toWardCode) {
+        return fee(feeKey(shop, cartItems, toDistrictId, toWardCode));
+    }
+
+    @Override
+    public ShippingQuote issueQuote(UUID accountId, Shop shop, List<CartItem> cartItems,
+                                    Integer toDistrictId, String toWardCode) {
+        FeeQuoteKey key = feeKey(shop, cartItems, toDistrictId, toWardCode);
+        // Mỗi lần mở/đổi địa chỉ ở checkout đều báo phí: dùng lại quote cùng route còn hơn nửa hạn thay vì ghi dòng mới
+        Instant now = Instant.now();
+        Optional<ShippingQuote> reusable = quotes.findFirstByAccountIdAndShopIdAndRouteKeyAndExpiresAtAfterOrderByExpiresAtDesc(
+                accountId, shop.getId(), key.asString(), now.plus(quoteValidity.dividedBy(2)));
+        if (reusable.isPresent()) {
+            return reusable.get();
+        }
+        ShippingQuote quote = ShippingQuote.builder()
+                .accountId(accountId)
+                .shopId(shop.getId())
+                .routeKey(key.asString())
+                .fee(fee(key))
+                .expiresAt(now.plus(quoteValidity))
+                .build();
+        return quotes.save(quote);
+    }
+
+    @Override
+    public BigDecimal feeForOrder(UUID accountId, UUID quoteId, Shop shop, List<CartItem> cartItems,
+                                  Integer toDistrictId, String toWardCode) {
+        FeeQuoteKey key = feeKey(shop, cartItems, toDistrictId, toWardCode);
+        if (quoteId == null) {
+            // Người mua phải thấy phí trước khi đặt: checkout luôn gửi quoteId
+            throw new CustomException("Shipping quote is required, please get a quote first.");
+        }
+
+        // Giỏ hàng hoặc địa chỉ đổi sau khi báo phí thì route key khác, người mua phải xem lại phí mới
+        return quotes.findById(quoteId)
+                .filter(q -> q.getAccountId().equals(accountId))
+                .filter(q -> q.getShopId().equals(shop.getId()))
+                .filter(q -> q.getRouteKey().equals(key.asString()))
+                .filter(q -> q.getExpiresAt().isAfter(Instant.now()))
+                .map(ShippingQuote::getFee)
+                .orElseThrow(() -> new CustomException("Shipping quote is no longer valid, please get a new quote."));
+    }
+
+    @Scheduled(cron = "${ghn.fee-quote.purge-cron:0 30 * * * *}")
+    public void purgeExpiredQuotes() {
+        int deleted = quotes.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired shipping quotes", deleted);
+        }
+    }
+
+    private FeeQuoteKey feeKey(Shop shop, List<CartItem> cartItems, Integer toDistrictId, String toWardCode) {
         if (toDistrictId == null || toWardCode == null || toWardCode.isBlank()) {
             throw new CustomException("Missing information about the district and wardCode");
         }
@@ -107,22 +200,70 @@ public class ShippingServiceImpl implements ShippingService {
                     return weight * i.getQuantity();
                 })
                 .sum();
+        int weightBand = Math.max(1, (totalWeight + weightBandGrams - 1) / weightBandGrams);
+
+        return new FeeQuoteKey(fromDistrictId, fromWardCode, toDistrictId, toWardCode, SERVICE_TYPE_LIGHT, weightBand);
+    }
 
+    // Các request cùng key trong lúc GHN đang trả lời dùng chung một lượt gọi
+    private BigDecimal fee(FeeQuoteKey key) {
+        BigDecimal cached = feeCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<BigDecimal> mine = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            BigDecimal fee = calculateFee(key);
+            feeCache.put(key, fee);
+            mine.complete(fee);
+            return fee;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private BigDecimal calculateFee(FeeQuoteKey key) {
         GHNCalculateFeeRequest feeReq = GHNCalculateFeeRequest.builder()
-                .from_district_id(fromDistrictId)
-                .from_ward_code(fromWardCode)
-                .to_district_id(toDistrictId)
-                .to_ward_code(toWardCode)
-                .weight(totalWeight)
-                .service_type_id(2)
+                .from_district_id(key.fromDistrictId())
+                .from_ward_code(key.fromWardCode())
+                .to_district_id(key.toDistrictId())
+                .to_ward_code(key.toWardCode())
+                .weight(key.weightBand() * weightBandGrams)
+                .service_type_id(key.serviceTypeId())
                 .build();
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
             GHNCalculateFeeResponse feeRes = ghnClient.calculateFee(feeReq);
-            return BigDecimal.valueOf(feeRes.getTotal());
+            BigDecimal fee = BigDecimal.valueOf(feeRes.getTotal());
+            outcome = "success";
+            return fee;
         } catch (Exception e) {
             log.error("GHN calculate fee failed", e);
-            throw new CustomException("Can not calculate fee for district " + fromDistrictId);
+            throw new CustomException("Can not calculate fee for district " + key.fromDistrictId());
+        } finally {
+            sample.stop(meterRegistry.timer("ghn.calculate_fee", "outcome", outcome));
+        }
+    }
+
+    private static BigDecimal await(CompletableFuture<BigDecimal> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 }
@@ -15,12 +15,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.List;
 
+/**
+ * Lời gọi HTTP thô tới GHN, mỗi lời gọi một lần. Timeout/circuit breaker/bulkhead/retry nằm ở
+ * {@link ResilientGHNClient}, các service khác inject {@link GHNClient} sẽ nhận bản đó.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GHNClientImpl implements GHNClient {
 
     private final RestClient ghnRestClient;
+    private final RestClient ghnFeeRestClient;
+    private final RestClient ghnMasterDataRestClient;
     private final GHNConfig cfg;
     private final ObjectMapper objectMapper;
 
@@ -29,7 +35,7 @@ public class GHNClientImpl implements GHNClient {
 
         requireTokenAndShop();
 
-        GHNCommonResponse<GHNCalculateFeeResponse> res = ghnRestClient.post()
+        GHNCommonResponse<GHNCalculateFeeResponse> res = ghnFeeRestClient.post()
                 .uri("/shiip/public-api/v2/shipping-order/fee")
                 .header("ShopId", String.valueOf(cfg.getShopId()))
                 .body(request)
@@ -95,7 +101,7 @@ public class GHNClientImpl implements GHNClient {
     public List<GHNProvinceResponse> getProvinces() {
         requireTokenOnly();
 
-        GHNCommonResponse<List<GHNProvinceResponse>> res = ghnRestClient.get()
+        GHNCommonResponse<List<GHNProvinceResponse>> res = ghnMasterDataRestClient.get()
                 .uri("/shiip/public-api/master-data/province")
                 .retrieve()
                 .body(new ParameterizedTypeReference<GHNCommonResponse<List<GHNProvinceResponse>>>() {
@@ -112,7 +118,7 @@ public class GHNClientImpl implements GHNClient {
                 .province_id(provinceId)
                 .build();
 
-        GHNCommonResponse<List<GHNDistrictResponse>> res = ghnRestClient.post()
+        GHNCommonResponse<List<GHNDistrictResponse>> res = ghnMasterDataRestClient.post()
                 .uri("/shiip/public-api/master-data/district")
                 .body(req)
                 .retrieve()
@@ -130,7 +136,7 @@ public class GHNClientImpl implements GHNClient {
                 .district_id(districtId)
                 .build();
 
-        GHNCommonResponse<List<GHNWardResponse>> res = ghnRestClient.post()
+        GHNCommonResponse<List<GHNWardResponse>> res = ghnMasterDataRestClient.post()
                 .uri("/shiip/public-api/master-data/ward")
                 .body(req)
                 .retrieve()
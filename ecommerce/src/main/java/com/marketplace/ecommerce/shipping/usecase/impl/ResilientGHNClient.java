@@ -0,0 +1,184 @@
+package com.marketplace.ecommerce.shipping.usecase.impl;
+
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
+import com.marketplace.ecommerce.common.concurrency.CircuitBreaker;
+import com.marketplace.ecommerce.common.concurrency.RetryBudget;
+import com.marketplace.ecommerce.shipping.dto.request.GHNCalculateFeeRequest;
+import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
+import com.marketplace.ecommerce.shipping.dto.response.*;
+import com.marketplace.ecommerce.shipping.usecase.GHNClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Lớp bảo vệ quanh {@link GHNClientImpl}: circuit breaker → bulkhead → lời gọi HTTP (đã có timeout theo thao tác).
+ * Chỉ thao tác đọc/báo phí mới được retry, và tổng số retry bị giới hạn bởi {@link RetryBudget}.
+ * createOrder/cancelOrder không retry vì timeout không cho biết GHN đã xử lý hay chưa.
+ */
+@Slf4j
+@Primary
+@Service
+public class ResilientGHNClient implements GHNClient {
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(2);
+
+    private final GHNClientImpl delegate;
+    private final Bulkhead ghnBulkhead;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final Duration bulkheadMaxWait;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+
+    @Autowired
+    public ResilientGHNClient(GHNClientImpl delegate,
+                              Bulkhead ghnBulkhead,
+                              MeterRegistry meterRegistry,
+                              @Value("${ghn.bulkhead.max-wait:2s}") Duration bulkheadMaxWait,
+                              @Value("${ghn.circuit.window-size:20}") int windowSize,
+                              @Value("${ghn.circuit.minimum-calls:10}") int minimumCalls,
+                              @Value("${ghn.circuit.failure-rate:0.5}") double failureRate,
+                              @Value("${ghn.circuit.open-duration:30s}") Duration openDuration,
+                              @Value("${ghn.circuit.half-open-calls:3}") int halfOpenCalls,
+                              @Value("${ghn.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${ghn.retry.backoff-base:200ms}") Duration backoffBase,
+                              @Value("${ghn.retry.budget-ratio:0.2}") double budgetRatio,
+                              @Value("${ghn.retry.min-per-second:1}") double minRetriesPerSecond) {
+        this(delegate, ghnBulkhead, meterRegistry, bulkheadMaxWait, windowSize, minimumCalls, failureRate,
+                openDuration, halfOpenCalls, maxAttempts, backoffBase, budgetRatio, minRetriesPerSecond, System::nanoTime);
+    }
+
+    // Đồng hồ của circuit breaker truyền vào được để test không phải sleep hết openDuration
+    ResilientGHNClient(GHNClientImpl delegate, Bulkhead ghnBulkhead, MeterRegistry meterRegistry,
+                       Duration bulkheadMaxWait, int windowSize, int minimumCalls, double failureRate,
+                       Duration openDuration, int halfOpenCalls, int maxAttempts, Duration backoffBase,
+                       double budgetRatio, double minRetriesPerSecond, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.ghnBulkhead = ghnBulkhead;
+        this.meterRegistry = meterRegistry;
+        this.bulkheadMaxWait = bulkheadMaxWait;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBase = backoffBase;
+        this.circuitBreaker = new CircuitBreaker("ghn", windowSize, minimumCalls, failureRate,
+                openDuration, halfOpenCalls, ResilientGHNClient::isTransportFailure, nanoClock);
+        this.retryBudget = new RetryBudget(budgetRatio, minRetriesPerSecond, 10);
+
+        Gauge.builder("ghn.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GHNCalculateFeeResponse calculateFee(GHNCalculateFeeRequest request) {
+        return idempotent("calculateFee", () -> delegate.calculateFee(request));
+    }
+
+    @Override
+    public GHNCreateOrderResponse createOrder(GHNCreateOrderRequest request) {
+        return once("createOrder", () -> delegate.createOrder(request));
+    }
+
+    @Override
+    public GHNOrderDetailResponse getOrderDetailByClientCode(String clientOrderCode) {
+        return idempotent("getOrderDetail", () -> delegate.getOrderDetailByClientCode(clientOrderCode));
+    }
+
+    @Override
+    public GHNCancelOrderResponse cancelOrder(String orderCode) {
+        return once("cancelOrder", () -> delegate.cancelOrder(orderCode));
+    }
+
+    @Override
+    public List<GHNProvinceResponse> getProvinces() {
+        return idempotent("getProvinces", delegate::getProvinces);
+    }
+
+    @Override
+    public List<GHNDistrictResponse> getDistricts(Integer provinceId) {
+        return idempotent("getDistricts", () -> delegate.getDistricts(provinceId));
+    }
+
+    @Override
+    public List<GHNWardResponse> getWards(Integer districtId) {
+        return idempotent("getWards", () -> delegate.getWards(districtId));
+    }
+
+    private <T> T idempotent(String operation, Supplier<T> call) {
+        return execute(operation, call, maxAttempts);
+    }
+
+    private <T> T once(String operation, Supplier<T> call) {
+        return execute(operation, call, 1);
+    }
+
+    private <T> T execute(String operation, Supplier<T> call, int attempts) {
+        retryBudget.recordRequest();
+        for (int attempt = 1; ; attempt++) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                return circuitBreaker.call(() -> ghnBulkhead.call(call, bulkheadMaxWait));
+            } catch (RuntimeException e) {
+                outcome = outcome(e);
+                if (attempt >= attempts || !isTransportFailure(e)) {
+                    throw e;
+                }
+                if (!retryBudget.tryAcquireRetry()) {
+                    meterRegistry.counter("ghn.retries", "operation", operation, "result", "budget_exhausted").increment();
+                    throw e;
+                }
+                meterRegistry.counter("ghn.retries", "operation", operation, "result", "retried").increment();
+                log.warn("GHN {} attempt {} failed ({}), retrying", operation, attempt, e.getMessage());
+                sleep(backoff(attempt), e);
+            } finally {
+                sample.stop(meterRegistry.timer("ghn.calls", "operation", operation, "outcome", outcome));
+            }
+        }
+    }
+
+    // Lỗi mạng/timeout, 5xx và 429 mới là dấu hiệu GHN có vấn đề; 4xx còn lại là lỗi của request
+    static boolean isTransportFailure(Throwable e) {
+        return e instanceof ResourceAccessException
+                || e instanceof HttpServerErrorException
+                || (e instanceof HttpClientErrorException c && c.getStatusCode().value() == 429);
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof RejectedExecutionException) return "rejected";
+        if (e instanceof ResourceAccessException) return "io_error";
+        if (e instanceof HttpServerErrorException) return "server_error";
+        if (e instanceof HttpClientErrorException) return "client_error";
+        return "error";
+    }
+
+    private Duration backoff(int attempt) {
+        long base = backoffBase.toMillis() << Math.min(attempt - 1, 10);
+        long capped = Math.min(base, MAX_BACKOFF.toMillis());
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capped / 2, capped + 1));
+    }
+
+    private static void sleep(Duration delay, RuntimeException cause) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
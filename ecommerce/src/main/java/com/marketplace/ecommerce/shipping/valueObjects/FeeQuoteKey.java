@@ -0,0 +1,17 @@
+package com.marketplace.ecommerce.shipping.valueObjects;
+
+/**
+ * Khoá cache phí ship: cùng tuyến, cùng loại dịch vụ và cùng bậc cân nặng thì GHN trả cùng một phí.
+ */
+public record FeeQuoteKey(Integer fromDistrictId,
+                          String fromWardCode,
+                          Integer toDistrictId,
+                          String toWardCode,
+                          int serviceTypeId,
+                          int weightBand) {
+
+    public String asString() {
+        return fromDistrictId + ":" + fromWardCode + ":" + toDistrictId + ":" + toWardCode
+                + ":" + serviceTypeId + ":" + weightBand;
+    }
+}
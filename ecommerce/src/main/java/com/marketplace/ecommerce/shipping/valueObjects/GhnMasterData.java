@@ -0,0 +1,18 @@
+package com.marketplace.ecommerce.shipping.valueObjects;
+
+import com.marketplace.ecommerce.shipping.dto.response.GHNDistrictResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNProvinceResponse;
+import com.marketplace.ecommerce.shipping.dto.response.GHNWardResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Toàn bộ master data GHN, bất biến sau khi tạo: refresh dựng bản mới rồi thay cả tham chiếu.
+ */
+public record GhnMasterData(List<GHNProvinceResponse> provinces,
+                            Map<Integer, List<GHNDistrictResponse>> districtsByProvince,
+                            Map<Integer, List<GHNWardResponse>> wardsByDistrict,
+                            Instant loadedAt) {
+}
@@ -0,0 +1,7 @@
+package com.marketplace.ecommerce.shipping.valueObjects;
+
+public enum ShipmentOutboxStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
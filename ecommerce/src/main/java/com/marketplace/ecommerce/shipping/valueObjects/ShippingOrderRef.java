@@ -0,0 +1,6 @@
+package com.marketplace.ecommerce.shipping.valueObjects;
+
+import java.util.UUID;
+
+public record ShippingOrderRef(UUID id, String orderNumber) {
+}
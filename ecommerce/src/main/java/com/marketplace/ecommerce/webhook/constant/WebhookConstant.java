@@ -2,4 +2,10 @@ package com.marketplace.ecommerce.webhook.constant;
 
 public class WebhookConstant {
     public static final int STATUS_DELIVERED_ID = 5;
+
+    public static final String TYPE_CREATE = "create";
+    public static final String TYPE_SWITCH_STATUS = "switch_status";
+    public static final String TYPE_UPDATE_WEIGHT = "update_weight";
+    public static final String TYPE_UPDATE_COD = "update_cod";
+    public static final String TYPE_UPDATE_FEE = "update_fee";
 }
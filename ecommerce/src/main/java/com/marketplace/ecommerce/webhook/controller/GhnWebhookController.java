@@ -1,12 +1,11 @@
 package com.marketplace.ecommerce.webhook.controller;
 
 
-import com.marketplace.ecommerce.order.service.OrderService;
-import com.marketplace.ecommerce.webhook.constant.WebhookConstant;
 import com.marketplace.ecommerce.webhook.dto.GhnWebhookPayload;
 import com.marketplace.ecommerce.webhook.service.WebhookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,9 +15,10 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * Webhook nhận callback từ GHN khi trạng thái đơn thay đổi.
  * Type: Create | Switch_status | Update_weight | Update_cod | Update_fee.
- * Khi Type=Switch_status và Status=delivered (hoặc tương đương), set order DELIVERED.
+ * Controller chỉ kiểm tra payload và ghi vào inbox (ghn_webhook_inbox), việc cập nhật đơn do worker nền làm.
  * <p>
- * Luôn trả HTTP 200 theo yêu cầu GHN (nếu khác 200, GHN bắn lại 10 lần, mỗi lần cách 5 giây).
+ * Trả HTTP 200 ngay khi đã ghi (hoặc là bản gửi lại / payload không dùng được). Chỉ khi chưa ghi được vào
+ * inbox mới trả 503 để GHN gửi lại (GHN bắn lại 10 lần, mỗi lần cách 5 giây).
  * URL cấu hình trên GHN: https://your-domain/webhooks/ghn
  */
 @Slf4j
@@ -31,33 +31,25 @@ public class GhnWebhookController {
 
     @PostMapping
     public ResponseEntity<Void> handleGhnWebhook(@RequestBody GhnWebhookPayload payload) {
-        if (payload == null) {
+        if (payload == null || (isBlank(payload.getOrderCode()) && isBlank(payload.getClientOrderCode())
+                && isBlank(payload.getPartnerId()))) {
+            log.debug("GHN webhook: bỏ qua payload không có mã đơn");
             return ResponseEntity.ok().build();
         }
-        String orderCode = payload.getOrderCode();
-        String clientOrderCode = payload.getClientOrderCode() != null ? payload.getClientOrderCode() : payload.getPartnerId();
 
-        boolean isDelivered = WebhookConstant.STATUS_DELIVERED_ID == (payload.getDeliveryStatusId() != null ? payload.getDeliveryStatusId() : -1)
-                || isDeliveredStatus(payload.getDeliveryStatus());
-
-        if (isDelivered && (orderCode != null || clientOrderCode != null)) {
-            try {
-                boolean updated = webhookService.markDeliveredByGhnRef(orderCode, clientOrderCode);
-                if (updated) {
-                    log.info("GHN webhook: đã set DELIVERED (OrderCode={}, ClientOrderCode={})", orderCode, clientOrderCode);
-                } else {
-                    log.debug("GHN webhook: không tìm thấy đơn SHIPPED (OrderCode={}, ClientOrderCode={})", orderCode, clientOrderCode);
-                }
-            } catch (Exception e) {
-                log.warn("GHN webhook: lỗi khi xử lý delivered – OrderCode={}, ClientOrderCode={}: {}", orderCode, clientOrderCode, e.getMessage());
+        try {
+            if (!webhookService.enqueue(payload)) {
+                log.debug("GHN webhook: bản gửi lại (OrderCode={}, Type={})", payload.getOrderCode(), payload.getWebhookType());
             }
+        } catch (Exception e) {
+            log.error("GHN webhook: không ghi được vào inbox (OrderCode={}, ClientOrderCode={}): {}",
+                    payload.getOrderCode(), payload.getClientOrderCode(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
         return ResponseEntity.ok().build();
     }
 
-    private static boolean isDeliveredStatus(String status) {
-        if (status == null || status.isBlank()) return false;
-        String s = status.trim().toLowerCase();
-        return "delivered".equals(s) || "đã giao hàng".equalsIgnoreCase(status.trim()) || "da_giao_hang".equals(s);
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
     }
 }
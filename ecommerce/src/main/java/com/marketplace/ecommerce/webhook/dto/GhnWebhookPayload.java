@@ -34,4 +34,16 @@ public class GhnWebhookPayload {
 
     @JsonProperty("label_id")
     private String labelId;
+
+    @JsonProperty("weight")
+    private Integer weight;
+
+    @JsonProperty("cod_amount")
+    private Integer codAmount;
+
+    @JsonProperty("total_fee")
+    private Integer totalFee;
+
+    @JsonProperty("time")
+    private String time;
 }
@@ -0,0 +1,57 @@
+package com.marketplace.ecommerce.webhook.entity;
+
+import com.marketplace.ecommerce.common.BaseEntity;
+import com.marketplace.ecommerce.webhook.valueObjects.WebhookEventStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Webhook GHN đã nhận, chờ xử lý. id tăng dần theo thứ tự nhận và được dùng để xử lý lần lượt theo
+ * từng order_key; dedupe_key chặn các lần GHN gửi lại cùng một sự kiện.
+ */
+@Data
+@Entity
+@Table(name = "ghn_webhook_inbox", indexes = {
+        @Index(name = "idx_ghn_webhook_inbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_ghn_webhook_inbox_order_key", columnList = "order_key, id")
+})
+public class GhnWebhookEvent extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "dedupe_key", nullable = false, unique = true, length = 64)
+    private String dedupeKey;
+
+    // OrderCode của GHN, không có thì ClientOrderCode
+    @Column(name = "order_key", nullable = false, length = 100)
+    private String orderKey;
+
+    @Column(name = "webhook_type", length = 50)
+    private String webhookType;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", columnDefinition = "JSONB", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private WebhookEventStatus status = WebhookEventStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+}
@@ -0,0 +1,51 @@
+package com.marketplace.ecommerce.webhook.repository;
+
+import com.marketplace.ecommerce.webhook.entity.GhnWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface GhnWebhookEventRepository extends JpaRepository<GhnWebhookEvent, Long> {
+
+    /**
+     * @return 1 nếu ghi mới, 0 nếu trùng dedupe_key (GHN gửi lại)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into ghn_webhook_inbox (dedupe_key, order_key, webhook_type, payload, status, attempts,
+                                           next_attempt_at, created_at, updated_at)
+            values (:dedupeKey, :orderKey, :webhookType, cast(:payload as jsonb), 'PENDING', 0, now(), now(), now())
+            on conflict (dedupe_key) do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("dedupeKey") String dedupeKey,
+                       @Param("orderKey") String orderKey,
+                       @Param("webhookType") String webhookType,
+                       @Param("payload") String payload);
+
+    // Chỉ lấy sự kiện PENDING sớm nhất của mỗi order_key để các sự kiện cùng đơn luôn chạy đúng thứ tự
+    @Query(value = """
+            select * from ghn_webhook_inbox i
+            where i.status = 'PENDING' and i.next_attempt_at <= :now
+              and not exists (
+                  select 1 from ghn_webhook_inbox p
+                  where p.order_key = i.order_key and p.status = 'PENDING' and p.id < i.id
+              )
+            order by i.id
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<GhnWebhookEvent> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from GhnWebhookEvent e where e.status = com.marketplace.ecommerce.webhook.valueObjects.WebhookEventStatus.DONE and e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
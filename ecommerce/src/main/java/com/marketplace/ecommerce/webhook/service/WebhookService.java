@@ -1,6 +1,13 @@
 package com.marketplace.ecommerce.webhook.service;
 
+import com.marketplace.ecommerce.webhook.dto.GhnWebhookPayload;
+
 public interface WebhookService {
 
-    boolean markDeliveredByGhnRef(String ghnOrderCode, String clientOrderCode);
+    /**
+     * Ghi webhook vào inbox để worker xử lý sau.
+     *
+     * @return false nếu là bản GHN gửi lại của một sự kiện đã nhận
+     */
+    boolean enqueue(GhnWebhookPayload payload);
 }
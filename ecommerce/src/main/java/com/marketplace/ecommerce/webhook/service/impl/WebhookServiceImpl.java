@@ -1,37 +1,319 @@
 package com.marketplace.ecommerce.webhook.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marketplace.ecommerce.order.entity.Order;
 import com.marketplace.ecommerce.order.repository.OrderRepository;
-import com.marketplace.ecommerce.order.valueObjects.OrderStatus;
+import com.marketplace.ecommerce.shipping.service.ShipmentStatusService;
+import com.marketplace.ecommerce.webhook.constant.WebhookConstant;
+import com.marketplace.ecommerce.webhook.dto.GhnWebhookPayload;
+import com.marketplace.ecommerce.webhook.entity.GhnWebhookEvent;
+import com.marketplace.ecommerce.webhook.repository.GhnWebhookEventRepository;
 import com.marketplace.ecommerce.webhook.service.WebhookService;
-import lombok.RequiredArgsConstructor;
+import com.marketplace.ecommerce.webhook.valueObjects.WebhookEventStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
-@Service
-@RequiredArgsConstructor
+/**
+ * Inbox cho webhook GHN: controller chỉ ghi sự kiện (bỏ qua bản gửi lại theo dedupe key) rồi trả 200 ngay.
+ * Worker nền lấy sự kiện theo batch bằng {@code for update skip locked}, mỗi order_key chỉ một sự kiện
+ * tại một thời điểm và luôn theo thứ tự nhận, xử lý mỗi sự kiện trong một transaction.
+ */
 @Slf4j
+@Service
 public class WebhookServiceImpl implements WebhookService {
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final String GHN_DELIVERED = "delivered";
+
+    private final GhnWebhookEventRepository events;
+    private final OrderRepository orderRepository;
+    private final ShipmentStatusService shipmentStatusService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper om;
+    private final MeterRegistry meterRegistry;
+
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration lease;
+    private final Duration retention;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public WebhookServiceImpl(GhnWebhookEventRepository events,
+                              OrderRepository orderRepository,
+                              ShipmentStatusService shipmentStatusService,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper om,
+                              MeterRegistry meterRegistry,
+                              @Value("${webhook.ghn.workers:4}") int workers,
+                              @Value("${webhook.ghn.batch-size:100}") int batchSize,
+                              @Value("${webhook.ghn.max-attempts:8}") int maxAttempts,
+                              @Value("${webhook.ghn.backoff-base:2s}") Duration backoffBase,
+                              @Value("${webhook.ghn.backoff-max:10m}") Duration backoffMax,
+                              @Value("${webhook.ghn.lease:2m}") Duration lease,
+                              @Value("${webhook.ghn.retention:7d}") Duration retention) {
+        this.events = events;
+        this.orderRepository = orderRepository;
+        this.shipmentStatusService = shipmentStatusService;
+        this.transactionTemplate = transactionTemplate;
+        this.om = om;
+        this.meterRegistry = meterRegistry;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.lease = lease;
+        this.retention = retention;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "ghn-webhook-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
     @Override
-    public boolean markDeliveredByGhnRef(String ghnOrderCode, String clientOrderCode) {
-        Optional<Order> byGhn = ghnOrderCode != null && !ghnOrderCode.isBlank()
-                ? orderRepository.findByGhnOrderCode(ghnOrderCode.trim()) : Optional.empty();
-        Optional<Order> byClient = clientOrderCode != null && !clientOrderCode.isBlank()
-                ? orderRepository.findByOrderNumber(clientOrderCode.trim()) : Optional.empty();
-        Order order = byGhn.or(() -> byClient).orElse(null);
-        if (order == null || order.getStatus() != OrderStatus.SHIPPING) {
-            return false;
-        }
-        order.setStatus(OrderStatus.DELIVERED);
-        order.setDeliveredAt(LocalDateTime.now());
+    public boolean enqueue(GhnWebhookPayload payload) {
+        String orderKey = firstNonBlank(payload.getOrderCode(), payload.getClientOrderCode(), payload.getPartnerId());
+        if (orderKey == null) {
+            throw new IllegalArgumentException("Webhook has no order code");
+        }
+
+        String json;
+        try {
+            json = om.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize webhook payload", e);
+        }
+
+        boolean inserted = events.insertIfAbsent(dedupeKey(orderKey, payload), orderKey.trim(),
+                normalizeType(payload.getWebhookType()), json) > 0;
+        meterRegistry.counter("ghn.webhook.received", "result", inserted ? "queued" : "duplicate").increment();
+        return inserted;
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.ghn.poll-interval:PT0.5S}")
+    public void dispatchDue() {
+        int capacity = batchSize - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<Long> claimed = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<GhnWebhookEvent> due = events.lockDue(now, capacity);
+            // Giữ sự kiện trong thời gian lease: sự kiện sau của cùng đơn vẫn bị chặn vì cái này còn PENDING
+            due.forEach(e -> e.setNextAttemptAt(now.plus(lease)));
+            events.saveAll(due);
+            return due.stream().map(GhnWebhookEvent::getId).toList();
+        });
+
+        for (Long id : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(id);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Executor đang shutdown: sự kiện sẽ được nhận lại khi hết lease
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(cron = "${webhook.ghn.purge-cron:0 15 3 * * *}")
+    public void purgeProcessed() {
+        int deleted = events.deleteProcessedBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} processed GHN webhook events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void process(Long id) {
+        try {
+            String type = transactionTemplate.execute(status -> {
+                GhnWebhookEvent event = events.findById(id).orElse(null);
+                if (event == null || event.getStatus() != WebhookEventStatus.PENDING) {
+                    return null;
+                }
+                event.setLastError(apply(event));
+                event.setStatus(WebhookEventStatus.DONE);
+                event.setProcessedAt(Instant.now());
+                events.save(event);
+                return event.getWebhookType();
+            });
+            if (type != null) {
+                meterRegistry.counter("ghn.webhook.processed", "type", type, "result", "done").increment();
+            }
+        } catch (Exception e) {
+            onError(id, e);
+        }
+    }
+
+    /**
+     * Áp dụng sự kiện vào đơn. Trả về ghi chú khi sự kiện được bỏ qua, null nếu đã áp dụng.
+     */
+    private String apply(GhnWebhookEvent event) {
+        GhnWebhookPayload payload;
+        try {
+            payload = om.readValue(event.getPayload(), GhnWebhookPayload.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed webhook payload: " + e.getOriginalMessage(), e);
+        }
+
+        Order order = findOrder(payload)
+                .flatMap(o -> orderRepository.findByIdForUpdate(o.getId()))
+                .orElse(null);
+        if (order == null) {
+            return "Order not found";
+        }
+
+        String type = normalizeType(payload.getWebhookType());
+        switch (type) {
+            case WebhookConstant.TYPE_CREATE -> {
+                if (isBlank(order.getGhnOrderCode()) && !isBlank(payload.getOrderCode())) {
+                    order.setGhnOrderCode(payload.getOrderCode().trim());
+                }
+            }
+            case WebhookConstant.TYPE_UPDATE_WEIGHT -> {
+                if (payload.getWeight() != null) order.setGhnWeight(payload.getWeight());
+            }
+            case WebhookConstant.TYPE_UPDATE_COD -> {
+                if (payload.getCodAmount() != null) order.setGhnCodAmount(BigDecimal.valueOf(payload.getCodAmount()));
+            }
+            case WebhookConstant.TYPE_UPDATE_FEE -> {
+                if (payload.getTotalFee() != null) order.setGhnTotalFee(BigDecimal.valueOf(payload.getTotalFee()));
+            }
+            default -> {
+                // Switch_status (hoặc GHN không gửi Type): chỉ cập nhật trạng thái bên dưới
+            }
+        }
+        if (!isBlank(payload.getDeliveryStatus())) {
+            order.setGhnStatus(payload.getDeliveryStatus().trim());
+        }
+        order.setGhnUpdatedAt(LocalDateTime.now());
         orderRepository.save(order);
-        log.info("GHN webhook: đơn {} đã set DELIVERED (ghnOrderCode={}, clientOrderCode={})",
-                order.getOrderNumber(), ghnOrderCode, clientOrderCode);
-        return true;
+
+        boolean statusEvent = type.isEmpty() || WebhookConstant.TYPE_SWITCH_STATUS.equals(type);
+        if (statusEvent) {
+            // Giao xong, huỷ, hoàn, thất lạc: chuyển trạng thái đơn theo cùng quy tắc với job đối soát
+            shipmentStatusService.applyGhnStatus(order.getId(),
+                    isDelivered(payload) ? GHN_DELIVERED : payload.getDeliveryStatus());
+        }
+        return null;
     }
 
-    private final OrderRepository orderRepository;
+    private Optional<Order> findOrder(GhnWebhookPayload payload) {
+        Optional<Order> byGhn = !isBlank(payload.getOrderCode())
+                ? orderRepository.findByGhnOrderCode(payload.getOrderCode().trim()) : Optional.empty();
+        String clientOrderCode = firstNonBlank(payload.getClientOrderCode(), payload.getPartnerId());
+        return byGhn.or(() -> clientOrderCode != null
+                ? orderRepository.findByOrderNumber(clientOrderCode.trim()) : Optional.empty());
+    }
+
+    private void onError(Long id, Exception e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        try {
+            transactionTemplate.executeWithoutResult(status -> events.findById(id).ifPresent(event -> {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                if (e instanceof IllegalArgumentException || attempts >= maxAttempts) {
+                    // FAILED không còn chặn các sự kiện sau của cùng đơn
+                    log.error("GHN webhook event {} ({}) failed after {} attempts: {}",
+                            id, event.getOrderKey(), attempts, message);
+                    event.setStatus(WebhookEventStatus.FAILED);
+                    meterRegistry.counter("ghn.webhook.processed",
+                            "type", Objects.toString(event.getWebhookType(), ""), "result", "failed").increment();
+                } else {
+                    event.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+                }
+                events.save(event);
+            }));
+        } catch (Exception persistError) {
+            // Không lưu được thì sự kiện vẫn được nhận lại khi hết lease
+            log.error("Cannot persist GHN webhook event {}: {}", id, persistError.getMessage());
+        }
+    }
+
+    // Exponential backoff có jitter: nửa cố định + nửa ngẫu nhiên
+    private Duration backoff(int attempts) {
+        long base = backoffBase.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, backoffMax.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private static boolean isDelivered(GhnWebhookPayload payload) {
+        if (payload.getDeliveryStatusId() != null && payload.getDeliveryStatusId() == WebhookConstant.STATUS_DELIVERED_ID) {
+            return true;
+        }
+        String status = payload.getDeliveryStatus();
+        if (status == null || status.isBlank()) return false;
+        String s = status.trim().toLowerCase(Locale.ROOT);
+        return "delivered".equals(s) || "đã giao hàng".equalsIgnoreCase(status.trim()) || "da_giao_hang".equals(s);
+    }
+
+    // Cùng đơn, cùng loại, cùng nội dung thì là bản gửi lại
+    private static String dedupeKey(String orderKey, GhnWebhookPayload p) {
+        String raw = String.join("|", orderKey.trim(), normalizeType(p.getWebhookType()),
+                Objects.toString(p.getDeliveryStatus(), ""), Objects.toString(p.getDeliveryStatusId(), ""),
+                Objects.toString(p.getWeight(), ""), Objects.toString(p.getCodAmount(), ""),
+                Objects.toString(p.getTotalFee(), ""), Objects.toString(p.getTime(), ""));
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalizeType(String type) {
+        return type == null ? "" : type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String firstNonBlank(String... values) {
+        return Stream.of(values).filter(v -> !isBlank(v)).findFirst().orElse(null);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
 }
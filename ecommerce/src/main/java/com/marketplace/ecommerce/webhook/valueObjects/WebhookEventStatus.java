@@ -0,0 +1,7 @@
+package com.marketplace.ecommerce.webhook.valueObjects;
+
+public enum WebhookEventStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
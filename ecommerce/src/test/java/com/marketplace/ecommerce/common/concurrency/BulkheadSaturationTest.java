@@ -0,0 +1,161 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Kịch bản tải cho bulkhead khi request chạy trên virtual thread: hàng trăm caller đồng thời bắn vào một
+ * downstream chậm. Bulkhead phải giữ số lời gọi đồng thời đúng bằng giới hạn, từ chối nhanh khi hết
+ * thời gian chờ và không làm downstream khác bị nghẽn theo.
+ */
+class BulkheadSaturationTest {
+    private static final int LIMIT = 8;
+
+    @Test
+    void concurrencyNeverExceedsLimitUnderLoad() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("vnpt", LIMIT);
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<Outcome> outcomes = fire(500, () -> bulkhead.call(() -> {
+            int now = current.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            sleep(Duration.ofMillis(20));
+            current.decrementAndGet();
+            return true;
+        }, Duration.ofSeconds(30)));
+
+        assertThat(outcomes).allMatch(Outcome::succeeded);
+        assertThat(peak).hasValue(LIMIT);
+        assertThat(bulkhead.getInUse()).isZero();
+    }
+
+    @Test
+    void saturatedBulkheadRejectsWithinMaxWait() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("vnpt", LIMIT);
+        Duration maxWait = Duration.ofMillis(100);
+
+        List<Outcome> outcomes = fire(200, () -> bulkhead.call(() -> {
+            sleep(Duration.ofMillis(1_000));
+            return true;
+        }, maxWait));
+
+        List<Outcome> rejected = outcomes.stream().filter(o -> !o.succeeded()).toList();
+        assertThat(outcomes.stream().filter(Outcome::succeeded)).hasSize(LIMIT);
+        assertThat(rejected).hasSize(200 - LIMIT);
+        // Caller bị từ chối trả lỗi sau khoảng maxWait, không phải xếp hàng chờ downstream chậm
+        assertThat(rejected).allMatch(o -> o.elapsed().compareTo(Duration.ofMillis(800)) < 0);
+        assertThat(bulkhead.getInUse()).isZero();
+    }
+
+    @Test
+    void saturatedDownstreamDoesNotStarveAnother() throws Exception {
+        Bulkhead vnpt = new Bulkhead("vnpt", LIMIT);
+        Bulkhead ghn = new Bulkhead("ghn", LIMIT);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Giữ toàn bộ slot vnpt cho tới khi kiểm tra xong ghn
+            for (int i = 0; i < LIMIT * 10; i++) {
+                executor.submit(() -> vnpt.call(() -> {
+                    await(release);
+                    return true;
+                }, Duration.ofSeconds(30)));
+            }
+            while (vnpt.getAvailable() > 0) {
+                Thread.sleep(5);
+            }
+
+            List<Outcome> ghnOutcomes = fire(100, () -> ghn.call(() -> {
+                sleep(Duration.ofMillis(5));
+                return true;
+            }, Duration.ofMillis(500)));
+
+            assertThat(ghnOutcomes).allMatch(Outcome::succeeded);
+            assertThat(vnpt.getInUse()).isEqualTo(LIMIT);
+            release.countDown();
+        }
+        assertThat(vnpt.getInUse()).isZero();
+    }
+
+    @Test
+    void permitIsHeldUntilClosedAndReleasedOnce() {
+        Bulkhead bulkhead = new Bulkhead("minio", 1);
+
+        Bulkhead.Permit permit = bulkhead.acquirePermit(Duration.ZERO);
+        assertThat(bulkhead.getInUse()).isEqualTo(1);
+        // Stream chưa đóng thì caller khác vẫn bị từ chối
+        assertThatThrownBy(() -> bulkhead.acquirePermit(Duration.ofMillis(10)))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        permit.close();
+        permit.close();
+        assertThat(bulkhead.getInUse()).isZero();
+        assertThat(bulkhead.getAvailable()).isEqualTo(1);
+    }
+
+    // Bắn đồng loạt callers lời gọi trên virtual thread, mỗi caller ghi lại kết quả và thời gian chờ
+    private static List<Outcome> fire(int callers, Call call) throws InterruptedException, ExecutionException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Outcome>> futures = new ArrayList<>(callers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long started = System.nanoTime();
+                    try {
+                        call.run();
+                        return new Outcome(true, Duration.ofNanos(System.nanoTime() - started));
+                    } catch (RejectedExecutionException e) {
+                        return new Outcome(false, Duration.ofNanos(System.nanoTime() - started));
+                    }
+                }));
+            }
+            start.countDown();
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(callers);
+        for (Future<Outcome> future : futures) {
+            outcomes.add(future.get());
+        }
+        return outcomes;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run();
+    }
+
+    private record Outcome(boolean succeeded, Duration elapsed) {
+    }
+}
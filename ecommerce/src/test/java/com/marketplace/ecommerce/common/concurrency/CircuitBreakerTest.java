@@ -0,0 +1,80 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Đồng hồ của circuit breaker được điều khiển bằng tay nên chuyển trạng thái không phụ thuộc thời gian thật.
+ */
+class CircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("ghn", 4, 4, 0.5, OPEN_DURATION, 2,
+            e -> e instanceof IllegalStateException, nanos::get);
+
+    @Test
+    void bulkheadRejectionInHalfOpenDoesNotCloseCircuit() {
+        openCircuit();
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // Bị bulkhead từ chối nhiều hơn số lượt thử: không lượt nào được tính là thành công
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                throw new RejectedExecutionException("ghn is busy");
+            })).isInstanceOf(RejectedExecutionException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // Lượt thử vẫn còn nguyên cho lời gọi thật
+        breaker.call(() -> true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.call(() -> true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectionWhileClosedIsNotRecorded() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                throw new IllegalStateException("timeout");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new RejectedExecutionException("ghn is busy");
+        })).isInstanceOf(RejectedExecutionException.class);
+        // Lần bị từ chối không vào cửa sổ: mới 3 lời gọi, chưa đủ minimumCalls
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new IllegalStateException("timeout");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openCircuitRejectsUntilOpenDurationElapses() {
+        openCircuit();
+        nanos.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThatThrownBy(() -> breaker.call(() -> true)).isInstanceOf(RejectedExecutionException.class);
+
+        nanos.incrementAndGet();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                throw new IllegalStateException("timeout");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
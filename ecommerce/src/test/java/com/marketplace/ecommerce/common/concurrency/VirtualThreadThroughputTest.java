@@ -0,0 +1,139 @@
+package com.marketplace.ecommerce.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kịch bản tải trước/sau khi bật virtual thread. "Trước" là pool platform 200 thread (mặc định
+ * server.tomcat.threads.max), không có bulkhead; "sau" là mỗi request một virtual thread (như
+ * spring.threads.virtual.enabled=true), downstream giới hạn bằng bulkhead như DownstreamBulkheadConfig.
+ * I/O blocking được giả lập bằng sleep: virtual thread nhả carrier khi sleep giống như khi chờ socket.
+ */
+class VirtualThreadThroughputTest {
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Test
+    void virtualThreadsServeMoreBlockingRequestsThanPlatformPool() throws Exception {
+        int requests = 4_000;
+        Duration latency = Duration.ofMillis(50);
+        Request request = () -> sleep(latency);
+
+        Run before = run(platformPool(), requests, r -> request);
+        Run after = run(Executors.newVirtualThreadPerTaskExecutor(), requests, r -> request);
+        report("blocking I/O", before, after);
+
+        assertThat(before.completed()).isEqualTo(requests);
+        assertThat(after.completed()).isEqualTo(requests);
+        // 200 thread chỉ xử lý được 200 request mỗi 50ms; virtual thread chờ I/O song song toàn bộ
+        assertThat(after.throughput()).isGreaterThan(before.throughput() * 3);
+    }
+
+    @Test
+    void slowDownstreamNoLongerStarvesOtherRequests() throws Exception {
+        int requests = 2_000;
+        // 1/4 request gọi GHN đang chậm, phần còn lại chỉ đọc MinIO
+        Request slowGhn = () -> sleep(Duration.ofMillis(500));
+        Request minio = () -> sleep(Duration.ofMillis(10));
+
+        Run before = run(platformPool(), requests, r -> r % 4 == 0 ? slowGhn : minio);
+
+        Bulkhead ghn = new Bulkhead("ghn", 16);
+        Bulkhead minioBulkhead = new Bulkhead("minio", 32);
+        AtomicInteger ghnPeak = new AtomicInteger();
+        Request guardedGhn = () -> ghn.call(() -> {
+            ghnPeak.accumulateAndGet(ghn.getInUse(), Math::max);
+            sleep(Duration.ofMillis(500));
+            return true;
+        }, Duration.ofMillis(100));
+        Request guardedMinio = () -> minioBulkhead.call(() -> {
+            sleep(Duration.ofMillis(10));
+            return true;
+        }, Duration.ofSeconds(5));
+        Run after = run(Executors.newVirtualThreadPerTaskExecutor(), requests,
+                r -> r % 4 == 0 ? guardedGhn : guardedMinio);
+        report("slow GHN + MinIO", before, after);
+
+        // Trước: GHN chậm chiếm thread của Tomcat nên request MinIO phải xếp hàng sau nó
+        assertThat(after.elapsed()).isLessThan(before.elapsed());
+        assertThat(after.completed()).isGreaterThanOrEqualTo(requests * 3 / 4);
+        assertThat(after.rejected()).isPositive();
+        assertThat(ghnPeak.get()).isLessThanOrEqualTo(16);
+    }
+
+    private static ExecutorService platformPool() {
+        return Executors.newFixedThreadPool(TOMCAT_MAX_THREADS, Thread.ofPlatform().daemon().factory());
+    }
+
+    // Bắn đồng loạt requests request vào executor, đo thời gian tới khi request cuối xong
+    private static Run run(ExecutorService executor, int requests, RequestMix mix) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(requests);
+        long started;
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                Request request = mix.pick(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        request.handle();
+                        completed.incrementAndGet();
+                    } catch (RejectedExecutionException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Run(completed.get(), rejected.get(), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private static void report(String scenario, Run before, Run after) {
+        System.out.printf("[%s] platform(%d): %d ok, %d rejected in %d ms (%.0f req/s); "
+                        + "virtual: %d ok, %d rejected in %d ms (%.0f req/s)%n",
+                scenario, TOMCAT_MAX_THREADS,
+                before.completed(), before.rejected(), before.elapsed().toMillis(), before.throughput(),
+                after.completed(), after.rejected(), after.elapsed().toMillis(), after.throughput());
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void handle();
+    }
+
+    @FunctionalInterface
+    private interface RequestMix {
+        Request pick(int index);
+    }
+
+    private record Run(int completed, int rejected, Duration elapsed) {
+        double throughput() {
+            return (completed + rejected) * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.marketplace.ecommerce.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Micro-benchmark trước/sau của SimpleLocalFileStore: "trước" là bản đọc file hai lần (băm rồi copy) trước commit
+ * 44dfef6, "sau" là bản hiện tại băm trong lúc ghi file tạm. Upload được giả lập bằng file trên đĩa giống multipart
+ * lớn hơn file-size-threshold. Thời gian chỉ in ra để so sánh; phần assert dựa trên số byte đọc từ upload.
+ */
+class SimpleLocalFileStoreBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void currentStoreReadsUploadOnceAndMatchesLegacyHash() throws IOException {
+        for (int size : new int[]{256 * 1024, 8 * 1024 * 1024}) {
+            DiskUpload upload = upload(size);
+            LegacySimpleLocalFileStore legacy = new LegacySimpleLocalFileStore(dir.resolve("legacy").toString());
+            SimpleLocalFileStore current = new SimpleLocalFileStore(dir.resolve("current").toString());
+
+            upload.bytesRead.set(0);
+            String legacyHash = legacy.saveAndGetSha256(upload);
+            long legacyRead = upload.bytesRead.getAndSet(0);
+            String currentHash = current.saveAndGetSha256(upload);
+            long currentRead = upload.bytesRead.getAndSet(0);
+
+            assertThat(currentHash).isEqualTo(legacyHash);
+            assertThat(legacyRead).isEqualTo(2L * size);
+            assertThat(currentRead).isEqualTo(size);
+
+            long legacyNanos = measure(() -> legacy.saveAndGetSha256(upload));
+            long currentNanos = measure(() -> current.saveAndGetSha256(upload));
+            report(size, legacyNanos, currentNanos);
+        }
+    }
+
+    // Trung bình mỗi lượt sau khi đã warmup JIT và page cache
+    private static long measure(Runnable save) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            save.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            save.run();
+        }
+        return (System.nanoTime() - started) / MEASURED_ROUNDS;
+    }
+
+    private static void report(int size, long legacyNanos, long currentNanos) {
+        System.out.printf("[%d KB] legacy: %.2f ms (%.0f MB/s); current: %.2f ms (%.0f MB/s)%n",
+                size / 1024,
+                legacyNanos / 1e6, size / 1e6 / (legacyNanos / 1e9),
+                currentNanos / 1e6, size / 1e6 / (currentNanos / 1e9));
+    }
+
+    private DiskUpload upload(int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Path path = dir.resolve("upload-" + size + ".jpg");
+        Files.write(path, content);
+        return new DiskUpload(path);
+    }
+
+    /**
+     * Multipart đã được container ghi ra đĩa; đếm số byte caller đọc qua getInputStream.
+     */
+    private static final class DiskUpload implements MultipartFile {
+        private final Path path;
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        DiskUpload(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/jpeg";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            byte[] bytes = Files.readAllBytes(path);
+            bytesRead.addAndGet(bytes.length);
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(Files.newInputStream(path)) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        bytesRead.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buf, int off, int len) throws IOException {
+                    int n = super.read(buf, off, len);
+                    if (n > 0) {
+                        bytesRead.addAndGet(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Bản trước commit 44dfef6, giữ nguyên logic để làm baseline.
+     */
+    private static final class LegacySimpleLocalFileStore {
+        private final Path baseDir;
+
+        LegacySimpleLocalFileStore(String dir) {
+            this.baseDir = Paths.get(dir);
+        }
+
+        String saveAndGetSha256(MultipartFile file) {
+            try {
+                if (file == null || file.isEmpty()) {
+                    throw new IllegalArgumentException("file is empty");
+                }
+                Files.createDirectories(baseDir);
+
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = file.getInputStream()) {
+                    byte[] buf = new byte[8192];
+                    int n;
+                    while ((n = in.read(buf)) > 0) {
+                        md.update(buf, 0, n);
+                    }
+                }
+                String hash = toHex(md.digest());
+
+                String ext = safeExt(file.getOriginalFilename());
+                Path target = baseDir.resolve(hash + ext);
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                return hash;
+            } catch (Exception e) {
+                throw new RuntimeException("Cannot store KYC file: " + e.getMessage(), e);
+            }
+        }
+
+        private static String toHex(byte[] bytes) {
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) sb.append(String.format("%02x", b));
+            return sb.toString();
+        }
+
+        private static String safeExt(String name) {
+            if (name == null) return "";
+            int idx = name.lastIndexOf('.');
+            if (idx < 0) return "";
+            String ext = name.substring(idx).toLowerCase();
+            if (ext.equals(".jpg") || ext.equals(".jpeg") || ext.equals(".png") || ext.equals(".pdf")) return ext;
+            return "";
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.marketplace.ecommerce.kyc.usecase.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
+import com.marketplace.ecommerce.config.EKycConfig;
+import com.marketplace.ecommerce.config.EKycHelper;
+import com.marketplace.ecommerce.config.RestClientConfig;
+import com.marketplace.ecommerce.file.SimpleLocalFileStore;
+import com.marketplace.ecommerce.kyc.entity.KycPipelineJob;
+import com.marketplace.ecommerce.kyc.repository.KycPipelineJobRepository;
+import com.marketplace.ecommerce.kyc.repository.KycSessionRepository;
+import com.marketplace.ecommerce.kyc.service.CardLivenessService;
+import com.marketplace.ecommerce.kyc.service.FaceLivenessService;
+import com.marketplace.ecommerce.kyc.service.KycSessionAttachService;
+import com.marketplace.ecommerce.kyc.service.UploadFileService;
+import com.marketplace.ecommerce.kyc.service.VnptResultCache;
+import com.marketplace.ecommerce.kyc.service.impl.CardClassifyServiceImpl;
+import com.marketplace.ecommerce.kyc.service.impl.KycPipelineServiceImpl;
+import com.marketplace.ecommerce.kyc.valueObjects.AttachDecision;
+import com.marketplace.ecommerce.kyc.valueObjects.FaceLivenessResult;
+import com.marketplace.ecommerce.kyc.valueObjects.KycPipelineStep;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * VNPT giả lập bằng HttpServer của JDK: kiểm tra read timeout, lỗi 5xx và retry của pipeline KYC
+ * trên đúng RestClient cấu hình như production.
+ */
+class VNPTClientStubServerTest {
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(300);
+    private static final String CLASSIFY_OK = """
+            {"message": "IDG-00000000", "object": {"type": 4, "name": "selfie", "confidence": 0.98}}
+            """;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile Responder responder;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            int call = hits.incrementAndGet();
+            try {
+                responder.respond(call, exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void readTimeoutSurfacesAsResourceAccessException() {
+        responder = (call, exchange) -> {
+            Thread.sleep(2_000);
+            reply(exchange, 200, CLASSIFY_OK);
+        };
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client().classify("hash", "session"))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(1_500));
+    }
+
+    @Test
+    void serverErrorIsPropagated() {
+        responder = (call, exchange) -> reply(exchange, 503, "{\"message\": \"unavailable\"}");
+
+        assertThatThrownBy(() -> client().classify("hash", "session"))
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(hits).hasValue(1);
+    }
+
+    @Test
+    void pipelineRetriesTimeoutAndServerErrorThenCompletes() throws InterruptedException {
+        responder = (call, exchange) -> {
+            switch (call) {
+                case 1 -> {
+                    Thread.sleep(1_000);
+                    reply(exchange, 200, CLASSIFY_OK);
+                }
+                case 2 -> reply(exchange, 502, "{\"message\": \"bad gateway\"}");
+                default -> reply(exchange, 200, CLASSIFY_OK);
+            }
+        };
+
+        KycPipelineJob job = runPipeline();
+
+        assertThat(job.getStep()).isEqualTo(KycPipelineStep.DONE);
+        assertThat(job.getAttempts()).isZero();
+        assertThat(job.getClassifiedName()).isEqualTo("selfie");
+        assertThat(hits).hasValue(3);
+    }
+
+    @Test
+    void pipelineDoesNotRetryClientError() throws InterruptedException {
+        responder = (call, exchange) -> reply(exchange, 400, "{\"message\": \"invalid hash\"}");
+
+        KycPipelineJob job = runPipeline();
+
+        assertThat(job.getStep()).isEqualTo(KycPipelineStep.FAILED);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(hits).hasValue(1);
+    }
+
+    private VNPTClientImpl client() {
+        EKycConfig cfg = new EKycConfig();
+        cfg.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+
+        VnptResultCache passThrough = mock(VnptResultCache.class);
+        when(passThrough.getOrLoad(any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(4)).get());
+
+        return new VNPTClientImpl(
+                new RestClientConfig().vnptRestClient(cfg, new EKycHelper(cfg), Duration.ofSeconds(1), READ_TIMEOUT),
+                cfg,
+                passThrough,
+                new Bulkhead("vnpt", 4));
+    }
+
+    // Chạy job từ bước CLASSIFY qua dispatcher thật; repository được giả lập trên chính object job
+    private KycPipelineJob runPipeline() throws InterruptedException {
+        KycPipelineJob job = new KycPipelineJob();
+        job.setId(UUID.randomUUID());
+        job.setSessionId(UUID.randomUUID());
+        job.setAccountId(UUID.randomUUID());
+        job.setStep(KycPipelineStep.CLASSIFY);
+        job.setFilePath("unused");
+        job.setFileHash("hash");
+        job.setNextAttemptAt(Instant.now());
+
+        KycPipelineJobRepository jobs = mock(KycPipelineJobRepository.class);
+        when(jobs.lockDue(any(), anyInt())).thenAnswer(inv -> {
+            Instant now = inv.getArgument(0);
+            boolean due = !job.getStep().isTerminal() && !job.getNextAttemptAt().isAfter(now);
+            return due ? List.of(job) : List.of();
+        });
+        when(jobs.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(jobs.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(jobs.findById(job.getId())).thenReturn(Optional.of(job));
+        when(jobs.holdLease(eq(job.getId()), any()))
+                .thenAnswer(inv -> inv.getArgument(1).equals(job.getLeaseToken()) ? 1 : 0);
+
+        FaceLivenessService faceLiveness = mock(FaceLivenessService.class);
+        when(faceLiveness.verify(any(), any())).thenReturn(new FaceLivenessResult(true, "success", "live"));
+        KycSessionAttachService attach = mock(KycSessionAttachService.class);
+        when(attach.attachFile(any(), any(), any(), any())).thenReturn(new AttachDecision(true, null, "selfie"));
+
+        KycPipelineServiceImpl pipeline = new KycPipelineServiceImpl(
+                jobs,
+                mock(KycSessionRepository.class),
+                mock(SimpleLocalFileStore.class),
+                mock(UploadFileService.class),
+                new CardClassifyServiceImpl(client()),
+                mock(CardLivenessService.class),
+                faceLiveness,
+                attach,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper(),
+                1,
+                5,
+                Duration.ofMillis(10),
+                Duration.ofMillis(50),
+                Duration.ofMinutes(5));
+        try {
+            Instant deadline = Instant.now().plusSeconds(10);
+            while (!job.getStep().isTerminal() && Instant.now().isBefore(deadline)) {
+                pipeline.dispatchDueJobs();
+                Thread.sleep(20);
+            }
+        } finally {
+            pipeline.shutdown();
+        }
+        return job;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Responder {
+        void respond(int call, HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,149 @@
+package com.marketplace.ecommerce.product.service.impl;
+
+import com.marketplace.ecommerce.auth.entity.Account;
+import com.marketplace.ecommerce.auth.entity.User;
+import com.marketplace.ecommerce.common.QueryUtils;
+import com.marketplace.ecommerce.product.dto.response.ProductResponse;
+import com.marketplace.ecommerce.product.entity.Product;
+import com.marketplace.ecommerce.product.entity.ProductCategory;
+import com.marketplace.ecommerce.product.entity.ProductImage;
+import com.marketplace.ecommerce.product.service.ProductCacheService;
+import com.marketplace.ecommerce.product.valueObjects.ProductStatus;
+import com.marketplace.ecommerce.shop.entity.Shop;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regression cho N+1 ở /seller/by-shop: số câu SQL phải cố định, không tăng theo số product/ảnh trong trang.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({QueryProductServiceImpl.class, QueryUtils.class})
+class SellerProductListingQueryCountTest {
+    // user, shop, id page, count, products + shop + category, images
+    private static final long MAX_STATEMENTS = 6;
+
+    @Autowired
+    private QueryProductServiceImpl queryProductService;
+
+    @Autowired
+    private EntityManager em;
+
+    @MockitoBean
+    private ProductCacheService productCacheService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageContent() {
+        // Cả hai shop đều nhiều hơn 1 trang để cùng chạy count query
+        UUID smallShopAccount = createShopWithProducts("small", 3, 1);
+        UUID largeShopAccount = createShopWithProducts("large", 40, 4);
+
+        long small = countStatements(smallShopAccount, 2);
+        long large = countStatements(largeShopAccount, 20);
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void statementCountStaysBoundedAtPageSize100() {
+        // Trang 100 product x 4 ảnh (bằng default_batch_fetch_size): danh sách id và IN lấy images lớn nhất
+        UUID accountId = createShopWithProducts("full", 150, 4);
+
+        long statements = countStatements(accountId, 100);
+
+        assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void returnsImagesForEveryProductOnThePage() {
+        UUID accountId = createShopWithProducts("images", 5, 3);
+
+        Page<ProductResponse> page = queryProductService.getProductsByShopAndStatus(
+                accountId, null, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).hasSize(3)
+                .allSatisfy(p -> assertThat(p.getImages()).hasSize(3));
+    }
+
+    private long countStatements(UUID accountId, int pageSize) {
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        Page<ProductResponse> page = queryProductService.getProductsByShopAndStatus(
+                accountId, null, PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "createdAt")));
+        page.getContent().forEach(p -> assertThat(p.getShopName()).isNotNull());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private UUID createShopWithProducts(String name, int products, int imagesPerProduct) {
+        Account account = new Account();
+        account.setUsername(name);
+        account.setEmail(name + "@test.local");
+        account.setPasswordHash("x");
+        em.persist(account);
+
+        User user = new User();
+        user.setFullName(name);
+        user.setEmail(name + "@user.local");
+        user.setAccount(account);
+        em.persist(user);
+
+        Shop shop = new Shop();
+        shop.setUser(user);
+        shop.setName("shop-" + name);
+        em.persist(shop);
+
+        ProductCategory category = new ProductCategory();
+        category.setName("category-" + name);
+        em.persist(category);
+
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setShop(shop);
+            product.setProductCategory(category);
+            product.setName(name + " " + i);
+            product.setSku(name + "-" + i);
+            product.setStatus(ProductStatus.PUBLISHED);
+            product.setBasePrice(BigDecimal.TEN);
+            em.persist(product);
+
+            for (int j = 0; j < imagesPerProduct; j++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl("http://img/" + name + "/" + i + "/" + j + ".jpg");
+                image.setDisplayOrder(j);
+                image.setIsThumbnail(j == 0);
+                em.persist(image);
+            }
+        }
+        return account.getId();
+    }
+}
@@ -0,0 +1,292 @@
+package com.marketplace.ecommerce.shipping.usecase.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.ecommerce.common.concurrency.Bulkhead;
+import com.marketplace.ecommerce.config.GHNConfig;
+import com.marketplace.ecommerce.config.GHNRestClientConfig;
+import com.marketplace.ecommerce.shipping.dto.request.GHNCalculateFeeRequest;
+import com.marketplace.ecommerce.shipping.dto.request.GHNCreateOrderRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * GHN giả lập bằng HttpServer của JDK (chậm, 5xx, 429, 4xx) phía sau đúng các RestClient và HttpClient dùng chung
+ * của {@link GHNRestClientConfig}. Đồng hồ của circuit breaker điều khiển bằng tay nên không cần sleep hết openDuration.
+ */
+class ResilientGHNClientTest {
+    private static final double CLOSED = 0, OPEN = 1, HALF_OPEN = 2;
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+    private static final Duration FEE_TIMEOUT = Duration.ofMillis(200);
+    private static final Duration MASTER_DATA_TIMEOUT = Duration.ofSeconds(2);
+    private static final String OK_LIST = "{\"code\": 200, \"message\": \"Success\", \"data\": []}";
+    private static final String OK_FEE = "{\"code\": 200, \"message\": \"Success\", \"data\": {\"total\": 22000}}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile Responder responder;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            int call = hits.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            try {
+                responder.respond(call, exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void feeTimeoutIsShorterThanMasterDataTimeout() {
+        responder = (call, exchange) -> {
+            Thread.sleep(600);
+            reply(exchange, 200, exchange.getRequestURI().getPath().endsWith("/fee") ? OK_FEE : OK_LIST);
+        };
+        ResilientGHNClient client = client(100, 100, 1, 0.2);
+
+        // Báo phí cắt ở 200ms, master data chờ được tới 2s
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.calculateFee(new GHNCalculateFeeRequest()))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(550));
+
+        assertThat(client.getProvinces()).isEmpty();
+    }
+
+    @Test
+    void restClientsShareOneKeepAliveConnection() {
+        responder = (call, exchange) ->
+                reply(exchange, 200, exchange.getRequestURI().getPath().endsWith("/fee") ? OK_FEE : OK_LIST);
+        ResilientGHNClient client = client(100, 100, 1, 0.2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(client.calculateFee(new GHNCalculateFeeRequest()).getTotal()).isEqualTo(22000);
+            assertThat(client.getProvinces()).isEmpty();
+            assertThat(client.getWards(7)).isEmpty();
+        }
+
+        // Ba RestClient khác read timeout nhưng cùng HttpClient: gọi tuần tự thì dùng lại đúng một kết nối
+        assertThat(hits).hasValue(9);
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void circuitOpensOnServerErrorsThenHalfOpensAndCloses() {
+        responder = (call, exchange) -> reply(exchange, call <= 4 ? 503 : 200, call <= 4 ? "" : OK_LIST);
+        ResilientGHNClient client = client(4, 4, 1, 0.2);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(client::getProvinces).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(circuitState()).isEqualTo(OPEN);
+
+        // Mạch mở: từ chối ngay, không gọi sang GHN
+        assertThatThrownBy(client::getProvinces).isInstanceOf(RejectedExecutionException.class);
+        assertThat(hits).hasValue(4);
+
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(circuitState()).isEqualTo(HALF_OPEN);
+
+        client.getProvinces();
+        assertThat(circuitState()).isEqualTo(HALF_OPEN);
+        client.getProvinces();
+        assertThat(circuitState()).isEqualTo(CLOSED);
+        assertThat(hits).hasValue(6);
+    }
+
+    @Test
+    void failedProbeInHalfOpenReopensCircuit() {
+        responder = (call, exchange) -> {
+            Thread.sleep(600);
+            reply(exchange, 200, OK_FEE);
+        };
+        ResilientGHNClient client = client(4, 4, 1, 0.2);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.calculateFee(new GHNCalculateFeeRequest()))
+                    .isInstanceOf(ResourceAccessException.class);
+        }
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(circuitState()).isEqualTo(HALF_OPEN);
+
+        assertThatThrownBy(() -> client.calculateFee(new GHNCalculateFeeRequest()))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(circuitState()).isEqualTo(OPEN);
+        assertThatThrownBy(() -> client.calculateFee(new GHNCalculateFeeRequest()))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(hits).hasValue(5);
+    }
+
+    @Test
+    void rateLimitedAndServerErrorsAreRetriedUntilSuccess() {
+        responder = (call, exchange) -> {
+            switch (call) {
+                case 1 -> reply(exchange, 429, "{\"code\": 429, \"message\": \"Too many requests\"}");
+                case 2 -> reply(exchange, 502, "");
+                default -> reply(exchange, 200, OK_LIST);
+            }
+        };
+        ResilientGHNClient client = client(100, 100, 3, 0.2);
+
+        assertThat(client.getWards(7)).isEmpty();
+        assertThat(hits).hasValue(3);
+        assertThat(retries("retried")).isEqualTo(2);
+    }
+
+    @Test
+    void clientErrorsNeitherOpenCircuitNorRetry() {
+        responder = (call, exchange) -> reply(exchange, 400, "{\"code\": 400, \"message\": \"invalid province\"}");
+        ResilientGHNClient client = client(4, 2, 3, 0.2);
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> client.getDistricts(1)).isInstanceOf(HttpClientErrorException.class);
+        }
+        assertThat(circuitState()).isEqualTo(CLOSED);
+        assertThat(hits).hasValue(10);
+    }
+
+    @Test
+    void retryBudgetExhaustionStopsRetrying() {
+        responder = (call, exchange) -> reply(exchange, 503, "");
+        // ratio 0: chỉ còn 10 token ban đầu của budget, không nạp thêm theo request
+        ResilientGHNClient client = client(1000, 1000, 2, 0.0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(client::getProvinces).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(hits).hasValue(20);
+
+        assertThatThrownBy(client::getProvinces).isInstanceOf(HttpServerErrorException.class);
+        assertThat(hits).hasValue(21);
+        assertThat(retries("retried")).isEqualTo(10);
+        assertThat(retries("budget_exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void createOrderAndCancelOrderAreNeverRetried() {
+        responder = (call, exchange) -> {
+            if (exchange.getRequestURI().getPath().endsWith("/create")) {
+                Thread.sleep(1_500);
+                reply(exchange, 200, OK_LIST);
+            } else {
+                reply(exchange, 504, "");
+            }
+        };
+        ResilientGHNClient client = client(100, 100, 3, 0.2);
+
+        assertThatThrownBy(() -> client.createOrder(new GHNCreateOrderRequest()))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThatThrownBy(() -> client.cancelOrder("GHN123"))
+                .isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(hits).hasValue(2);
+        assertThat(retries("retried")).isZero();
+    }
+
+    private ResilientGHNClient client(int windowSize, int minimumCalls, int maxAttempts, double budgetRatio) {
+        GHNConfig cfg = new GHNConfig();
+        cfg.setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        cfg.setToken("token");
+        cfg.setShopId("1");
+        cfg.getTimeouts().setConnect(Duration.ofSeconds(1));
+        cfg.getTimeouts().setRead(Duration.ofMillis(500));
+        cfg.getTimeouts().setFee(FEE_TIMEOUT);
+        cfg.getTimeouts().setMasterData(MASTER_DATA_TIMEOUT);
+
+        GHNRestClientConfig config = new GHNRestClientConfig();
+        HttpClient httpClient = config.ghnHttpClient(cfg);
+        GHNClientImpl ghn = new GHNClientImpl(
+                config.ghnRestClient(cfg, httpClient),
+                config.ghnFeeRestClient(cfg, httpClient),
+                config.ghnMasterDataRestClient(cfg, httpClient),
+                cfg,
+                new ObjectMapper());
+
+        return new ResilientGHNClient(
+                ghn,
+                new Bulkhead("ghn", 4),
+                meterRegistry,
+                Duration.ofMillis(100),
+                windowSize,
+                minimumCalls,
+                0.5,
+                OPEN_DURATION,
+                2,
+                maxAttempts,
+                Duration.ofMillis(1),
+                budgetRatio,
+                0.0,
+                nanos::get);
+    }
+
+    private double circuitState() {
+        return meterRegistry.get("ghn.circuit.state").gauge().value();
+    }
+
+    private double retries(String result) {
+        return meterRegistry.find("ghn.retries").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Responder {
+        void respond(int call, HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}